@@ -0,0 +1,176 @@
+package gui.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import model.entities.Cliente;
+
+/**
+ * Custo de atualizar e rolar uma {@code TableView} com as colunas "editar" e
+ * "remover". {@code legacy} reproduz o cdigo antigo dos controllers, que
+ * instalava novas fbricas de clulas a cada {@code updateTableView()} e criava
+ * um handler por {@code updateItem}; {@code actionCell} usa o
+ * {@link ActionButtonCell} instalado uma vez.
+ * <p>
+ * A tabela fica numa {@link Scene} sem janela e cada operao roda na thread do
+ * JavaFX com {@code applyCss()}/{@code layout()}, ento  preciso um toolkit
+ * funcionando: um display, ou o Monocle headless
+ * ({@code -Dglass.platform=Monocle -Dmonocle.platform=Headless}). Compare
+ * {@code gc.alloc.rate.norm} com {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class ActionButtonCellBenchmark {
+
+	private static final int SCROLL_STEP = 20;
+
+	@Param({ "legacy", "actionCell" })
+	public String variant;
+
+	@Param({ "10000" })
+	public int rows;
+
+	private TableView<Cliente> table;
+	private TableColumn<Cliente, Cliente> edit;
+	private TableColumn<Cliente, Cliente> remove;
+	private int position;
+	private int clicks;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		try {
+			Platform.startup(() -> {});
+		}
+		catch (IllegalStateException e) {
+			// o toolkit j foi iniciado nesta JVM
+		}
+		onFx(() -> {
+			List<Cliente> list = new ArrayList<>(rows);
+			for (int i = 1; i <= rows; i++) {
+				list.add(new Cliente(i, "Empresa " + i, "Projeto " + i));
+			}
+			table = new TableView<>(FXCollections.observableArrayList(list));
+			TableColumn<Cliente, String> empresa = new TableColumn<>("Empresa");
+			empresa.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getEmpresa()));
+			edit = new TableColumn<>();
+			remove = new TableColumn<>();
+			table.getColumns().add(empresa);
+			table.getColumns().add(edit);
+			table.getColumns().add(remove);
+			if (variant.equals("actionCell")) {
+				ActionButtonCell.install(edit, "editar", (obj, event) -> clicks++);
+				ActionButtonCell.install(remove, "remove", (obj, event) -> clicks--);
+			}
+			else {
+				installLegacy();
+			}
+			new Scene(table, 800, 600);
+			layout();
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Platform.exit();
+	}
+
+	/** Equivale a um {@code updateTableView()} depois de gravar uma entidade. */
+	@Benchmark
+	public void refresh() throws Exception {
+		onFx(() -> {
+			if (variant.equals("actionCell")) {
+				table.refresh();
+			}
+			else {
+				installLegacy();
+			}
+			layout();
+		});
+	}
+
+	/** Rola {@value #SCROLL_STEP} linhas, reaproveitando as clulas visveis. */
+	@Benchmark
+	public void scroll() throws Exception {
+		onFx(() -> {
+			position = (position + SCROLL_STEP) % rows;
+			table.scrollTo(position);
+			layout();
+		});
+	}
+
+	private void layout() {
+		table.applyCss();
+		table.layout();
+	}
+
+	// cpia de initEditButtons()/initRemoveButtons() como eram nos controllers
+	private void installLegacy() {
+		edit.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
+		edit.setCellFactory(param -> new TableCell<Cliente, Cliente>() {
+			private final Button button = new Button("editar");
+
+			@Override
+			protected void updateItem(Cliente obj, boolean empty) {
+				super.updateItem(obj, empty);
+				if (obj == null) {
+					setGraphic(null);
+					return;
+				}
+				setGraphic(button);
+				button.setOnAction(event -> clicks += obj.getId());
+			}
+		});
+		remove.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
+		remove.setCellFactory(param -> new TableCell<Cliente, Cliente>() {
+			private final Button button = new Button("remove");
+
+			@Override
+			protected void updateItem(Cliente obj, boolean empty) {
+				super.updateItem(obj, empty);
+				if (obj == null) {
+					setGraphic(null);
+					return;
+				}
+				setGraphic(button);
+				button.setOnAction(event -> clicks -= obj.getId());
+			}
+		});
+	}
+
+	private static void onFx(Runnable task) throws InterruptedException, ExecutionException {
+		FutureTask<Void> future = new FutureTask<>(task, null);
+		Platform.runLater(future);
+		future.get();
+	}
+
+}
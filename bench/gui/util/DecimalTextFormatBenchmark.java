@@ -0,0 +1,75 @@
+package gui.util;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Uma coluna de salrios repintada ao rolar a tabela de novo: cada operao
+ * formata o prximo de {@code distinct} salrios, em ciclo, como as clulas
+ * passando pelos mesmos valores. {@code none} formata sempre, {@code default}
+ * usa o {@link DecimalTextFormat#DEFAULT_CACHE_SIZE} e {@code sized} o
+ * {@link DecimalTextFormat#cacheSizeFor} dos valores. Rode com {@code -prof gc}
+ * e compare {@code gc.alloc.rate.norm}: s o cache que comporta os valores
+ * chega perto de zero byte por chamada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecimalTextFormatBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int distinct;
+
+	@Param({ "none", "default", "sized" })
+	public String cache;
+
+	private double[] values;
+	private DecimalTextFormat format;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		values = new double[distinct];
+		for (int i = 0; i < distinct; i++) {
+			values[i] = 1500 + random.nextInt(1_850_000) / 100.0;
+		}
+		int cacheSize;
+		switch (cache) {
+		case "none":
+			cacheSize = 0;
+			break;
+		case "default":
+			cacheSize = DecimalTextFormat.DEFAULT_CACHE_SIZE;
+			break;
+		default:
+			cacheSize = DecimalTextFormat.cacheSizeFor(distinct);
+			break;
+		}
+		format = new DecimalTextFormat(2, Locale.US, cacheSize);
+	}
+
+	@Benchmark
+	public String format() {
+		double value = values[next];
+		next = next + 1 == values.length ? 0 : next + 1;
+		return format.format(value);
+	}
+
+}
@@ -0,0 +1,146 @@
+package model.dao.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import db.DB;
+import db.PooledConnectionProvider;
+
+/**
+ * Banco H2 em memria, em modo de compatibilidade MySQL, com o mesmo esquema
+ * de sql/schema.sql. Cada instncia usa um banco prprio, semeado com
+ * {@code clientes} clientes e {@code funcionarios} funcionrios distribudos
+ * entre eles.
+ */
+public class BenchDatabase {
+
+	private static int sequence;
+
+	private final PooledConnectionProvider provider;
+	private final int clientes;
+	private final int funcionarios;
+
+	public BenchDatabase(int clientes, int funcionarios) {
+		this.clientes = clientes;
+		this.funcionarios = funcionarios;
+
+		Properties props = new Properties();
+		props.setProperty("dburl", "jdbc:h2:mem:bench" + nextSequence() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		props.setProperty("user", "sa");
+		props.setProperty("password", "");
+		provider = new PooledConnectionProvider(props);
+		DB.setConnectionProvider(provider);
+
+		try {
+			createSchema();
+			seed();
+		}
+		catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static synchronized int nextSequence() {
+		return ++sequence;
+	}
+
+	public PooledConnectionProvider getProvider() {
+		return provider;
+	}
+
+	public int getClientes() {
+		return clientes;
+	}
+
+	public int getFuncionarios() {
+		return funcionarios;
+	}
+
+	public void close() {
+		try (Connection conn = provider.getConnection(); Statement st = conn.createStatement()) {
+			st.execute("SHUTDOWN");
+		}
+		catch (SQLException e) {
+			// o banco est sendo descartado
+		}
+		provider.shutdown();
+	}
+
+	private void createSchema() throws SQLException {
+		try (Connection conn = provider.getConnection(); Statement st = conn.createStatement()) {
+			for (String file : new String[] { "sql/schema.sql", "sql/changelog.sql", "sql/indexes.sql" }) {
+				for (String sql : readScript(file)) {
+					st.execute(sql);
+				}
+			}
+		}
+	}
+
+	private static List<String> readScript(String file) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+				if (!line.trim().startsWith("--")) {
+					sb.append(line).append('\n');
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Rode os benchmarks a partir da raiz do projeto", e);
+		}
+		List<String> statements = new ArrayList<>();
+		for (String sql : sb.toString().split(";")) {
+			if (!sql.trim().isEmpty()) {
+				statements.add(sql.trim());
+			}
+		}
+		return statements;
+	}
+
+	private void seed() throws SQLException {
+		Random random = new Random(42);
+		try (Connection conn = provider.getConnection()) {
+			conn.setAutoCommit(false);
+			try (PreparedStatement st = conn.prepareStatement("INSERT INTO cliente (Empresa, Projeto) VALUES (?, ?)")) {
+				for (int i = 1; i <= clientes; i++) {
+					st.setString(1, "Empresa " + (i % Math.max(1, clientes / 2)));
+					st.setString(2, "Projeto " + i);
+					st.addBatch();
+				}
+				st.executeBatch();
+			}
+			try (PreparedStatement st = conn.prepareStatement(
+					"INSERT INTO funcionario (Nome, Email, Inicio, Salario, ClienteId) VALUES (?, ?, ?, ?, ?)")) {
+				long day = 24L * 60 * 60 * 1000;
+				long start = java.sql.Date.valueOf("2015-01-01").getTime();
+				for (int i = 1; i <= funcionarios; i++) {
+					st.setString(1, "Funcionario " + i);
+					st.setString(2, "funcionario" + i + "@empresa.com");
+					st.setDate(3, new java.sql.Date(start + random.nextInt(3650) * day));
+					st.setDouble(4, 1500 + random.nextInt(1850000) / 100.0);
+					st.setInt(5, 1 + random.nextInt(clientes));
+					st.addBatch();
+					if (i % 1000 == 0) {
+						// o H2 fica lento com transaes muito grandes
+						st.executeBatch();
+						conn.commit();
+					}
+				}
+				st.executeBatch();
+			}
+			conn.commit();
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package model.dao.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.entities.Cliente;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ClienteDaoBenchmark {
+
+	@Param({ "50", "1000" })
+	public int clientes;
+
+	private BenchDatabase db;
+	private ClienteDaoJDBC dao;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase(clientes, 0);
+		dao = new ClienteDaoJDBC(db.getProvider());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	public List<Cliente> findAll() {
+		return dao.findAll();
+	}
+
+}
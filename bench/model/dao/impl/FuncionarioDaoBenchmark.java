@@ -0,0 +1,111 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.dao.BatchResult;
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FuncionarioDaoBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	@Param({ "100" })
+	public int batchSize;
+
+	private BenchDatabase db;
+	private FuncionarioDaoJDBC dao;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase(clientes, funcionarios);
+		// o H2 no aceita o fetch size negativo do streaming do MySQL
+		dao = new FuncionarioDaoJDBC(db.getProvider(), batchSize, null, 1000);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	public List<Funcionario> findAll() {
+		return dao.findAll();
+	}
+
+	@Benchmark
+	public void forEachFuncionario(Blackhole bh) {
+		dao.forEachFuncionario(null, true, bh::consume);
+	}
+
+	@Benchmark
+	public List<Funcionario> findByCliente() {
+		return dao.findByCliente(randomCliente());
+	}
+
+	@Benchmark
+	public Funcionario findById() {
+		return dao.findById(1 + ThreadLocalRandom.current().nextInt(funcionarios));
+	}
+
+	@Benchmark
+	public List<Funcionario> findPageByNome() {
+		String prefix = "Funcionario " + (1 + ThreadLocalRandom.current().nextInt(Math.min(funcionarios, 999)));
+		return dao.findPage(new FuncionarioQuery().nomeComecaCom(prefix), null, 100);
+	}
+
+	@Benchmark
+	public Funcionario insert() {
+		Funcionario obj = newFuncionario();
+		dao.insert(obj);
+		return obj;
+	}
+
+	@Benchmark
+	public BatchResult<Funcionario> insertAll() {
+		List<Funcionario> list = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			list.add(newFuncionario());
+		}
+		return dao.insertAll(list);
+	}
+
+	private Cliente randomCliente() {
+		return new Cliente(1 + ThreadLocalRandom.current().nextInt(clientes), null, null);
+	}
+
+	private Funcionario newFuncionario() {
+		return new Funcionario(null, "Novo funcionario", "novo@empresa.com", new Date(), 2500.0, randomCliente());
+	}
+
+}
@@ -0,0 +1,78 @@
+package model.dao.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import db.QueryMetrics;
+import model.dao.ClienteDao;
+import model.entities.Cliente;
+
+/**
+ * Custo da medio do {@link QueryMetrics}: {@code plain} desliga a medio e
+ * usa os DAOs sem proxy; {@code instrumented}  a configurao padro. O
+ * {@code cachedFindById} acerta o cache de clientes e mostra o custo da
+ * medio sozinho; o {@code findById} vai ao banco.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class InstrumentedDaoBenchmark {
+
+	@Param({ "plain", "instrumented" })
+	public String variant;
+
+	private BenchDatabase db;
+	private ClienteDao dao;
+	private ClienteDao cachedDao;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase(1000, 0);
+		boolean instrumented = variant.equals("instrumented");
+		QueryMetrics metrics = QueryMetrics.getDefault();
+		metrics.setEnabled(instrumented);
+		ClienteDao jdbc = new ClienteDaoJDBC(db.getProvider());
+		ClienteDao cached = new CachingClienteDao(jdbc, new ClienteCache(2000, 600000), 600000);
+		dao = instrumented ? InstrumentedDao.wrap(ClienteDao.class, jdbc, metrics) : jdbc;
+		cachedDao = instrumented ? InstrumentedDao.wrap(ClienteDao.class, cached, metrics) : cached;
+		for (int id = 1; id <= db.getClientes(); id++) {
+			cachedDao.findById(id);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		QueryMetrics.getDefault().setEnabled(true);
+		db.close();
+	}
+
+	@Benchmark
+	public Cliente findById() {
+		next = next % db.getClientes() + 1;
+		return dao.findById(next);
+	}
+
+	@Benchmark
+	public Cliente cachedFindById() {
+		next = next % db.getClientes() + 1;
+		return cachedDao.findById(next);
+	}
+
+}
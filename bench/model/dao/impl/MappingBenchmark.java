@@ -0,0 +1,99 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.entities.Cliente;
+
+/**
+ * Custo s do mapeamento ResultSet -> entidade. As linhas so lidas uma vez
+ * para um {@link CachedRowSet} em memria, ento o I/O do banco fica fora da
+ * medida. Cada operao mapeia todas as {@code funcionarios} linhas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+	@Param({ "1000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	private BenchDatabase db;
+	private CachedRowSet rows;
+	private FuncionarioDaoJDBC dao;
+	private FuncionarioDaoJDBC cachingDao;
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		db = new BenchDatabase(clientes, funcionarios);
+		dao = new FuncionarioDaoJDBC(db.getProvider());
+		cachingDao = new FuncionarioDaoJDBC(db.getProvider(), 500, new ClienteCache(1000, 0));
+		try (Connection conn = db.getProvider().getConnection(); Statement st = conn.createStatement()) {
+			// o CachedRowSet procura as colunas pelo nome e no pelo rtulo, por isso
+			// os aliases ficam dentro de uma tabela derivada
+			ResultSet rs = st.executeQuery("SELECT * FROM (SELECT funcionario.*,cliente.Empresa as EmpNome, "
+					+ "cliente.Projeto as EmpProj, cliente.Version as EmpVersion FROM funcionario INNER JOIN cliente "
+					+ "ON funcionario.ClienteId = cliente.Id) rows");
+			rows = RowSetProvider.newFactory().createCachedRowSet();
+			rows.populate(rs);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	public void instantiateFuncionario(Blackhole bh) throws SQLException {
+		Cliente cli = new Cliente(1, "Empresa", "Projeto");
+		rows.beforeFirst();
+		while (rows.next()) {
+			bh.consume(dao.instantiateFuncionario(rows, cli));
+		}
+	}
+
+	@Benchmark
+	public void instantiateCliente(Blackhole bh) throws SQLException {
+		rows.beforeFirst();
+		while (rows.next()) {
+			bh.consume(dao.instantiateCliente(rows));
+		}
+	}
+
+	@Benchmark
+	public void instantiateClienteCanonical(Blackhole bh) throws SQLException {
+		rows.beforeFirst();
+		while (rows.next()) {
+			bh.consume(cachingDao.instantiateCliente(rows));
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package model.dao.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.entities.Funcionario;
+import model.entities.PayrollTotals;
+
+/**
+ * Folha por cliente somada no banco ({@code payrollByCliente}) e somada em
+ * memria a partir do {@code findAll}, como era feito antes do
+ * {@link ReportDaoJDBC}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ReportDaoBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	private BenchDatabase db;
+	private ReportDaoJDBC reportDao;
+	private FuncionarioDaoJDBC funcionarioDao;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase(clientes, funcionarios);
+		reportDao = new ReportDaoJDBC(db.getProvider());
+		funcionarioDao = new FuncionarioDaoJDBC(db.getProvider(), 100, null, 1000);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	public List<PayrollTotals> payrollByCliente() {
+		return reportDao.payrollByCliente();
+	}
+
+	@Benchmark
+	public Map<Integer, Double> findAllAndSum() {
+		Map<Integer, Double> totals = new HashMap<>();
+		for (Funcionario obj : funcionarioDao.findAll()) {
+			totals.merge(obj.getCliente().getId(), obj.getSalario(), Double::sum);
+		}
+		return totals;
+	}
+
+}
@@ -0,0 +1,123 @@
+package model.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * {@link FuncionarioSnapshot} contra {@code List<Funcionario>} com as mesmas
+ * linhas, geradas em memria como no {@code BenchDatabase} (datas como
+ * {@code java.sql.Date} e um {@link Cliente} por cliente, como devolvem os
+ * DAOs). O setup imprime a memria de cada um medida pelo JOL e falha se o
+ * snapshot no ocupar no mximo um quarto da lista; os benchmarks medem a
+ * soma dos salrios por cliente e a montagem de linhas para a tabela.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djdk.attach.allowAttachSelf=true" })
+@State(Scope.Benchmark)
+public class FuncionarioSnapshotBenchmark {
+
+	@Param({ "1000000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	private List<Funcionario> list;
+	private FuncionarioSnapshot snapshot;
+	private int[] rows;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		list = generate(clientes, funcionarios);
+		FuncionarioSnapshot.Builder builder = FuncionarioSnapshot.builder();
+		list.forEach(builder::add);
+		snapshot = builder.build();
+
+		long listBytes = GraphLayout.parseInstance(list).totalSize();
+		long snapshotBytes = GraphLayout.parseInstance(snapshot).totalSize();
+		System.out.printf("%nList<Funcionario>: %,d bytes (%.1f por linha)%n", listBytes,
+				(double) listBytes / funcionarios);
+		System.out.printf("FuncionarioSnapshot: %,d bytes (%.1f por linha), %.2fx menor%n", snapshotBytes,
+				(double) snapshotBytes / funcionarios, (double) listBytes / snapshotBytes);
+		if (snapshotBytes * 4 > listBytes) {
+			throw new IllegalStateException("O snapshot ocupa mais de um quarto da lista");
+		}
+
+		Random random = new Random(7);
+		rows = new int[1024];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = random.nextInt(funcionarios);
+		}
+	}
+
+	public static List<Funcionario> generate(int clientes, int funcionarios) {
+		Random random = new Random(42);
+		List<Cliente> clienteList = new ArrayList<>();
+		for (int i = 1; i <= clientes; i++) {
+			Cliente cli = new Cliente(i, "Empresa " + (i % Math.max(1, clientes / 2)), "Projeto " + i);
+			cli.setVersion(0);
+			clienteList.add(cli);
+		}
+		long day = 24L * 60 * 60 * 1000;
+		long start = java.sql.Date.valueOf("2015-01-01").getTime();
+		List<Funcionario> list = new ArrayList<>(funcionarios);
+		for (int i = 1; i <= funcionarios; i++) {
+			Funcionario obj = new Funcionario(i, "Funcionario " + i, "funcionario" + i + "@empresa.com",
+					new java.sql.Date(start + random.nextInt(3650) * day), 1500 + random.nextInt(1850000) / 100.0,
+					clienteList.get(random.nextInt(clientes)));
+			obj.setVersion(0);
+			list.add(obj);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public double[] sumByClienteList() {
+		double[] totals = new double[clientes + 1];
+		for (Funcionario obj : list) {
+			totals[obj.getCliente().getId()] += obj.getSalario();
+		}
+		return totals;
+	}
+
+	@Benchmark
+	public double[] sumByClienteSnapshot() {
+		double[] totals = new double[snapshot.getClientes().size()];
+		for (int i = 0, n = snapshot.size(); i < n; i++) {
+			totals[snapshot.getClienteIndex(i)] += snapshot.getSalario(i);
+		}
+		return totals;
+	}
+
+	/**
+	 * Linhas montadas como a {@code TableView} pede ao rolar.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void materializeRow(Blackhole bh) {
+		for (int row : rows) {
+			bh.consume(snapshot.get(row));
+		}
+	}
+
+}
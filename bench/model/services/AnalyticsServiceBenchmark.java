@@ -0,0 +1,71 @@
+package model.services;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.entities.FuncionarioSnapshot;
+import model.entities.FuncionarioSnapshotBenchmark;
+
+/**
+ * {@link AnalyticsService#analyze} sobre um snapshot de 1 milho de linhas
+ * geradas em memria, com pools de 1 a 8 threads, para medir a escala com os
+ * ncleos; acima do nmero de ncleos da mquina no h ganho. O setup
+ * imprime os ncleos disponveis. Ainda no h resultados numa mquina com
+ * mais de um ncleo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AnalyticsServiceBenchmark {
+
+	@Param({ "1000000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	private FuncionarioSnapshot snapshot;
+	private ForkJoinPool pool;
+	private AnalyticsService service;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		FuncionarioSnapshot.Builder builder = FuncionarioSnapshot.builder();
+		FuncionarioSnapshotBenchmark.generate(clientes, funcionarios).forEach(builder::add);
+		snapshot = builder.build();
+		pool = new ForkJoinPool(threads);
+		service = new AnalyticsService(pool);
+		System.out.printf("%nNcleos disponveis: %d%n", Runtime.getRuntime().availableProcessors());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public AnalyticsReport analyze() {
+		return service.analyze(snapshot);
+	}
+
+}
@@ -0,0 +1,108 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.dao.FuncionarioQuery;
+import model.entities.Funcionario;
+import model.entities.FuncionarioSnapshot;
+import model.entities.FuncionarioSnapshotBenchmark;
+import model.services.FuncionarioIndex.Column;
+
+/**
+ * {@link FuncionarioIndex} contra o que a tela faria com uma
+ * {@code List<Funcionario>}: ordenar uma cpia com um {@link Comparator} a cada
+ * clique na coluna e filtrar linha a linha com o
+ * {@link FuncionarioQuery#matches}. {@code update} mede uma alterao aplicada
+ * ao ndice, como chega pelo {@link ChangeEvent}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FuncionarioIndexBenchmark {
+
+	private static final Comparator<Funcionario> BY_SALARIO = Comparator.comparing(Funcionario::getSalario)
+			.thenComparing(Funcionario::getId);
+
+	@Param({ "1000000" })
+	public int funcionarios;
+
+	@Param({ "50" })
+	public int clientes;
+
+	private List<Funcionario> list;
+	private FuncionarioIndex index;
+	private FuncionarioQuery prefix;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		list = FuncionarioSnapshotBenchmark.generate(clientes, funcionarios);
+		FuncionarioSnapshot.Builder builder = FuncionarioSnapshot.builder();
+		list.forEach(builder::add);
+		index = new FuncionarioIndex(builder.build());
+		// "Funcionario 1234" e os que continuam com mais dgitos: 111 linhas com 1 milho
+		prefix = new FuncionarioQuery().nomeComecaCom("funcionario 1234");
+	}
+
+	@Benchmark
+	public List<Funcionario> sortBySalarioList() {
+		List<Funcionario> sorted = new ArrayList<>(list);
+		sorted.sort(BY_SALARIO);
+		return sorted;
+	}
+
+	@Benchmark
+	public int[] sortBySalarioIndex() {
+		return index.select(null, Column.SALARIO, true);
+	}
+
+	@Benchmark
+	public List<Funcionario> nomePrefixList() {
+		List<Funcionario> result = new ArrayList<>();
+		for (Funcionario obj : list) {
+			if (prefix.matches(obj)) {
+				result.add(obj);
+			}
+		}
+		result.sort(BY_SALARIO);
+		return result;
+	}
+
+	@Benchmark
+	public int[] nomePrefixIndex() {
+		return index.select(prefix, Column.SALARIO, true);
+	}
+
+	@Benchmark
+	public List<Funcionario> findByClienteIndex() {
+		return index.findByCliente(1 + next++ % clientes);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void update() {
+		Funcionario obj = list.get(next++ % funcionarios);
+		obj.setSalario(obj.getSalario() + 1);
+		index.put(obj);
+	}
+
+}
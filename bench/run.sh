@@ -0,0 +1,20 @@
+#!/bin/sh
+# Compila src + bench e roda os benchmarks JMH.
+#
+# Uso: bench/run.sh [argumentos do JMH]
+#   bench/run.sh                                   todos os benchmarks
+#   bench/run.sh FuncionarioDao -p funcionarios=1000000
+#   bench/run.sh -prof gc -rf text -rff bench/results/atual.txt
+#
+# Os jars (jmh-core, jmh-generator-annprocess, jopt-simple, commons-math3,
+# jol-core, h2, mysql-connector-java e javafx-*) são lidos de $LIB_DIR (padrão: lib).
+set -e
+cd "$(dirname "$0")/.."
+LIB_DIR=${LIB_DIR:-lib}
+CP=$(ls "$LIB_DIR"/*.jar | tr '\n' ':')
+OUT=bench/target
+rm -rf "$OUT" && mkdir -p "$OUT/classes"
+find src bench -name '*.java' > "$OUT/sources.txt"
+javac -encoding ISO-8859-1 -cp "$CP" -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+	-d "$OUT/classes" @"$OUT/sources.txt"
+java -cp "$OUT/classes:$CP" org.openjdk.jmh.Main "$@"
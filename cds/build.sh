@@ -0,0 +1,50 @@
+#!/bin/sh
+# Gera um arquivo de class-data sharing (AppCDS) da aplicação e a executa com ele.
+#
+# Uso: cds/build.sh [run]
+#   cds/build.sh        compila, empacota, faz o treino e gera cds/target/app.jsa
+#   cds/build.sh run    executa a aplicação usando o arquivo gerado
+#
+# O treino abre a janela, espera o aquecimento (Warmup) terminar e fecha
+# sozinho (-Dstartup.exitAfterWarmup=true); as classes carregadas até ali
+# entram no arquivo. O classpath da execução tem de ser o mesmo do treino, por
+# isso rode sempre pelo "run". Os jars (javafx-* e mysql-connector-java) são
+# lidos de $LIB_DIR (padrão: lib) e o db.properties do diretório atual.
+#
+# Os jars javafx-* vão no --module-path, como na configuração do Eclipse: a
+# partir do JDK 11 o launcher se recusa a iniciar uma Application com o
+# JavaFX no classpath ("JavaFX runtime components are missing"). Sem eles em
+# $LIB_DIR (JDK com JavaFX embutido) nada é acrescentado.
+set -e
+cd "$(dirname "$0")/.."
+LIB_DIR=${LIB_DIR:-lib}
+OUT=cds/target
+JAR=$OUT/projeto.jar
+CP="$JAR:$(ls "$LIB_DIR"/*.jar | grep -v -e jmh -e jopt-simple -e commons-math3 -e javafx- | tr '\n' ':')"
+FX_PATH=$(ls "$LIB_DIR"/javafx-*.jar 2>/dev/null | tr '\n' ':')
+if [ -n "$FX_PATH" ]; then
+	FX="--module-path $FX_PATH --add-modules javafx.controls,javafx.fxml"
+fi
+
+# até o JDK 10 o AppCDS precisa ser ligado explicitamente
+JAVA_MAJOR=$(java -version 2>&1 | sed -n 's/.*version "\([0-9]*\).*/\1/p' | head -1)
+if [ "$JAVA_MAJOR" = "10" ]; then
+	APPCDS=-XX:+UseAppCDS
+fi
+
+if [ "$1" = "run" ]; then
+	exec java $APPCDS -Xshare:auto -XX:SharedArchiveFile=$OUT/app.jsa $FX -cp "$CP" application.Main
+fi
+
+rm -rf "$OUT" && mkdir -p "$OUT/classes"
+find src -name '*.java' > "$OUT/sources.txt"
+javac -encoding ISO-8859-1 $FX -cp "$CP" -d "$OUT/classes" @"$OUT/sources.txt"
+# FXML, CSS e imagens vão junto das classes
+(cd src && find . -type f ! -name '*.java' -exec cp --parents {} "../$OUT/classes" \;)
+jar cfe "$JAR" application.Main -C "$OUT/classes" .
+
+java $APPCDS -Xshare:off -XX:DumpLoadedClassList=$OUT/classes.lst -Dstartup.exitAfterWarmup=true \
+	$FX -cp "$CP" application.Main
+java $APPCDS -Xshare:dump -XX:SharedClassListFile=$OUT/classes.lst -XX:SharedArchiveFile=$OUT/app.jsa \
+	$FX -cp "$CP"
+echo "Arquivo gerado em $OUT/app.jsa ($(wc -l < $OUT/classes.lst) classes)"
@@ -0,0 +1,16 @@
+-- Tabela do feed de alteracoes (ChangeFeed), rodado depois de
+-- sql/schema.sql, tambem em bancos criados antes dela. Cada gravacao inclui
+-- uma linha na mesma transacao; as outras instancias leem as linhas novas
+-- pelo Seq e atualizam as telas abertas.
+CREATE TABLE change_log (
+  Seq BIGINT NOT NULL AUTO_INCREMENT,
+  Entity VARCHAR(20) NOT NULL,
+  Type VARCHAR(12) NOT NULL,
+  EntityId INT NULL,
+  Origin VARCHAR(36) NOT NULL,
+  CreatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (Seq)
+);
+-- Limpeza do feed: ChangeLogDao.deleteOlderThan apaga por CreatedAt; a
+-- leitura incremental ja usa a chave primaria (Seq)
+CREATE INDEX idx_change_log_created ON change_log (CreatedAt);
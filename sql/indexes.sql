@@ -0,0 +1,26 @@
+-- Indices sugeridos para as consultas da aplicacao (MySQL / InnoDB).
+-- Indices secundarios do InnoDB ja carregam a chave primaria, entao
+-- (Empresa) equivale a (Empresa, Id).
+
+-- Paginacao por keyset: ClienteDao.findPage ordena por (Empresa, Id)
+CREATE INDEX idx_cliente_empresa ON cliente (Empresa, Id);
+
+-- Paginacao por keyset: FuncionarioDao.findPage percorre cliente pela
+-- Empresa e entra em funcionario por (ClienteId, Id)
+CREATE INDEX idx_funcionario_cliente ON funcionario (ClienteId, Id);
+
+-- Busca do FuncionarioQuery: um indice por filtro. Prefixo (LIKE 'abc%')
+-- usa o indice por faixa; a ordenacao da pagina e feita sobre as linhas
+-- filtradas. O filtro por cliente ja usa idx_funcionario_cliente.
+CREATE INDEX idx_funcionario_nome ON funcionario (Nome);
+CREATE INDEX idx_funcionario_email ON funcionario (Email);
+CREATE INDEX idx_funcionario_salario ON funcionario (Salario);
+
+-- Relatorios da folha (ReportDao): os totais por cliente e por mes de
+-- inicio leem so o indice, sem ir as linhas. (Inicio, Salario) tambem
+-- atende ao filtro por Inicio da busca.
+CREATE INDEX idx_funcionario_cliente_salario ON funcionario (ClienteId, Salario);
+CREATE INDEX idx_funcionario_inicio ON funcionario (Inicio, Salario);
+
+-- O indice do change_log (CreatedAt, da limpeza do feed) e criado junto
+-- com a tabela, em sql/changelog.sql
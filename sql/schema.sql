@@ -0,0 +1,24 @@
+-- Esquema base do banco "projeto" (MySQL / InnoDB).
+
+CREATE TABLE cliente (
+  Id INT NOT NULL AUTO_INCREMENT,
+  Empresa VARCHAR(40) NOT NULL,
+  Projeto VARCHAR(40) NOT NULL,
+  Version INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Id)
+);
+
+CREATE TABLE funcionario (
+  Id INT NOT NULL AUTO_INCREMENT,
+  Nome VARCHAR(70) NOT NULL,
+  Email VARCHAR(60) NOT NULL,
+  Inicio DATE NOT NULL,
+  Salario DOUBLE NOT NULL,
+  ClienteId INT NOT NULL,
+  Version INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (Id),
+  FOREIGN KEY (ClienteId) REFERENCES cliente (Id)
+);
+
+-- A tabela do feed de alteracoes (change_log) e seu indice ficam em
+-- sql/changelog.sql.
@@ -0,0 +1,5 @@
+-- Coluna de versao do controle de concorrencia otimista, para bancos
+-- criados antes dela. Cada UPDATE dos DAOs incrementa a versao e so grava
+-- se ela ainda for a que foi lida.
+ALTER TABLE cliente ADD COLUMN Version INT NOT NULL DEFAULT 0;
+ALTER TABLE funcionario ADD COLUMN Version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,98 @@
+package application;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import db.DB;
+import db.DbException;
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
+import model.exceptions.ExportCancelledException;
+import model.services.ExportService;
+import model.services.ExportService.Format;
+
+/**
+ * Exportao de funcionrios pela linha de comando, sem abrir a interface.
+ *
+ * <pre>
+ * java application.ExportMain arquivo.csv|arquivo.json [--formato csv|json] [--cliente id]
+ * </pre>
+ *
+ * O formato sai da extenso do arquivo quando no  informado. Ctrl+C cancela
+ * a exportao e apaga o arquivo incompleto.
+ */
+public class ExportMain {
+
+	public static void main(String[] args) {
+		if (args.length == 0 || args.length % 2 == 0) {
+			usage();
+			return;
+		}
+		Path target = Paths.get(args[0]);
+		Format format = Format.fromFileName(args[0]);
+		FuncionarioQuery query = new FuncionarioQuery();
+		try {
+			for (int i = 1; i < args.length; i += 2) {
+				switch (args[i]) {
+				case "--formato":
+					format = Format.valueOf(args[i + 1].toUpperCase());
+					break;
+				case "--cliente":
+					query.doCliente(new Cliente(Integer.parseInt(args[i + 1]), null, null));
+					break;
+				default:
+					usage();
+					return;
+				}
+			}
+		}
+		catch (IllegalArgumentException e) {
+			usage();
+			return;
+		}
+
+		ExportService export = new ExportService();
+		Thread main = Thread.currentThread();
+		Thread cancelHook = new Thread(() -> {
+			export.cancel();
+			try {
+				main.join(10_000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(cancelHook);
+
+		int status = 0;
+		long start = System.nanoTime();
+		try {
+			long rows = export.exportFuncionarios(query, format, target,
+					n -> System.err.println(n + " linhas exportadas"));
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			System.err.println(rows + " linhas gravadas em " + target + " (" + millis + " ms)");
+		}
+		catch (ExportCancelledException e) {
+			System.err.println(e.getMessage());
+		}
+		catch (DbException | UncheckedIOException e) {
+			System.err.println("Erro na exportao: " + e.getMessage());
+			status = 1;
+		}
+		finally {
+			DB.closeConnection();
+			if (!export.isCancelled()) {
+				Runtime.getRuntime().removeShutdownHook(cancelHook);
+			}
+		}
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+
+	private static void usage() {
+		System.err.println("Uso: ExportMain arquivo.csv|arquivo.json [--formato csv|json] [--cliente id]");
+	}
+
+}
@@ -0,0 +1,66 @@
+package application;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+import db.DB;
+import db.DbException;
+import model.exceptions.ValidationException;
+import model.services.ImportReport;
+import model.services.ImportReport.Rejection;
+import model.services.ImportService;
+
+/**
+ * Importao de funcionrios pela linha de comando, sem abrir a interface.
+ *
+ * <pre>
+ * java application.ImportMain arquivo.csv
+ * </pre>
+ *
+ * Mostra o progresso, a vazo e as linhas rejeitadas com o motivo.
+ */
+public class ImportMain {
+
+	private static final long PROGRESS_STEP = 50_000;
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err.println("Uso: ImportMain arquivo.csv");
+			return;
+		}
+		int status = 0;
+		long[] nextProgress = { PROGRESS_STEP };
+		try {
+			ImportReport report = new ImportService().importFuncionarios(Paths.get(args[0]), n -> {
+				if (n >= nextProgress[0]) {
+					System.err.println(n + " linhas processadas");
+					nextProgress[0] = n + PROGRESS_STEP;
+				}
+			});
+			for (Rejection rejection : report.getRejections()) {
+				System.out.println(rejection);
+			}
+			if (report.getRejected() > report.getRejections().size()) {
+				System.out.println("... e mais " + (report.getRejected() - report.getRejections().size())
+						+ " linhas rejeitadas");
+			}
+			System.err.println(report);
+			status = report.getRejected() > 0 ? 2 : 0;
+		}
+		catch (ValidationException e) {
+			System.err.println(e.getMessage() + ": " + e.getErrors());
+			status = 1;
+		}
+		catch (DbException | UncheckedIOException e) {
+			System.err.println("Erro na importao: " + e.getMessage());
+			status = 1;
+		}
+		finally {
+			DB.closeConnection();
+		}
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+
+}
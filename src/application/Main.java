@@ -2,20 +2,36 @@ package application;
 
 import java.io.IOException;
 
+import db.DB;
+import gui.MainViewController;
+import gui.util.ViewRegistry;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
 import javafx.stage.Stage;
+import model.services.ChangeFeed;
+import model.services.ClienteService;
+import model.services.DbExecutor;
+import model.services.FuncionarioService;
 
 public class Main extends Application {
 	
 	private static Scene mainScene;
+
+	private static final ViewRegistry views = new ViewRegistry();
+
+	private static final StartupTimer timer = new StartupTimer();
+
+	private static long launchStart;
 	
 	
 	@Override
 	public void start(Stage primaryStage) {
+		timer.record("fx.toolkit", launchStart);
 		try {
+			long start = timer.now();
 			FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/MainView.fxml"));
 			ScrollPane scrollPane = loader.load();
 			
@@ -26,16 +42,43 @@ public class Main extends Application {
 			primaryStage.setScene(mainScene);
 			primaryStage.setTitle("Controle de Projetos");
 			primaryStage.show();
+			timer.record("main.view", start);
+
+			// o banco e as views aquecem em segundo plano; a janela j est visvel
+			long warmupStart = timer.now();
+			MainViewController controller = loader.getController();
+			Warmup.start(views, timer, controller::watchWriteBehind).whenComplete((x, e) -> {
+				timer.record("warmup", warmupStart);
+				timer.report();
+				// usado pelo cds/build.sh para gerar a lista de classes sem interao
+				if (Boolean.getBoolean("startup.exitAfterWarmup")) {
+					Platform.runLater(Platform::exit);
+				}
+			});
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
+	@Override
+	public void stop() {
+		FuncionarioService.closeWriteBehind(5000);
+		ClienteService.closeWriteBehind(5000);
+		ChangeFeed.stop();
+		DbExecutor.shutdown();
+		DB.closeConnection();
+	}
+	
 	public static Scene getMainScene() {
 		return mainScene;
 	}
 
+	public static ViewRegistry getViews() {
+		return views;
+	}
+
 	public static void main(String[] args) {
+		launchStart = timer.now();
 		launch(args);
 	}
 }
@@ -0,0 +1,96 @@
+package application;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tempos das fases da inicializao, medidos a partir do incio do processo
+ * (ou do {@code main}, se o sistema no informa quando o processo comeou).
+ * As fases podem ser registradas de qualquer thread.
+ * <p>
+ * {@link #report} escreve o resumo no {@code System.err}. Com
+ * {@code -Dstartup.log=arquivo} cada fase tambm  acrescentada ao arquivo,
+ * uma linha {@code data;fase;inicioMs;duracaoMs} por fase, para comparar o
+ * tempo de partida entre verses.
+ */
+public class StartupTimer {
+
+	private static class Phase {
+		final String name;
+		final String thread;
+		final long startNanos;
+		final long endNanos;
+
+		Phase(String name, String thread, long startNanos, long endNanos) {
+			this.name = name;
+			this.thread = thread;
+			this.startNanos = startNanos;
+			this.endNanos = endNanos;
+		}
+	}
+
+	private final long originNanos;
+	private final List<Phase> phases = new ArrayList<>();
+
+	public StartupTimer() {
+		long now = System.nanoTime();
+		Optional<Instant> processStart = ProcessHandle.current().info().startInstant();
+		long sinceProcessStart = processStart.map(start -> Instant.now().toEpochMilli() - start.toEpochMilli())
+				.orElse(0L);
+		originNanos = now - sinceProcessStart * 1_000_000;
+		phases.add(new Phase("jvm", "", originNanos, now));
+	}
+
+	public long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Registra a fase que comeou em {@code startNanos} (de {@link #now()}) e
+	 * termina agora.
+	 */
+	public synchronized void record(String name, long startNanos) {
+		phases.add(new Phase(name, Thread.currentThread().getName(), startNanos, System.nanoTime()));
+	}
+
+	public synchronized void report() {
+		PrintStream out = System.err;
+		out.println("Inicializao (ms desde o incio do processo):");
+		for (Phase phase : phases) {
+			out.println(String.format("  %-16s %6d +%6d  %s", phase.name, millis(phase.startNanos),
+					(phase.endNanos - phase.startNanos) / 1_000_000, phase.thread));
+		}
+		String log = System.getProperty("startup.log");
+		if (log != null) {
+			append(log);
+		}
+	}
+
+	private void append(String file) {
+		String date = Instant.now().toString();
+		try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (Phase phase : phases) {
+				writer.write(date + ";" + phase.name + ";" + millis(phase.startNanos) + ";"
+						+ (phase.endNanos - phase.startNanos) / 1_000_000 + "\n");
+			}
+		}
+		catch (IOException e) {
+			System.err.println("No foi possvel gravar " + file + ": " + e.getMessage());
+		}
+	}
+
+	private long millis(long nanos) {
+		return (nanos - originNanos) / 1_000_000;
+	}
+
+}
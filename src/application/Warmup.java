@@ -0,0 +1,106 @@
+package application;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import db.PooledConnectionProvider;
+import db.QueryMetrics;
+import gui.util.ViewRegistry;
+import model.dao.DaoFactory;
+import model.services.DbExecutor;
+
+/**
+ * Aquecimento feito em segundo plano logo depois que a janela principal
+ * aparece, para que o primeiro clique no pague a leitura do db.properties, a
+ * carga do driver JDBC, a abertura das primeiras conexes e a leitura dos
+ * FXML. O banco e as views so aquecidos em paralelo, cada um na sua thread.
+ * Depois do pool, {@code databaseReady} roda na thread do banco;  onde a
+ * janela liga o que depende do db.properties, como o menu do write-behind.
+ * <p>
+ * Falhas no interrompem nada: a fase  registrada como falha e o erro
+ * aparece normalmente no primeiro uso.
+ */
+public class Warmup {
+
+	private static final String[] VIEWS = { "/gui/FuncionarioList.fxml", "/gui/ClienteList.fxml",
+			"/gui/FuncionarioForm.fxml", "/gui/ClienteForm.fxml" };
+
+	public static CompletableFuture<Void> start(ViewRegistry views, StartupTimer timer, Runnable databaseReady) {
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "startup-warmup");
+			t.setDaemon(true);
+			return t;
+		});
+		CompletableFuture<Void> database = CompletableFuture.runAsync(() -> warmDatabase(timer, databaseReady),
+				executor);
+		executor.shutdown();
+
+		long start = timer.now();
+		CompletableFuture<Void> fxml = views.prewarm(VIEWS).whenComplete((x, e) -> timer.record(
+				e == null ? "views" : "views (falhou)", start));
+
+		return CompletableFuture.allOf(database, fxml.exceptionally(e -> null));
+	}
+
+	private static void warmDatabase(StartupTimer timer, Runnable databaseReady) {
+		long start = timer.now();
+		String url;
+		try {
+			url = DB.getProperties().getProperty("dburl");
+			timer.record("db.properties", start);
+		}
+		catch (DbException e) {
+			timer.record("db.properties (falhou)", start);
+			return;
+		}
+
+		start = timer.now();
+		try {
+			// carrega a classe do driver e o DriverManager, que varre os drivers do classpath
+			DriverManager.getDriver(url);
+			timer.record("jdbc.driver", start);
+		}
+		catch (SQLException e) {
+			timer.record("jdbc.driver (falhou)", start);
+		}
+
+		start = timer.now();
+		try {
+			ConnectionProvider provider = DB.getConnectionProvider().getDelegate();
+			DaoFactory.getClienteCache();
+			DbExecutor.get();
+			if (provider instanceof PooledConnectionProvider) {
+				((PooledConnectionProvider) provider).fill();
+			}
+			timer.record("db.pool", start);
+		}
+		catch (DbException e) {
+			timer.record("db.pool (falhou)", start);
+		}
+
+		start = timer.now();
+		try {
+			databaseReady.run();
+			timer.record("writebehind", start);
+		}
+		catch (DbException e) {
+			timer.record("writebehind (falhou)", start);
+		}
+
+		start = timer.now();
+		try {
+			QueryMetrics.getDefault().registerMBean();
+			timer.record("jmx", start);
+		}
+		catch (DbException e) {
+			timer.record("jmx (falhou)", start);
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package db;
+
+import java.sql.Connection;
+
+/**
+ * Fonte de conexes usada pelos DAOs. Cada operao pede uma conexo e a
+ * devolve com {@link DB#closeConnection(Connection)} ao terminar.
+ */
+public interface ConnectionProvider {
+
+	Connection getConnection();
+
+	void shutdown();
+
+}
@@ -3,7 +3,6 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -11,32 +10,90 @@ import java.util.Properties;
 
 public class DB {
 
-	private static Connection conn = null;
-	
-	public static Connection getConnection() {
-		if (conn == null) {
-			try {
-				Properties props = loadProperties();
-				String url = props.getProperty("dburl");
-				conn = DriverManager.getConnection(url, props);
-			}
-			catch (SQLException e) {
-				throw new DbException(e.getMessage());
-			}
+	private static Properties props = null;
+
+	private static TransactionalConnectionProvider provider = null;
+
+	/**
+	 * O provider da aplicao, j decorado para participar da
+	 * {@link UnitOfWork} da thread.
+	 */
+	public static synchronized TransactionalConnectionProvider getConnectionProvider() {
+		if (provider == null) {
+			provider = new TransactionalConnectionProvider(new PooledConnectionProvider(getProperties()));
+		}
+		return provider;
+	}
+
+	public static synchronized void setConnectionProvider(ConnectionProvider newProvider) {
+		if (provider != null && provider != newProvider && provider.getDelegate() != newProvider) {
+			provider.shutdown();
 		}
-		return conn;
+		if (newProvider == null || newProvider instanceof TransactionalConnectionProvider) {
+			provider = (TransactionalConnectionProvider) newProvider;
+		}
+		else {
+			provider = new TransactionalConnectionProvider(newProvider);
+		}
+	}
+
+	/**
+	 * Os contadores do pool em uso, ou {@code null} se o pool ainda no foi
+	 * criado ou o provider no  um {@link PooledConnectionProvider}.
+	 */
+	public static synchronized PoolMetrics getPoolMetrics() {
+		if (provider != null && provider.getDelegate() instanceof PooledConnectionProvider) {
+			return ((PooledConnectionProvider) provider.getDelegate()).getMetrics();
+		}
+		return null;
+	}
+
+	public static Connection getConnection() {
+		return getConnectionProvider().getConnection();
 	}
-	
-	public static void closeConnection() {
+
+	public static void closeConnection(Connection conn) {
 		if (conn != null) {
 			try {
 				conn.close();
 			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+				throw new DbException(e.getMessage(), e);
 			}
 		}
 	}
-	
+
+	public static synchronized void closeConnection() {
+		if (provider != null) {
+			provider.shutdown();
+			provider = null;
+		}
+	}
+
+	public static synchronized Properties getProperties() {
+		if (props == null) {
+			props = loadProperties();
+			QueryMetrics.getDefault().configure(props);
+		}
+		return props;
+	}
+
+	public static int getIntProperty(String key, int defaultValue) {
+		return intProperty(getProperties(), key, defaultValue);
+	}
+
+	static int intProperty(Properties props, String key, int defaultValue) {
+		String value = props.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new DbException("Valor invlido para " + key + ": " + value);
+		}
+	}
+
 	private static Properties loadProperties() {
 		try (FileInputStream fs = new FileInputStream("db.properties")) {
 			Properties props = new Properties();
@@ -44,16 +101,16 @@ public class DB {
 			return props;
 		}
 		catch (IOException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 	}
-	
+
 	public static void closeStatement(Statement st) {
 		if (st != null) {
 			try {
 				st.close();
 			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+				throw new DbException(e.getMessage(), e);
 			}
 		}
 	}
@@ -63,7 +120,7 @@ public class DB {
 			try {
 				rs.close();
 			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+				throw new DbException(e.getMessage(), e);
 			}
 		}
 	}
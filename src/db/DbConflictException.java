@@ -0,0 +1,33 @@
+package db;
+
+/**
+ * A linha foi alterada ou removida por outro usurio depois de lida: a verso
+ * no banco no  mais a da entidade que se tentou gravar.
+ */
+public class DbConflictException extends DbException {
+	private static final long serialVersionUID = 1L;
+
+	private final Integer id;
+	private final Integer currentVersion;
+
+	public DbConflictException(String msg, Integer id, Integer currentVersion) {
+		super(msg);
+		this.id = id;
+		this.currentVersion = currentVersion;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * A verso que est no banco, ou {@code null} se a linha foi removida.
+	 */
+	public Integer getCurrentVersion() {
+		return currentVersion;
+	}
+
+	public boolean isDeleted() {
+		return currentVersion == null;
+	}
+}
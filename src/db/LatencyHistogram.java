@@ -0,0 +1,115 @@
+package db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de tempos em nanossegundos com faixas logartmicas: cada
+ * potncia de dois  dividida em oito faixas, ento os percentis tm erro
+ * relativo de no mximo 12,5%. Registrar um valor  um incremento atmico, sem
+ * alocao nem bloqueio, e o histograma inteiro ocupa uns 4 KB.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(indexOf(nanos));
+		totalNanos.add(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * Soma as faixas; a leitura  rara e assim o registro faz um incremento a
+	 * menos.
+	 */
+	public long getCount() {
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			n += buckets.get(i);
+		}
+		return n;
+	}
+
+	public double getMeanMillis() {
+		long n = getCount();
+		return n == 0 ? 0.0 : totalNanos.sum() / (n * 1_000_000.0);
+	}
+
+	public double getTotalMillis() {
+		return totalNanos.sum() / 1_000_000.0;
+	}
+
+	public double getMaxMillis() {
+		return maxNanos.get() / 1_000_000.0;
+	}
+
+	/**
+	 * O limite superior da faixa que contm o percentil {@code p} (entre 0 e
+	 * 1), nunca acima do maior valor registrado.
+	 */
+	public double getPercentileMillis(double p) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0.0;
+		}
+		long target = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, p)) * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return Math.min(upperBound(i), maxNanos.get()) / 1_000_000.0;
+			}
+		}
+		return getMaxMillis();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+		return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	static long lowerBound(int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		int exp = index / SUB_COUNT + SUB_BITS - 1;
+		int sub = index % SUB_COUNT;
+		return (long) (SUB_COUNT + sub) << (exp - SUB_BITS);
+	}
+
+	static long upperBound(int index) {
+		return index + 1 >= BUCKETS ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+	}
+
+}
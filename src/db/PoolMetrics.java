@@ -0,0 +1,131 @@
+package db;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores do {@link PooledConnectionProvider}. Todos podem ser lidos de
+ * qualquer thread sem bloquear o pool.
+ */
+public class PoolMetrics {
+
+	final AtomicInteger active = new AtomicInteger();
+	final AtomicInteger idle = new AtomicInteger();
+	final AtomicInteger total = new AtomicInteger();
+
+	final LongAdder borrows = new LongAdder();
+	final LongAdder waitNanos = new LongAdder();
+	final AtomicLong maxWaitNanos = new AtomicLong();
+	final LatencyHistogram waitTimes = new LatencyHistogram();
+	final LongAdder timeouts = new LongAdder();
+	final LongAdder created = new LongAdder();
+	final LongAdder destroyed = new LongAdder();
+	final LongAdder validationFailures = new LongAdder();
+
+	final LongAdder statementHits = new LongAdder();
+	final LongAdder statementMisses = new LongAdder();
+	final LongAdder statementEvictions = new LongAdder();
+
+	final LongAdder commits = new LongAdder();
+	final LongAdder autoCommits = new LongAdder();
+
+	void recordWait(long nanos) {
+		borrows.increment();
+		waitNanos.add(nanos);
+		waitTimes.record(nanos);
+		long max = maxWaitNanos.get();
+		while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+			max = maxWaitNanos.get();
+		}
+	}
+
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	public int getIdleCount() {
+		return idle.get();
+	}
+
+	public int getTotalCount() {
+		return total.get();
+	}
+
+	public long getBorrowCount() {
+		return borrows.sum();
+	}
+
+	public double getAverageWaitMillis() {
+		long count = borrows.sum();
+		return count == 0 ? 0.0 : waitNanos.sum() / (count * 1_000_000.0);
+	}
+
+	public double getMaxWaitMillis() {
+		return maxWaitNanos.get() / 1_000_000.0;
+	}
+
+	/**
+	 * Espera por uma conexo no percentil {@code p} (entre 0 e 1).
+	 */
+	public double getWaitPercentileMillis(double p) {
+		return waitTimes.getPercentileMillis(p);
+	}
+
+	public long getTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	public long getCreatedCount() {
+		return created.sum();
+	}
+
+	public long getDestroyedCount() {
+		return destroyed.sum();
+	}
+
+	public long getValidationFailureCount() {
+		return validationFailures.sum();
+	}
+
+	public long getStatementCacheHits() {
+		return statementHits.sum();
+	}
+
+	public long getStatementCacheMisses() {
+		return statementMisses.sum();
+	}
+
+	public long getStatementCacheEvictions() {
+		return statementEvictions.sum();
+	}
+
+	public double getStatementCacheHitRate() {
+		long hits = statementHits.sum();
+		long total = hits + statementMisses.sum();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	/**
+	 * Transaes confirmadas no banco: os {@code commit()} explcitos mais as
+	 * escritas feitas em auto-commit pelos statements do cache.
+	 */
+	public long getCommitCount() {
+		return commits.sum() + autoCommits.sum();
+	}
+
+	public long getAutoCommitCount() {
+		return autoCommits.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "PoolMetrics [active=" + getActiveCount() + ", idle=" + getIdleCount() + ", total=" + getTotalCount()
+				+ ", borrows=" + getBorrowCount() + ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis())
+				+ ", maxWaitMs=" + String.format("%.3f", getMaxWaitMillis()) + ", timeouts=" + getTimeoutCount()
+				+ ", created=" + getCreatedCount() + ", destroyed=" + getDestroyedCount() + ", stmtHits="
+				+ getStatementCacheHits() + ", stmtMisses=" + getStatementCacheMisses() + ", stmtEvictions="
+				+ getStatementCacheEvictions() + ", commits=" + getCommitCount() + "]";
+	}
+
+}
@@ -0,0 +1,153 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Conexo fsica mantida pelo {@link PooledConnectionProvider}. Cada
+ * emprstimo entrega um proxy novo; o {@code close()} do proxy devolve a
+ * conexo ao pool em vez de fech-la. Os {@code prepareStatement(sql)} e
+ * {@code prepareStatement(sql, autoGeneratedKeys)} passam pelo
+ * {@link StatementCache} da conexo; os demais {@code prepareStatement} s
+ * ganham a medio de tempo do {@link QueryMetrics}.
+ */
+class PooledConnection {
+
+	final Connection physical;
+	final long createdAt;
+	volatile long lastUsed;
+	volatile boolean broken;
+
+	private final StatementCache statements;
+	private final PoolMetrics metrics;
+
+	PooledConnection(Connection physical, int statementCacheSize, PoolMetrics metrics, QueryMetrics queryMetrics) {
+		this.physical = physical;
+		this.metrics = metrics;
+		this.statements = new StatementCache(statementCacheSize, metrics, queryMetrics);
+		this.createdAt = System.currentTimeMillis();
+		this.lastUsed = createdAt;
+	}
+
+	boolean isExpired(long now, long maxLifetimeMs) {
+		return maxLifetimeMs > 0 && now - createdAt >= maxLifetimeMs;
+	}
+
+	Connection lease(PooledConnectionProvider pool) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				new Lease(pool));
+	}
+
+	boolean reset() {
+		if (broken) {
+			return false;
+		}
+		try {
+			if (physical.isClosed()) {
+				return false;
+			}
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			physical.clearWarnings();
+			return true;
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	void closePhysical() {
+		statements.closeAll();
+		try {
+			physical.close();
+		}
+		catch (SQLException e) {
+			// a conexo est sendo descartada de qualquer forma
+		}
+	}
+
+	private class Lease implements InvocationHandler {
+
+		private final PooledConnectionProvider pool;
+		private volatile boolean closed;
+
+		Lease(PooledConnectionProvider pool) {
+			this.pool = pool;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					statements.releaseAll();
+					pool.release(PooledConnection.this);
+				}
+				return null;
+			case "isClosed":
+				return closed || physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection [" + physical + "]";
+			default:
+				break;
+			}
+			if (closed) {
+				throw new SQLException("A conexo j foi devolvida ao pool");
+			}
+			try {
+				if (method.getName().equals("commit")) {
+					metrics.commits.increment();
+				}
+				if (isCacheablePrepare(method, args)) {
+					int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+					return statements.prepare((Connection) proxy, physical, (String) args[0], keys);
+				}
+				Object result = method.invoke(physical, args);
+				if (method.getName().equals("prepareStatement")) {
+					return statements.timed((Connection) proxy, (PreparedStatement) result, (String) args[0]);
+				}
+				return result;
+			}
+			catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+					broken = true;
+				}
+				throw cause;
+			}
+			catch (SQLException e) {
+				if (isConnectionError(e)) {
+					broken = true;
+				}
+				throw e;
+			}
+		}
+	}
+
+	private static boolean isCacheablePrepare(Method method, Object[] args) {
+		if (!method.getName().equals("prepareStatement")) {
+			return false;
+		}
+		Class<?>[] types = method.getParameterTypes();
+		return types.length == 1 || (types.length == 2 && types[1] == int.class);
+	}
+
+	static boolean isConnectionError(SQLException e) {
+		String state = e.getSQLState();
+		return state != null && state.startsWith("08");
+	}
+
+}
@@ -0,0 +1,249 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool limitado de conexes JDBC. O limite  controlado por um
+ * {@link Semaphore} e as conexes livres ficam numa fila sem lock, de modo
+ * que o caminho comum (h conexo livre) no bloqueia nenhuma thread.
+ * <p>
+ * Configurao lida do db.properties:
+ * <ul>
+ * <li>pool.maxSize - mximo de conexes fsicas (10)</li>
+ * <li>pool.minIdle - conexes livres mantidas abertas (2)</li>
+ * <li>pool.connectionTimeoutMs - espera mxima por uma conexo (30000)</li>
+ * <li>pool.idleTimeoutMs - tempo livre antes de fechar uma conexo (600000)</li>
+ * <li>pool.maxLifetimeMs - idade mxima de uma conexo (1800000)</li>
+ * <li>pool.validationTimeoutSeconds - timeout do isValid (5)</li>
+ * <li>pool.validationIntervalMs - conexes usadas h menos tempo que isso no so revalidadas (500)</li>
+ * <li>pool.housekeepingMs - intervalo da limpeza em segundo plano (30000)</li>
+ * <li>statement.cacheSize - PreparedStatements mantidos por conexo, 0 desliga (50)</li>
+ * </ul>
+ * Apenas as propriedades sem ponto no nome (user, password, useSSL...) so
+ * repassadas ao driver.
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+
+	private final String url;
+	private final Properties driverProps = new Properties();
+
+	private final int maxSize;
+	private final int minIdle;
+	private final long connectionTimeoutMs;
+	private final long idleTimeoutMs;
+	private final long maxLifetimeMs;
+	private final int validationTimeoutSeconds;
+	private final long validationIntervalMs;
+	private final int statementCacheSize;
+
+	private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+	private final Semaphore permits;
+	private final PoolMetrics metrics = new PoolMetrics();
+	private final ScheduledExecutorService housekeeper;
+
+	private volatile boolean shutdown;
+
+	public PooledConnectionProvider(Properties props) {
+		url = props.getProperty("dburl");
+		if (url == null) {
+			throw new DbException("Propriedade dburl no encontrada");
+		}
+		for (String key : props.stringPropertyNames()) {
+			if (key.indexOf('.') < 0 && !key.equals("dburl")) {
+				driverProps.setProperty(key, props.getProperty(key));
+			}
+		}
+
+		maxSize = DB.intProperty(props, "pool.maxSize", 10);
+		minIdle = Math.min(DB.intProperty(props, "pool.minIdle", 2), maxSize);
+		connectionTimeoutMs = DB.intProperty(props, "pool.connectionTimeoutMs", 30000);
+		idleTimeoutMs = DB.intProperty(props, "pool.idleTimeoutMs", 600000);
+		maxLifetimeMs = DB.intProperty(props, "pool.maxLifetimeMs", 1800000);
+		validationTimeoutSeconds = DB.intProperty(props, "pool.validationTimeoutSeconds", 5);
+		validationIntervalMs = DB.intProperty(props, "pool.validationIntervalMs", 500);
+		long housekeepingMs = DB.intProperty(props, "pool.housekeepingMs", 30000);
+		statementCacheSize = DB.intProperty(props, "statement.cacheSize", 50);
+
+		permits = new Semaphore(maxSize);
+
+		housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "db-pool-housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		housekeeper.scheduleWithFixedDelay(this::houseKeep, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Connection getConnection() {
+		if (shutdown) {
+			throw new DbException("O pool de conexes foi encerrado");
+		}
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+				metrics.timeouts.increment();
+				throw new DbException("Tempo esgotado aguardando uma conexo (" + connectionTimeoutMs + " ms)");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrompido aguardando uma conexo");
+		}
+		metrics.recordWait(System.nanoTime() - start);
+
+		try {
+			PooledConnection pc = takeIdle();
+			if (pc == null) {
+				pc = create();
+			}
+			metrics.active.incrementAndGet();
+			return pc.lease(this);
+		}
+		catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public PoolMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Abre conexes at o mnimo de livres configurado, sem passar de
+	 * pool.maxSize conexes fsicas: as livres no seguram permisso do
+	 * semforo, ento o limite  conferido pelo total de conexes abertas.
+	 * Usado no aquecimento da aplicao e pela limpeza peridica.
+	 * <p>
+	 * A permisso fica presa enquanto a conexo  aberta; com ela, quem pede
+	 * uma conexo nesse meio tempo s abre outra se houver permisso e nenhuma
+	 * livre, e o total no passa do mximo.
+	 */
+	public synchronized void fill() {
+		while (!shutdown && metrics.idle.get() < minIdle && permits.tryAcquire()) {
+			try {
+				if (metrics.total.get() >= maxSize) {
+					return;
+				}
+				PooledConnection pc = create();
+				idle.offerLast(pc);
+				metrics.idle.incrementAndGet();
+			}
+			catch (DbException e) {
+				return;
+			}
+			finally {
+				permits.release();
+			}
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		housekeeper.shutdownNow();
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			metrics.idle.decrementAndGet();
+			destroy(pc);
+		}
+	}
+
+	void release(PooledConnection pc) {
+		metrics.active.decrementAndGet();
+		try {
+			long now = System.currentTimeMillis();
+			if (shutdown || pc.isExpired(now, maxLifetimeMs) || !pc.reset()) {
+				destroy(pc);
+				return;
+			}
+			pc.lastUsed = now;
+			idle.offerFirst(pc);
+			metrics.idle.incrementAndGet();
+			if (shutdown && idle.removeFirstOccurrence(pc)) {
+				metrics.idle.decrementAndGet();
+				destroy(pc);
+			}
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+	private PooledConnection takeIdle() {
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			metrics.idle.decrementAndGet();
+			if (isUsable(pc)) {
+				return pc;
+			}
+			destroy(pc);
+		}
+		return null;
+	}
+
+	private boolean isUsable(PooledConnection pc) {
+		long now = System.currentTimeMillis();
+		if (pc.isExpired(now, maxLifetimeMs)) {
+			return false;
+		}
+		if (now - pc.lastUsed < validationIntervalMs) {
+			return true;
+		}
+		try {
+			if (pc.physical.isValid(validationTimeoutSeconds)) {
+				return true;
+			}
+		}
+		catch (SQLException e) {
+			// tratada como conexo invlida
+		}
+		metrics.validationFailures.increment();
+		return false;
+	}
+
+	private PooledConnection create() {
+		try {
+			Connection conn = DriverManager.getConnection(url, driverProps);
+			metrics.created.increment();
+			metrics.total.incrementAndGet();
+			return new PooledConnection(conn, statementCacheSize, metrics, QueryMetrics.getDefault());
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+	}
+
+	private void destroy(PooledConnection pc) {
+		pc.closePhysical();
+		metrics.destroyed.increment();
+		metrics.total.decrementAndGet();
+	}
+
+	private void houseKeep() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledConnection> it = idle.descendingIterator();
+		while (it.hasNext()) {
+			PooledConnection pc = it.next();
+			boolean expired = pc.isExpired(now, maxLifetimeMs);
+			boolean idleTooLong = now - pc.lastUsed > idleTimeoutMs && metrics.idle.get() > minIdle;
+			if ((expired || idleTooLong) && idle.removeFirstOccurrence(pc)) {
+				metrics.idle.decrementAndGet();
+				destroy(pc);
+			}
+		}
+		fill();
+	}
+
+}
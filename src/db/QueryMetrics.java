@@ -0,0 +1,219 @@
+package db;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Tempos dos mtodos de DAO e dos SQL executados pelo pool. Cada operao tem
+ * o seu {@link QueryStats}; os statements do cache guardam o deles, ento
+ * medir uma execuo custa duas leituras do relgio e alguns incrementos
+ * atmicos, e pode ficar ligado em produo.
+ * <p>
+ * Chamadas acima de {@code metrics.slowQueryMs} vo para o log de consultas
+ * lentas: o arquivo de {@code metrics.slowQueryLog} ou, sem ele, a sada de
+ * erro. As configuraes so lidas do db.properties quando ele  carregado.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+	private static final QueryMetrics DEFAULT = new QueryMetrics();
+
+	private static final String OTHER_SQL = "(outros)";
+
+	private final Map<String, QueryStats> daos = new ConcurrentHashMap<>();
+	private final Map<String, QueryStats> sqls = new ConcurrentHashMap<>();
+	private final LongAdder slowQueries = new LongAdder();
+
+	private volatile boolean enabled = true;
+	private volatile long slowQueryNanos = 500_000_000L;
+	private volatile String slowQueryLog;
+	private volatile int maxStatements = 500;
+	private boolean registered;
+
+	public static QueryMetrics getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Aplica as chaves {@code metrics.*} do db.properties.
+	 */
+	public void configure(Properties props) {
+		String enabledValue = props.getProperty("metrics.enabled");
+		if (enabledValue != null && !enabledValue.trim().isEmpty()) {
+			enabled = Boolean.parseBoolean(enabledValue.trim());
+		}
+		slowQueryNanos = DB.intProperty(props, "metrics.slowQueryMs", 500) * 1_000_000L;
+		maxStatements = DB.intProperty(props, "metrics.maxStatements", 500);
+		String log = props.getProperty("metrics.slowQueryLog");
+		slowQueryLog = log == null || log.trim().isEmpty() ? null : log.trim();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public long getSlowQueryThresholdMillis() {
+		return slowQueryNanos / 1_000_000L;
+	}
+
+	@Override
+	public void setSlowQueryThresholdMillis(long millis) {
+		slowQueryNanos = Math.max(0, millis) * 1_000_000L;
+	}
+
+	@Override
+	public long getSlowQueryCount() {
+		return slowQueries.sum();
+	}
+
+	/**
+	 * Os nmeros de um mtodo de DAO, como {@code ClienteDao.findById}.
+	 */
+	public QueryStats dao(String name) {
+		return daos.computeIfAbsent(name, k -> new QueryStats(QueryStats.DAO, name));
+	}
+
+	/**
+	 * Os nmeros de um SQL. Depois de {@code metrics.maxStatements} textos
+	 * diferentes os novos so somados numa entrada s, para um SQL montado com
+	 * valores no texto no encher a memria.
+	 */
+	public QueryStats sql(String sql) {
+		QueryStats existing = sqls.get(sql);
+		if (existing != null) {
+			return existing;
+		}
+		String key = sqls.size() >= maxStatements ? OTHER_SQL : sql;
+		return sqls.computeIfAbsent(key, k -> new QueryStats(QueryStats.SQL, k.replaceAll("\\s+", " ").trim()));
+	}
+
+	/**
+	 * Registra uma chamada de {@code nanos} e, se passou do limite, escreve no
+	 * log de consultas lentas.
+	 */
+	public void record(QueryStats target, long nanos, long rows, boolean error) {
+		boolean slowCall = nanos >= slowQueryNanos;
+		target.record(nanos, rows, error, slowCall);
+		if (slowCall) {
+			slowQueries.increment();
+			logSlow(target, nanos, rows, error);
+		}
+	}
+
+	@Override
+	public List<QueryStats> getOperations() {
+		List<QueryStats> list = new ArrayList<>();
+		for (QueryStats s : daos.values()) {
+			if (s.getCount() > 0) {
+				list.add(s);
+			}
+		}
+		for (QueryStats s : sqls.values()) {
+			if (s.getCount() > 0) {
+				list.add(s);
+			}
+		}
+		list.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed());
+		return list;
+	}
+
+	@Override
+	public int getPoolActiveCount() {
+		PoolMetrics pool = DB.getPoolMetrics();
+		return pool == null ? 0 : pool.getActiveCount();
+	}
+
+	@Override
+	public int getPoolIdleCount() {
+		PoolMetrics pool = DB.getPoolMetrics();
+		return pool == null ? 0 : pool.getIdleCount();
+	}
+
+	@Override
+	public long getPoolTimeoutCount() {
+		PoolMetrics pool = DB.getPoolMetrics();
+		return pool == null ? 0 : pool.getTimeoutCount();
+	}
+
+	@Override
+	public double getPoolWaitP99Millis() {
+		PoolMetrics pool = DB.getPoolMetrics();
+		return pool == null ? 0.0 : pool.getWaitPercentileMillis(0.99);
+	}
+
+	/**
+	 * Zera os nmeros. As entradas continuam existindo porque os statements do
+	 * cache guardam referncia a elas.
+	 */
+	@Override
+	public void reset() {
+		for (QueryStats s : daos.values()) {
+			s.reset();
+		}
+		for (QueryStats s : sqls.values()) {
+			s.reset();
+		}
+		slowQueries.reset();
+	}
+
+	/**
+	 * Publica este objeto no servidor JMX da plataforma. Chamadas seguintes no
+	 * fazem nada.
+	 */
+	public synchronized void registerMBean() {
+		if (registered) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, new ObjectName("projeto.db:type=QueryMetrics"));
+			registered = true;
+		}
+		catch (JMException e) {
+			throw new DbException("Erro ao registrar as mtricas no JMX: " + e.getMessage(), e);
+		}
+	}
+
+	private synchronized void logSlow(QueryStats target, long nanos, long rows, boolean error) {
+		String line = LocalDateTime.now() + ";" + target.getKind() + ";" + String.format("%.1f", nanos / 1_000_000.0)
+				+ " ms;linhas=" + rows + (error ? ";erro" : "") + ";" + Thread.currentThread().getName() + ";"
+				+ target.getName();
+		String file = slowQueryLog;
+		if (file == null) {
+			System.err.println("Consulta lenta: " + line);
+			return;
+		}
+		try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writer.write(line);
+			writer.write(System.lineSeparator());
+		}
+		catch (IOException e) {
+			System.err.println("Consulta lenta: " + line + " (log indisponvel: " + e.getMessage() + ")");
+		}
+	}
+
+}
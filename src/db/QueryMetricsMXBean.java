@@ -0,0 +1,33 @@
+package db;
+
+import java.util.List;
+
+/**
+ * Atributos e operaes do {@link QueryMetrics} publicados no JMX como
+ * {@code projeto.db:type=QueryMetrics}.
+ */
+public interface QueryMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getSlowQueryThresholdMillis();
+
+	void setSlowQueryThresholdMillis(long millis);
+
+	long getSlowQueryCount();
+
+	List<QueryStats> getOperations();
+
+	int getPoolActiveCount();
+
+	int getPoolIdleCount();
+
+	long getPoolTimeoutCount();
+
+	double getPoolWaitP99Millis();
+
+	void reset();
+
+}
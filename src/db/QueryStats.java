@@ -0,0 +1,106 @@
+package db;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nmeros de uma operao medida pelo {@link QueryMetrics}: um mtodo de DAO
+ * ou um SQL. Os getters formam o item da lista exposta pelo JMX e as colunas
+ * da tela de diagnstico.
+ */
+public class QueryStats {
+
+	public static final String DAO = "DAO";
+	public static final String SQL = "SQL";
+
+	private final String kind;
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder slow = new LongAdder();
+
+	QueryStats(String kind, String name) {
+		this.kind = kind;
+		this.name = name;
+	}
+
+	void record(long nanos, long rowCount, boolean error, boolean slowCall) {
+		latency.record(nanos);
+		if (rowCount > 0) {
+			rows.add(rowCount);
+		}
+		if (error) {
+			errors.increment();
+		}
+		if (slowCall) {
+			slow.increment();
+		}
+	}
+
+	void reset() {
+		latency.reset();
+		rows.reset();
+		errors.reset();
+		slow.reset();
+	}
+
+	public String getKind() {
+		return kind;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	public long getErrorCount() {
+		return errors.sum();
+	}
+
+	public long getSlowCount() {
+		return slow.sum();
+	}
+
+	/**
+	 * Linhas devolvidas pelos mtodos de DAO ou alteradas pelos SQL de escrita;
+	 * as consultas SQL no contam as linhas lidas.
+	 */
+	public long getRowCount() {
+		return rows.sum();
+	}
+
+	public double getTotalMillis() {
+		return latency.getTotalMillis();
+	}
+
+	public double getMeanMillis() {
+		return latency.getMeanMillis();
+	}
+
+	public double getP50Millis() {
+		return latency.getPercentileMillis(0.50);
+	}
+
+	public double getP95Millis() {
+		return latency.getPercentileMillis(0.95);
+	}
+
+	public double getP99Millis() {
+		return latency.getPercentileMillis(0.99);
+	}
+
+	public double getMaxMillis() {
+		return latency.getMaxMillis();
+	}
+
+	@Override
+	public String toString() {
+		return kind + " " + name + " [count=" + getCount() + ", errors=" + getErrorCount() + ", rows="
+				+ getRowCount() + ", p50=" + String.format("%.3f", getP50Millis()) + ", p99="
+				+ String.format("%.3f", getP99Millis()) + ", max=" + String.format("%.3f", getMaxMillis()) + "]";
+	}
+
+}
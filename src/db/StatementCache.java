@@ -0,0 +1,290 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache LRU de {@link PreparedStatement} de uma conexo fsica, indexado pelo
+ * texto do SQL. O {@code close()} do statement entregue apenas o devolve ao
+ * cache; o fechamento real acontece quando ele  removido pelo LRU ou quando a
+ * conexo  descartada pelo pool.
+ * <p>
+ * Uma conexo s  usada por uma thread de cada vez, por isso o cache no 
+ * sincronizado.
+ * <p>
+ * As execues so medidas no {@link QueryMetrics}, inclusive as dos
+ * statements que ficam fora do cache.
+ */
+class StatementCache {
+
+	private final int maxSize;
+	private final PoolMetrics metrics;
+	private final QueryMetrics queryMetrics;
+	private final Map<String, CachedStatement> entries;
+
+	StatementCache(int maxSize, PoolMetrics metrics, QueryMetrics queryMetrics) {
+		this.maxSize = maxSize;
+		this.metrics = metrics;
+		this.queryMetrics = queryMetrics;
+		this.entries = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (size() > StatementCache.this.maxSize) {
+					evict(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	PreparedStatement prepare(Connection owner, Connection physical, String sql, int autoGeneratedKeys)
+			throws SQLException {
+		if (maxSize <= 0) {
+			return timed(owner, physical.prepareStatement(sql, autoGeneratedKeys), sql);
+		}
+		String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\n#keys" : sql;
+		CachedStatement entry = entries.get(key);
+		if (entry != null && !entry.inUse) {
+			metrics.statementHits.increment();
+			return entry.lease(owner, metrics, queryMetrics);
+		}
+		metrics.statementMisses.increment();
+		PreparedStatement ps = physical.prepareStatement(sql, autoGeneratedKeys);
+		if (entry != null) {
+			// o mesmo SQL j est aberto nesta conexo; este fica fora do cache
+			return timed(owner, ps, sql);
+		}
+		entry = new CachedStatement(ps, queryMetrics.sql(sql));
+		entries.put(key, entry);
+		return entry.lease(owner, metrics, queryMetrics);
+	}
+
+	/**
+	 * Envolve um statement fora do cache s para medir as execues.
+	 */
+	PreparedStatement timed(Connection owner, PreparedStatement ps, String sql) {
+		if (!queryMetrics.isEnabled()) {
+			return ps;
+		}
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new Timed(ps, owner, queryMetrics.sql(sql), queryMetrics));
+	}
+
+	void releaseAll() {
+		for (CachedStatement entry : entries.values()) {
+			if (entry.inUse) {
+				entry.release();
+			}
+		}
+	}
+
+	void closeAll() {
+		List<CachedStatement> all = new ArrayList<>(entries.values());
+		entries.clear();
+		for (CachedStatement entry : all) {
+			entry.closePhysical();
+		}
+	}
+
+	private void evict(CachedStatement entry) {
+		metrics.statementEvictions.increment();
+		entry.evicted = true;
+		if (!entry.inUse) {
+			entry.closePhysical();
+		}
+	}
+
+	private static class CachedStatement {
+
+		final PreparedStatement statement;
+		final QueryStats stats;
+		boolean inUse;
+		boolean evicted;
+		boolean batched;
+		int generation;
+
+		CachedStatement(PreparedStatement statement, QueryStats stats) {
+			this.statement = statement;
+			this.stats = stats;
+		}
+
+		PreparedStatement lease(Connection owner, PoolMetrics metrics, QueryMetrics queryMetrics) {
+			inUse = true;
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class },
+					new Lease(this, owner, generation, metrics, queryMetrics));
+		}
+
+		void release() {
+			inUse = false;
+			generation++;
+			try {
+				if (batched) {
+					batched = false;
+					statement.clearBatch();
+				}
+			}
+			catch (SQLException e) {
+				evicted = true;
+			}
+			if (evicted) {
+				closePhysical();
+			}
+		}
+
+		void closePhysical() {
+			try {
+				statement.close();
+			}
+			catch (SQLException e) {
+				// o statement est sendo descartado de qualquer forma
+			}
+		}
+	}
+
+	private static class Lease implements InvocationHandler {
+
+		private final CachedStatement entry;
+		private final Connection owner;
+		private final int generation;
+		private final PoolMetrics metrics;
+		private final QueryMetrics queryMetrics;
+
+		Lease(CachedStatement entry, Connection owner, int generation, PoolMetrics metrics,
+				QueryMetrics queryMetrics) {
+			this.entry = entry;
+			this.owner = owner;
+			this.generation = generation;
+			this.metrics = metrics;
+			this.queryMetrics = queryMetrics;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			boolean closed = generation != entry.generation;
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					entry.release();
+				}
+				return null;
+			case "isClosed":
+				return closed;
+			case "getConnection":
+				return owner;
+			case "addBatch":
+				entry.batched = true;
+				break;
+			case "executeUpdate":
+			case "executeBatch":
+			case "executeLargeUpdate":
+			case "executeLargeBatch":
+				// em auto-commit cada escrita  uma transao confirmada
+				if (!closed && owner.getAutoCommit()) {
+					metrics.autoCommits.increment();
+				}
+				break;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				break;
+			}
+			if (closed) {
+				throw new SQLException("O statement j foi fechado");
+			}
+			return invokeTimed(queryMetrics, entry.stats, method, entry.statement, args);
+		}
+	}
+
+	private static class Timed implements InvocationHandler {
+
+		private final PreparedStatement statement;
+		private final Connection owner;
+		private final QueryStats stats;
+		private final QueryMetrics queryMetrics;
+
+		Timed(PreparedStatement statement, Connection owner, QueryStats stats, QueryMetrics queryMetrics) {
+			this.statement = statement;
+			this.owner = owner;
+			this.stats = stats;
+			this.queryMetrics = queryMetrics;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "getConnection":
+				return owner;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				return invokeTimed(queryMetrics, stats, method, statement, args);
+			}
+		}
+	}
+
+	/**
+	 * Chama o mtodo no statement; os {@code execute*} so medidos.
+	 */
+	private static Object invokeTimed(QueryMetrics queryMetrics, QueryStats stats, Method method,
+			PreparedStatement statement, Object[] args) throws Throwable {
+		if (!method.getName().startsWith("execute") || !queryMetrics.isEnabled()) {
+			try {
+				return method.invoke(statement, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+		long start = System.nanoTime();
+		Object result = null;
+		boolean error = true;
+		try {
+			result = method.invoke(statement, args);
+			error = false;
+			return result;
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+		finally {
+			queryMetrics.record(stats, System.nanoTime() - start, rowsOf(result), error);
+		}
+	}
+
+	private static long rowsOf(Object result) {
+		if (result instanceof Integer || result instanceof Long) {
+			return ((Number) result).longValue();
+		}
+		long rows = 0;
+		if (result instanceof int[]) {
+			for (int count : (int[]) result) {
+				rows += Math.max(0, count);
+			}
+		}
+		else if (result instanceof long[]) {
+			for (long count : (long[]) result) {
+				rows += Math.max(0, count);
+			}
+		}
+		return rows;
+	}
+
+}
@@ -0,0 +1,101 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Decorador que faz os DAOs participarem da {@link UnitOfWork} da thread
+ * atual. Fora de uma unidade de trabalho apenas repassa ao provider
+ * decorado; dentro dela todo {@link #getConnection()} devolve a conexo da
+ * transao, cujo {@code close()} no faz nada e cujo controle de transao
+ * ({@code commit}, {@code rollback}, {@code setAutoCommit}) fica com a
+ * {@link UnitOfWork}.
+ */
+public class TransactionalConnectionProvider implements ConnectionProvider {
+
+	private final ConnectionProvider delegate;
+
+	public TransactionalConnectionProvider(ConnectionProvider delegate) {
+		this.delegate = delegate;
+	}
+
+	public ConnectionProvider getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public Connection getConnection() {
+		Connection bound = UnitOfWork.boundConnection(this);
+		if (bound == null) {
+			return delegate.getConnection();
+		}
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new Participant(bound));
+	}
+
+	/**
+	 * Conexo fsica para uma nova unidade de trabalho, sem passar pela
+	 * transao j ligada  thread.
+	 */
+	Connection openConnection() {
+		return delegate.getConnection();
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	private static class Participant implements InvocationHandler {
+
+		private final Connection bound;
+		private boolean closed;
+
+		Participant(Connection bound) {
+			this.bound = bound;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				closed = true;
+				return null;
+			case "isClosed":
+				return closed || bound.isClosed();
+			case "commit":
+			case "rollback":
+				// rollback(Savepoint) continua com o DAO, como no JdbcBatch
+				if (args == null) {
+					throw new SQLException("A transao  controlada pela UnitOfWork");
+				}
+				break;
+			case "setAutoCommit":
+				if ((Boolean) args[0]) {
+					throw new SQLException("A transao  controlada pela UnitOfWork");
+				}
+				return null;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				break;
+			}
+			if (closed) {
+				throw new SQLException("A conexo j foi fechada");
+			}
+			try {
+				return method.invoke(bound, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}
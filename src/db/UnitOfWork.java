@@ -0,0 +1,283 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa vrias chamadas a DAOs numa nica transao. Durante
+ * {@link #execute} a conexo fica ligada  thread, e todo DAO que pede
+ * conexo ao {@link TransactionalConnectionProvider} recebe a mesma; no fim h
+ * um nico {@code commit}, ou um {@code rollback} se o trabalho lanar
+ * exceo.
+ *
+ * <pre>
+ * new UnitOfWork().execute(() -&gt; {
+ *     funcionarioDao.reassignCliente(antigo.getId(), novo.getId());
+ *     clienteDao.deleteById(antigo.getId());
+ *     return null;
+ * });
+ * </pre>
+ *
+ * Uma unidade aberta dentro de outra na mesma thread apenas participa da
+ * externa, e a isolao e as tentativas da externa valem. Quando o banco
+ * aborta a transao por deadlock ou por tempo de espera de lock, o trabalho
+ * inteiro  executado de novo, at {@link #retries} vezes, ento ele no deve
+ * ter efeitos fora do banco; para isso h {@link #afterCommit},
+ * {@link #afterRollback} e {@link #afterCompletion}.
+ */
+public class UnitOfWork {
+
+	private static final ThreadLocal<Transaction> current = new ThreadLocal<>();
+
+	private static final LongAdder commits = new LongAdder();
+	private static final LongAdder rollbacks = new LongAdder();
+	private static final LongAdder retried = new LongAdder();
+
+	private static class Transaction {
+		final TransactionalConnectionProvider provider;
+		final Connection conn;
+		final List<Runnable> afterCommit = new ArrayList<>();
+		final List<Runnable> afterRollback = new ArrayList<>();
+		final List<Runnable> afterCompletion = new ArrayList<>();
+
+		Transaction(TransactionalConnectionProvider provider, Connection conn) {
+			this.provider = provider;
+			this.conn = conn;
+		}
+	}
+
+	private final TransactionalConnectionProvider provider;
+	private int isolation = -1;
+	private int maxRetries = 3;
+	private long retryDelayMs = 50;
+
+	public UnitOfWork() {
+		this(DB.getConnectionProvider());
+	}
+
+	public UnitOfWork(TransactionalConnectionProvider provider) {
+		this.provider = provider;
+	}
+
+	/**
+	 * Nvel de isolao da transao, uma das constantes
+	 * {@code Connection.TRANSACTION_*}. Sem chamar, vale o padro da conexo.
+	 */
+	public UnitOfWork isolation(int level) {
+		this.isolation = level;
+		return this;
+	}
+
+	/**
+	 * Quantas vezes o trabalho  repetido depois de um deadlock (3). Entre as
+	 * tentativas h uma espera aleatria que cresce a partir de
+	 * {@code delayMs}.
+	 */
+	public UnitOfWork retries(int maxRetries, long delayMs) {
+		this.maxRetries = Math.max(0, maxRetries);
+		this.retryDelayMs = Math.max(0, delayMs);
+		return this;
+	}
+
+	public void run(Runnable work) {
+		execute(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	public <T> T execute(Supplier<T> work) {
+		Transaction outer = current.get();
+		if (outer != null) {
+			if (outer.provider != provider) {
+				throw new DbException("J existe uma UnitOfWork de outro banco nesta thread");
+			}
+			return work.get();
+		}
+		for (int attempt = 0;; attempt++) {
+			try {
+				return executeOnce(work);
+			}
+			catch (RuntimeException e) {
+				if (attempt >= maxRetries || !isRetryable(e)) {
+					throw e;
+				}
+				retried.increment();
+				pause(attempt);
+			}
+		}
+	}
+
+	private <T> T executeOnce(Supplier<T> work) {
+		Connection conn = provider.openConnection();
+		Transaction tx = new Transaction(provider, conn);
+		int previousIsolation = -1;
+		boolean committed = false;
+		try {
+			// a isolao s pode mudar antes da transao comear
+			if (isolation >= 0 && conn.getTransactionIsolation() != isolation) {
+				previousIsolation = conn.getTransactionIsolation();
+				conn.setTransactionIsolation(isolation);
+			}
+			conn.setAutoCommit(false);
+			current.set(tx);
+			T result;
+			try {
+				result = work.get();
+			}
+			finally {
+				current.remove();
+			}
+			conn.commit();
+			committed = true;
+			commits.increment();
+			return result;
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			if (!committed) {
+				rollback(conn);
+			}
+			restore(conn, previousIsolation);
+			DB.closeConnection(conn);
+			if (!committed) {
+				runAll(tx.afterRollback);
+			}
+			runAll(tx.afterCompletion);
+			if (committed) {
+				runAll(tx.afterCommit);
+			}
+		}
+	}
+
+	/**
+	 * Executa {@code action} depois do commit da unidade de trabalho da thread,
+	 * ou na hora se no houver nenhuma. No  executada se houver rollback.
+	 */
+	public static void afterCommit(Runnable action) {
+		Transaction tx = current.get();
+		if (tx == null) {
+			action.run();
+		}
+		else {
+			tx.afterCommit.add(action);
+		}
+	}
+
+	/**
+	 * Executa {@code action} se a unidade de trabalho da thread no fizer
+	 * commit, antes de uma nova tentativa. Sem unidade no faz nada: a
+	 * gravao j foi confirmada. Serve para desfazer nas entidades o que o
+	 * banco desfez, como o id gerado por um INSERT.
+	 */
+	public static void afterRollback(Runnable action) {
+		Transaction tx = current.get();
+		if (tx != null) {
+			tx.afterRollback.add(action);
+		}
+	}
+
+	/**
+	 * Executa {@code action} no fim da unidade de trabalho da thread, com
+	 * commit ou rollback, ou na hora se no houver nenhuma. Serve para
+	 * descartar caches que possam ter visto dados ainda no confirmados.
+	 */
+	public static void afterCompletion(Runnable action) {
+		Transaction tx = current.get();
+		if (tx == null) {
+			action.run();
+		}
+		else {
+			tx.afterCompletion.add(action);
+		}
+	}
+
+	public static boolean isActive() {
+		return current.get() != null;
+	}
+
+	public static long getCommitCount() {
+		return commits.sum();
+	}
+
+	public static long getRollbackCount() {
+		return rollbacks.sum();
+	}
+
+	public static long getRetryCount() {
+		return retried.sum();
+	}
+
+	static Connection boundConnection(TransactionalConnectionProvider provider) {
+		Transaction tx = current.get();
+		return tx != null && tx.provider == provider ? tx.conn : null;
+	}
+
+	/**
+	 * Deadlock e espera de lock esgotada: SQLState 40001 (serializao) ou
+	 * 40P01, e os cdigos 1213 e 1205 do MySQL.
+	 */
+	static boolean isRetryable(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLException) {
+				SQLException sql = (SQLException) t;
+				String state = sql.getSQLState();
+				if ("40001".equals(state) || "40P01".equals(state) || sql.getErrorCode() == 1213
+						|| sql.getErrorCode() == 1205) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void pause(int attempt) {
+		if (retryDelayMs == 0) {
+			return;
+		}
+		long max = retryDelayMs << Math.min(attempt, 6);
+		try {
+			Thread.sleep(retryDelayMs + ThreadLocalRandom.current().nextLong(max));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrompido aguardando para repetir a transao");
+		}
+	}
+
+	private static void rollback(Connection conn) {
+		rollbacks.increment();
+		try {
+			conn.rollback();
+		}
+		catch (SQLException e) {
+			// a conexo volta ao pool, que descarta a transao de qualquer forma
+		}
+	}
+
+	private static void restore(Connection conn, int previousIsolation) {
+		try {
+			if (previousIsolation >= 0) {
+				conn.setTransactionIsolation(previousIsolation);
+			}
+			conn.setAutoCommit(true);
+		}
+		catch (SQLException e) {
+			// o reset do pool tenta de novo ao receber a conexo
+		}
+	}
+
+	private static void runAll(List<Runnable> actions) {
+		for (Runnable action : actions) {
+			action.run();
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+package gui;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import gui.util.Alerts;
+import gui.util.FxAsync;
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.entities.PayrollTotals;
+import model.entities.SalaryStats;
+import model.services.AnalyticsReport;
+import model.services.AnalyticsService;
+import model.services.AsyncAnalyticsService;
+import model.services.EntityChangeListener;
+import model.services.Histogram;
+import model.services.ReportService;
+
+/**
+ * Anlise salarial de todos os funcionrios, calculada em memria pelo
+ * {@link AnalyticsService}: percentis por cliente, projeto ou ano de incio,
+ * histograma dos salrios e os maiores outliers por projeto. Recarrega quando
+ * os relatrios so invalidados, como o painel da folha.
+ */
+public class AnalyticsController implements Initializable {
+
+	private static final String POR_CLIENTE = "Cliente";
+
+	private static final String POR_PROJETO = "Projeto";
+
+	private static final String POR_ANO = "Ano de incio";
+
+	private AsyncAnalyticsService service;
+
+	@FXML
+	private Button btAtualizar;
+
+	@FXML
+	private ChoiceBox<String> choiceGrupo;
+
+	@FXML
+	private ProgressIndicator progressIndicator;
+
+	@FXML
+	private Label labelResumo;
+
+	@FXML
+	private TableView<SalaryStats> tableViewGrupos;
+
+	@FXML
+	private TableColumn<SalaryStats, String> tableColumnGrupo;
+
+	@FXML
+	private TableColumn<SalaryStats, Integer> tableColumnFuncionarios;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnMedia;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnDesvio;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnP25;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnMediana;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnP75;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnP90;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnP99;
+
+	@FXML
+	private TableColumn<SalaryStats, Double> tableColumnMaior;
+
+	@FXML
+	private TableColumn<SalaryStats, Integer> tableColumnOutliers;
+
+	@FXML
+	private BarChart<String, Number> chartHistograma;
+
+	@FXML
+	private TableView<Funcionario> tableViewOutliers;
+
+	@FXML
+	private TableColumn<Funcionario, Integer> tableColumnOutlierId;
+
+	@FXML
+	private TableColumn<Funcionario, String> tableColumnOutlierNome;
+
+	@FXML
+	private TableColumn<Funcionario, Cliente> tableColumnOutlierEmpresa;
+
+	@FXML
+	private TableColumn<Funcionario, Cliente> tableColumnOutlierProjeto;
+
+	@FXML
+	private TableColumn<Funcionario, Double> tableColumnOutlierSalario;
+
+	// o publisher guarda s uma referncia fraca; este campo mantm o listener vivo
+	private final EntityChangeListener<PayrollTotals> reportListener = event -> Platform.runLater(this::reload);
+
+	private AnalyticsReport report;
+
+	private boolean loading;
+
+	private boolean stale;
+
+	public void setAnalyticsService(AsyncAnalyticsService service) {
+		this.service = service;
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		tableColumnGrupo.setCellValueFactory(new PropertyValueFactory<>("grupo"));
+		tableColumnFuncionarios.setCellValueFactory(new PropertyValueFactory<>("funcionarios"));
+		setUpSalaryColumn(tableColumnMedia, "mediaSalario");
+		setUpSalaryColumn(tableColumnDesvio, "desvioPadrao");
+		setUpSalaryColumn(tableColumnP25, "p25");
+		setUpSalaryColumn(tableColumnMediana, "mediana");
+		setUpSalaryColumn(tableColumnP75, "p75");
+		setUpSalaryColumn(tableColumnP90, "p90");
+		setUpSalaryColumn(tableColumnP99, "p99");
+		setUpSalaryColumn(tableColumnMaior, "maiorSalario");
+		tableColumnOutliers.setCellValueFactory(new PropertyValueFactory<>("outliers"));
+
+		tableColumnOutlierId.setCellValueFactory(new PropertyValueFactory<>("id"));
+		tableColumnOutlierNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
+		tableColumnOutlierEmpresa.setCellValueFactory(new PropertyValueFactory<>("cliente"));
+		Utils.formatTableColumn(tableColumnOutlierEmpresa, cliente -> cliente == null ? "" : cliente.getEmpresa());
+		tableColumnOutlierProjeto.setCellValueFactory(new PropertyValueFactory<>("cliente"));
+		Utils.formatTableColumn(tableColumnOutlierProjeto, cliente -> cliente == null ? "" : cliente.getProjeto());
+		setUpSalaryColumn(tableColumnOutlierSalario, "salario");
+
+		choiceGrupo.getItems().setAll(POR_CLIENTE, POR_PROJETO, POR_ANO);
+		choiceGrupo.setValue(POR_CLIENTE);
+		choiceGrupo.valueProperty().addListener((obs, oldValue, newValue) -> showGroups());
+
+		ReportService.getChanges().subscribe(reportListener);
+	}
+
+	private static <T> void setUpSalaryColumn(TableColumn<T, Double> column, String property) {
+		column.setCellValueFactory(new PropertyValueFactory<>(property));
+		Utils.formatTableColumnDouble(column, 2, Locale.US);
+	}
+
+	@FXML
+	public void onBtAtualizarAction(ActionEvent event) {
+		reload();
+	}
+
+	public void updateView() {
+		if (service == null) {
+			throw new IllegalStateException("Service estava nulo!");
+		}
+		reload();
+	}
+
+	/**
+	 * Recarregamentos pedidos durante uma anlise viram um s, depois dela.
+	 */
+	private void reload() {
+		if (service == null) {
+			return;
+		}
+		if (loading) {
+			stale = true;
+			return;
+		}
+		loading = true;
+		stale = false;
+		progressIndicator.setVisible(true);
+		FxAsync.onFx(service.analyze(new FuncionarioQuery()), loaded -> {
+			finished();
+			show(loaded);
+		}, error -> {
+			finished();
+			Alerts.showAlert("Erro na anlise", null, error.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	private void finished() {
+		loading = false;
+		progressIndicator.setVisible(false);
+		if (stale) {
+			reload();
+		}
+	}
+
+	private void show(AnalyticsReport loaded) {
+		report = loaded;
+		SalaryStats total = loaded.getTotal();
+		labelResumo.setText(String.format(Locale.US,
+				"%d funcionrios, mediana %.2f, P90 %.2f, %d outliers; anlise em %.0f ms com %d threads",
+				total.getFuncionarios(), total.getMediana(), total.getP90(), loaded.getOutlierCount(),
+				loaded.getElapsedMillis(), loaded.getParallelism()));
+		showGroups();
+
+		Histogram histogram = loaded.getHistogram();
+		XYChart.Series<String, Number> series = new XYChart.Series<>();
+		for (int i = 0; i < histogram.getBins(); i++) {
+			series.getData().add(new XYChart.Data<>(
+					String.format(Locale.US, "%.0f-%.0f", histogram.getLower(i), histogram.getUpper(i)),
+					histogram.getCount(i)));
+		}
+		chartHistograma.getData().setAll(Collections.singletonList(series));
+
+		tableViewOutliers.getItems().setAll(loaded.getOutliers());
+	}
+
+	private void showGroups() {
+		if (report == null) {
+			return;
+		}
+		List<SalaryStats> rows;
+		switch (choiceGrupo.getValue()) {
+		case POR_PROJETO:
+			rows = report.getByProjeto();
+			break;
+		case POR_ANO:
+			rows = report.getByInicioAno();
+			break;
+		default:
+			rows = report.getByCliente();
+			break;
+		}
+		tableViewGrupos.getItems().setAll(rows);
+	}
+
+}
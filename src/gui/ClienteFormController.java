@@ -1,35 +1,37 @@
 package gui;
 
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.DbException;
-import gui.listeners.DataChangeListener;
+import db.DbConflictException;
 import gui.util.Alerts;
+import gui.util.ConflictDialog;
 import gui.util.Constraints;
+import gui.util.FxAsync;
 import gui.util.Utils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Cursor;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.entities.Cliente;
 import model.exceptions.ValidationException;
-import model.services.ClienteService;
+import model.services.AsyncClienteService;
 
 public class ClienteFormController implements Initializable {
 	
 	private Cliente entity;
+
+	// como o registro estava quando foi aberto; base da mesclagem num conflito
+	private Cliente original;
 	
-	private ClienteService service;
-	
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+	private AsyncClienteService service;
 
 	@FXML
 	private TextField txtId;
@@ -54,14 +56,11 @@ public class ClienteFormController implements Initializable {
 	
 	public void setCliente(Cliente entity) {
 		this.entity = entity;
+		this.original = entity;
 	}
-	public void setClienteService(ClienteService service) {
+	public void setClienteService(AsyncClienteService service) {
 		this.service = service;
 	}
-	public void subscribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListeners.add(listener);
-	}
-
 	@FXML
 	public void onBtSalvarAction(ActionEvent evento) {
 		if(entity == null) {
@@ -72,24 +71,71 @@ public class ClienteFormController implements Initializable {
 		}
 		try {
 			entity = getFormData();
-			service.saveOrUpdate(entity);
-			notifyDataChangeListeners();
-			Utils.atualStage(evento).close();
 		}
 		catch(ValidationException e) {
 			setErrorMessages(e.getErrors());
+			return;
 		}
-		catch(DbException e) {
+		Stage stage = Utils.atualStage(evento);
+		setBusy(true);
+		FxAsync.onFx(service.saveOrUpdateLater(entity), x -> {
+			setBusy(false);
+			stage.close();
+		}, e -> {
+			setBusy(false);
+			if (e instanceof DbConflictException) {
+				onConflict((DbConflictException) e);
+			}
+			else {
+				Alerts.showAlert("Erro ao salvar o cliente", null, e.getMessage(), AlertType.ERROR);
+			}
+		});
+	}
+
+	private void onConflict(DbConflictException e) {
+		if (e.isDeleted()) {
 			Alerts.showAlert("Erro ao salvar o cliente", null, e.getMessage(), AlertType.ERROR);
+			return;
 		}
+		ConflictDialog.Choice choice = ConflictDialog.show("Erro ao salvar o cliente",
+				"Recarregar descarta as suas alteraes. Mesclar mantm os campos que voc editou e traz os "
+						+ "demais do banco; confira e salve de novo.");
+		if (choice == ConflictDialog.Choice.CANCEL) {
+			return;
+		}
+		Cliente mine = entity;
+		setBusy(true);
+		FxAsync.onFx(service.findById(e.getId()), theirs -> {
+			setBusy(false);
+			if (theirs == null) {
+				Alerts.showAlert("Erro ao salvar o cliente", null, "O cliente foi removido por outro usurio",
+						AlertType.ERROR);
+				return;
+			}
+			Cliente base = original;
+			original = theirs;
+			if (choice == ConflictDialog.Choice.RELOAD) {
+				entity = theirs;
+			}
+			else {
+				entity = new Cliente();
+				entity.setId(theirs.getId());
+				entity.setEmpresa(ConflictDialog.merge(base.getEmpresa(), mine.getEmpresa(), theirs.getEmpresa()));
+				entity.setProjeto(ConflictDialog.merge(base.getProjeto(), mine.getProjeto(), theirs.getProjeto()));
+				entity.setVersion(theirs.getVersion());
+			}
+			updateFormData();
+		}, error -> {
+			setBusy(false);
+			Alerts.showAlert("Erro ao recarregar o cliente", null, error.getMessage(), AlertType.ERROR);
+		});
 	}
 
-	private void notifyDataChangeListeners() {
-		for(DataChangeListener listener : dataChangeListeners) {
-			listener.onDataChanged();
-		}
-		
+	private void setBusy(boolean busy) {
+		btSalvar.setDisable(busy);
+		btSalvar.getScene().setCursor(busy ? Cursor.WAIT : Cursor.DEFAULT);
 	}
+
 	private Cliente getFormData() {
 		Cliente obj = new Cliente();
 		
@@ -105,6 +151,7 @@ public class ClienteFormController implements Initializable {
 			exception.addError("projeto", "O Campo no pode ser vazio!");
 		}
 		obj.setProjeto(txtProjeto.getText());
+		obj.setVersion(entity.getVersion());
 		
 		if(exception.getErrors().size() > 0) {
 			throw exception;
@@ -137,6 +184,9 @@ public class ClienteFormController implements Initializable {
 		txtId.setText(String.valueOf(entity.getId()));
 		txtEmpresa.setText(entity.getEmpresa());
 		txtProjeto.setText(entity.getProjeto());
+		// o formulrio  reaproveitado entre aberturas
+		labelErroE.setText("");
+		labelErroP.setText("");
 	}
 	
 	private void setErrorMessages(Map<String, String> errors) {
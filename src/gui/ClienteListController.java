@@ -2,39 +2,43 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.Predicate;
 
 import application.Main;
-import db.DbIntegrityException;
-import gui.listeners.DataChangeListener;
+import gui.util.ActionButtonCell;
 import gui.util.Alerts;
+import gui.util.FxAsync;
+import gui.util.PagedList;
 import gui.util.Utils;
-import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import gui.util.ViewRegistry.View;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
-import javafx.scene.control.TableCell;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
-import javafx.stage.Modality;
 import javafx.stage.Stage;
+import model.dao.ClienteDao;
 import model.entities.Cliente;
+import model.services.AsyncClienteService;
+import model.services.ChangeEvent;
 import model.services.ClienteService;
+import model.services.EntityChangeListener;
 
-public class ClienteListController implements Initializable, DataChangeListener {
+public class ClienteListController implements Initializable {
 
-	private ClienteService service;
+	private static final int PAGE_SIZE = 100;
+
+	private static final int MAX_RESIDENT_PAGES = 10;
+
+	private AsyncClienteService service;
 
 	@FXML
 	private TableView<Cliente> tableViewCliente;
@@ -57,7 +61,14 @@ public class ClienteListController implements Initializable, DataChangeListener
 	@FXML
 	private Button btNovo;
 
-	public void setClienteService(ClienteService service) {
+	@FXML
+	private ProgressIndicator progressIndicator;
+
+	// o publisher guarda s uma referncia fraca; este campo mantm o listener vivo
+	private final EntityChangeListener<Cliente> clienteListener = event -> Platform
+			.runLater(() -> onClienteChanged(event));
+
+	public void setClienteService(AsyncClienteService service) {
 		this.service = service;
 	}
 
@@ -68,7 +79,7 @@ public class ClienteListController implements Initializable, DataChangeListener
 		criaDialogoFormu(obj, "/gui/ClienteForm.fxml", parentStage);
 	}
 
-	private ObservableList<Cliente> obsList;
+	private PagedList<Cliente> obsList;
 
 	@Override
 	public void initialize(URL url, ResourceBundle rb) {
@@ -81,9 +92,48 @@ public class ClienteListController implements Initializable, DataChangeListener
 		tableColumnEmpresa.setCellValueFactory(new PropertyValueFactory<>("empresa"));
 		tableColumnProjeto.setCellValueFactory(new PropertyValueFactory<>("projeto"));
 
-		Stage stage = (Stage) Main.getMainScene().getWindow();
-		tableViewCliente.prefHeightProperty().bind(stage.heightProperty());
+		// a lista  paginada no banco, a ordenao pela tabela no se aplica
+		tableViewCliente.getColumns().forEach(column -> column.setSortable(false));
+
+		ActionButtonCell.install(tableColumnEDIT, "editar",
+				(obj, event) -> criaDialogoFormu(obj, "/gui/ClienteForm.fxml", Utils.atualStage(event)));
+		ActionButtonCell.install(tableColumnREMOVE, "remove", (obj, event) -> removeEntity(obj));
+
+		ClienteService.getChanges().subscribe(clienteListener);
+	}
 
+	/**
+	 * Aplica a alterao na lista sem voltar ao banco; gravaes em lote
+	 * recarregam a lista.
+	 */
+	private void onClienteChanged(ChangeEvent<Cliente> event) {
+		if (obsList == null) {
+			return;
+		}
+		Predicate<Cliente> sameId = row -> event.getId().equals(row.getId());
+		switch (event.getType()) {
+		case INSERTED:
+			obsList.insertRow(event.getEntity());
+			break;
+		case UPDATED:
+			// a empresa pode ter mudado, e com ela a posio na lista
+			if (obsList.removeRow(sameId)) {
+				obsList.insertRow(event.getEntity());
+			}
+			else if (!obsList.isFullyResident()) {
+				// a linha pode estar numa pgina descartada, que guarda a contagem antiga
+				obsList.refresh();
+			}
+			break;
+		case DELETED:
+			if (!obsList.removeRow(sameId) && !obsList.isFullyResident()) {
+				obsList.refresh();
+			}
+			break;
+		default:
+			obsList.refresh();
+			break;
+		}
 	}
 
 	public void updateTableView() {
@@ -91,31 +141,29 @@ public class ClienteListController implements Initializable, DataChangeListener
 			throw new IllegalStateException("Service estava nulo!");
 		}
 
-		List<Cliente> list = service.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		tableViewCliente.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		if (obsList == null) {
+			obsList = new PagedList<>(service::findPage, ClienteDao.PAGE_ORDER, PAGE_SIZE, MAX_RESIDENT_PAGES);
+			progressIndicator.visibleProperty().bind(obsList.loadingProperty());
+			tableViewCliente.setItems(obsList);
+			// aqui e no no initialize, que pode rodar antes da janela existir
+			Stage stage = (Stage) Main.getMainScene().getWindow();
+			tableViewCliente.prefHeightProperty().bind(stage.heightProperty());
+		}
+		else {
+			obsList.refresh();
+		}
 	}
 
 	private void criaDialogoFormu(Cliente obj, String absoluteName, Stage parentStage) {
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-			Pane pane = loader.load();
+			View<ClienteFormController> view = Main.getViews().get(absoluteName);
 
-			ClienteFormController controller = loader.getController();
+			ClienteFormController controller = view.getController();
+			view.initOnce(c -> c.setClienteService(service));
 			controller.setCliente(obj);
-			controller.setClienteService(new ClienteService());
-			controller.subscribeDataChangeListener(this);
 			controller.updateFormData();
 
-			Stage dialogoStage = new Stage();
-			dialogoStage.setTitle("Insira a empresa e o projeto");
-			dialogoStage.setScene(new Scene(pane));
-			dialogoStage.setResizable(false);
-			dialogoStage.initOwner(parentStage);
-			dialogoStage.initModality(Modality.WINDOW_MODAL);
-			dialogoStage.showAndWait();
+			view.getDialog("Insira a empresa e o projeto", parentStage).showAndWait();
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -123,51 +171,6 @@ public class ClienteListController implements Initializable, DataChangeListener
 		}
 	}
 
-	@Override
-	public void onDataChanged() {
-		updateTableView();
-
-	}
-
-	private void initEditButtons() {
-		tableColumnEDIT.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
-		tableColumnEDIT.setCellFactory(param -> new TableCell<Cliente, Cliente>() {
-			private final Button button = new Button("editar");
-
-			@Override
-			protected void updateItem(Cliente obj, boolean empty) {
-				super.updateItem(obj, empty);
-				if (obj == null) {
-					setGraphic(null);
-					return;
-				}
-
-				setGraphic(button);
-				button.setOnAction(event -> criaDialogoFormu(obj, "/gui/ClienteForm.fxml", Utils.atualStage(event)));
-
-			}
-
-		});
-	}
-
-	private void initRemoveButtons() {
-		tableColumnREMOVE.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
-		tableColumnREMOVE.setCellFactory(param -> new TableCell<Cliente, Cliente>() {
-			private final Button button = new Button("remove");
-
-			@Override
-			protected void updateItem(Cliente obj, boolean empty) {
-				super.updateItem(obj, empty);
-				if (obj == null) {
-					setGraphic(null);
-					return;
-				}
-				setGraphic(button);
-				button.setOnAction(event -> removeEntity(obj));
-			}
-		});
-	}
-
 	private void removeEntity(Cliente obj) {
 		Optional<ButtonType> result = Alerts.showConfirmation("Confirmao", "Tem certeza que quer deletar?");
 		
@@ -175,14 +178,9 @@ public class ClienteListController implements Initializable, DataChangeListener
 			if (service == null) {
 				throw new IllegalStateException("service estava nulo!");
 			}
-			try {
-				service.remove(obj);
-				updateTableView();
+			FxAsync.onFx(service.remove(obj), x -> {},
+					e -> Alerts.showAlert("Erro ao remover", null, e.getMessage(), AlertType.ERROR));
 		}
-			catch(DbIntegrityException e) {
-				Alerts.showAlert("Erro ao remover", null, e.getMessage(), AlertType.ERROR);
-			}
-	}
 
 	}
 }
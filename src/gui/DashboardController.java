@@ -0,0 +1,196 @@
+package gui;
+
+import java.net.URL;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+
+import gui.util.Alerts;
+import gui.util.FxAsync;
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import model.entities.PayrollTotals;
+import model.services.AsyncReportService;
+import model.services.EntityChangeListener;
+import model.services.ReportService;
+
+/**
+ * Totais da folha por cliente e por ms de incio, calculados no banco pelo
+ * {@link ReportService}. Recarrega sozinho quando o cache de relatrios 
+ * invalidado; invalidaes que chegam durante uma carga viram uma carga s
+ * depois dela.
+ */
+public class DashboardController implements Initializable {
+
+	private static final int CHART_CLIENTES = 10;
+
+	private static final DateTimeFormatter MES_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+
+	private AsyncReportService service;
+
+	@FXML
+	private Button btAtualizar;
+
+	@FXML
+	private ProgressIndicator progressIndicator;
+
+	@FXML
+	private Label labelTotal;
+
+	@FXML
+	private TableView<PayrollTotals> tableViewCliente;
+
+	@FXML
+	private TableColumn<PayrollTotals, String> tableColumnEmpresa;
+
+	@FXML
+	private TableColumn<PayrollTotals, String> tableColumnProjeto;
+
+	@FXML
+	private TableColumn<PayrollTotals, Integer> tableColumnFuncionarios;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnTotal;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnMedia;
+
+	@FXML
+	private BarChart<String, Number> chartCliente;
+
+	@FXML
+	private TableView<PayrollTotals> tableViewMes;
+
+	@FXML
+	private TableColumn<PayrollTotals, YearMonth> tableColumnMes;
+
+	@FXML
+	private TableColumn<PayrollTotals, Integer> tableColumnMesFuncionarios;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnMesTotal;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnMesMedia;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnMesMenor;
+
+	@FXML
+	private TableColumn<PayrollTotals, Double> tableColumnMesMaior;
+
+	// o publisher guarda s uma referncia fraca; este campo mantm o listener vivo
+	private final EntityChangeListener<PayrollTotals> reportListener = event -> Platform.runLater(this::reload);
+
+	private boolean loading;
+
+	private boolean stale;
+
+	public void setReportService(AsyncReportService service) {
+		this.service = service;
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		tableColumnEmpresa.setCellValueFactory(new PropertyValueFactory<>("empresa"));
+		tableColumnProjeto.setCellValueFactory(new PropertyValueFactory<>("projeto"));
+		tableColumnFuncionarios.setCellValueFactory(new PropertyValueFactory<>("funcionarios"));
+		tableColumnTotal.setCellValueFactory(new PropertyValueFactory<>("totalSalario"));
+		Utils.formatTableColumnDouble(tableColumnTotal, 2, Locale.US);
+		tableColumnMedia.setCellValueFactory(new PropertyValueFactory<>("mediaSalario"));
+		Utils.formatTableColumnDouble(tableColumnMedia, 2, Locale.US);
+
+		tableColumnMes.setCellValueFactory(new PropertyValueFactory<>("inicioMes"));
+		Utils.formatTableColumn(tableColumnMes, mes -> mes == null ? "" : MES_FORMAT.format(mes));
+		tableColumnMesFuncionarios.setCellValueFactory(new PropertyValueFactory<>("funcionarios"));
+		tableColumnMesTotal.setCellValueFactory(new PropertyValueFactory<>("totalSalario"));
+		Utils.formatTableColumnDouble(tableColumnMesTotal, 2, Locale.US);
+		tableColumnMesMedia.setCellValueFactory(new PropertyValueFactory<>("mediaSalario"));
+		Utils.formatTableColumnDouble(tableColumnMesMedia, 2, Locale.US);
+		tableColumnMesMenor.setCellValueFactory(new PropertyValueFactory<>("menorSalario"));
+		Utils.formatTableColumnDouble(tableColumnMesMenor, 2, Locale.US);
+		tableColumnMesMaior.setCellValueFactory(new PropertyValueFactory<>("maiorSalario"));
+		Utils.formatTableColumnDouble(tableColumnMesMaior, 2, Locale.US);
+
+		ReportService.getChanges().subscribe(reportListener);
+	}
+
+	@FXML
+	public void onBtAtualizarAction(ActionEvent event) {
+		ReportService.invalidate();
+	}
+
+	public void updateView() {
+		if (service == null) {
+			throw new IllegalStateException("Service estava nulo!");
+		}
+		reload();
+	}
+
+	private void reload() {
+		if (service == null) {
+			return;
+		}
+		if (loading) {
+			stale = true;
+			return;
+		}
+		loading = true;
+		stale = false;
+		progressIndicator.setVisible(true);
+
+		CompletableFuture<List<PayrollTotals>> byCliente = service.payrollByCliente();
+		CompletableFuture<List<PayrollTotals>> byMes = service.payrollByInicioMes();
+		CompletableFuture<PayrollTotals> total = service.payrollTotal();
+		FxAsync.onFx(CompletableFuture.allOf(byCliente, byMes, total), x -> {
+			finished();
+			show(byCliente.join(), byMes.join(), total.join());
+		}, error -> {
+			finished();
+			Alerts.showAlert("Erro ao carregar o painel", null, error.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	private void finished() {
+		loading = false;
+		progressIndicator.setVisible(false);
+		if (stale) {
+			reload();
+		}
+	}
+
+	private void show(List<PayrollTotals> byCliente, List<PayrollTotals> byMes, PayrollTotals total) {
+		labelTotal.setText(String.format(Locale.US, "%d funcionrios, folha %.2f, mdia %.2f",
+				total.getFuncionarios(), total.getTotalSalario(), total.getMediaSalario()));
+		tableViewCliente.getItems().setAll(byCliente);
+		tableViewMes.getItems().setAll(byMes);
+
+		List<PayrollTotals> top = new ArrayList<>(byCliente);
+		top.sort(Comparator.comparingDouble(PayrollTotals::getTotalSalario).reversed());
+		XYChart.Series<String, Number> series = new XYChart.Series<>();
+		for (PayrollTotals row : top.subList(0, Math.min(CHART_CLIENTES, top.size()))) {
+			series.getData().add(new XYChart.Data<>(row.getEmpresa() + " #" + row.getClienteId(),
+					row.getTotalSalario()));
+		}
+		chartCliente.getData().setAll(Collections.singletonList(series));
+	}
+
+}
@@ -0,0 +1,149 @@
+package gui;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.services.ClienteService;
+import model.services.FuncionarioService;
+import model.services.WriteBehindQueue;
+import model.services.WriteBehindQueue.DeadLetter;
+
+/**
+ * Lista as gravaes do write-behind que falharam em todas as tentativas e
+ * permite reenvi-las ou descart-las. Acompanha as filas enquanto est
+ * aberta.
+ */
+public class DeadLettersController implements Initializable {
+
+	/**
+	 * Uma falha junto da fila de onde veio, para reenviar ou descartar nela.
+	 */
+	private static class Row<T> {
+		final WriteBehindQueue<T> queue;
+		final DeadLetter<T> letter;
+		final String kind;
+
+		Row(WriteBehindQueue<T> queue, DeadLetter<T> letter, String kind) {
+			this.queue = queue;
+			this.letter = letter;
+			this.kind = kind;
+		}
+
+		void retry() {
+			queue.retry(letter);
+		}
+
+		void discard() {
+			queue.discard(letter);
+		}
+
+		@Override
+		public String toString() {
+			return kind + " " + letter;
+		}
+	}
+
+	@FXML
+	private Label labelStatus;
+
+	@FXML
+	private ListView<Row<?>> listFalhas;
+
+	@FXML
+	private Button btReenviar;
+
+	@FXML
+	private Button btReenviarTodas;
+
+	@FXML
+	private Button btDescartar;
+
+	// as filas guardam o listener enquanto o dilogo existir
+	private final Runnable queueListener = () -> Platform.runLater(this::reload);
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		btReenviar.disableProperty().bind(listFalhas.getSelectionModel().selectedItemProperty().isNull());
+		btDescartar.disableProperty().bind(listFalhas.getSelectionModel().selectedItemProperty().isNull());
+		for (WriteBehindQueue<?> queue : queues()) {
+			queue.addListener(queueListener);
+		}
+		reload();
+	}
+
+	/**
+	 * Para de acompanhar as filas; chamado quando o dilogo  fechado.
+	 */
+	public void dispose() {
+		for (WriteBehindQueue<?> queue : queues()) {
+			queue.removeListener(queueListener);
+		}
+	}
+
+	@FXML
+	public void onBtReenviarAction(ActionEvent event) {
+		Row<?> row = listFalhas.getSelectionModel().getSelectedItem();
+		if (row != null) {
+			row.retry();
+		}
+	}
+
+	@FXML
+	public void onBtReenviarTodasAction(ActionEvent event) {
+		for (Row<?> row : new ArrayList<>(listFalhas.getItems())) {
+			row.retry();
+		}
+	}
+
+	@FXML
+	public void onBtDescartarAction(ActionEvent event) {
+		Row<?> row = listFalhas.getSelectionModel().getSelectedItem();
+		if (row != null) {
+			row.discard();
+		}
+	}
+
+	private void reload() {
+		List<Row<?>> rows = new ArrayList<>();
+		addRows(rows, FuncionarioService.getWriteBehind(), "Funcionrio");
+		addRows(rows, ClienteService.getWriteBehind(), "Cliente");
+		listFalhas.getItems().setAll(rows);
+		labelStatus.setText(rows.isEmpty() ? "Nenhuma gravao com falha"
+				: rows.size() + " gravaes falharam em todas as tentativas");
+		btReenviarTodas.setDisable(rows.isEmpty());
+	}
+
+	private static <T> void addRows(List<Row<?>> rows, WriteBehindQueue<T> queue, String kind) {
+		if (queue == null) {
+			return;
+		}
+		for (DeadLetter<T> letter : queue.getDeadLetters()) {
+			rows.add(new Row<>(queue, letter, kind));
+		}
+	}
+
+	private static List<WriteBehindQueue<?>> queues() {
+		List<WriteBehindQueue<?>> queues = new ArrayList<>();
+		WriteBehindQueue<Funcionario> funcionarios = FuncionarioService.getWriteBehind();
+		WriteBehindQueue<Cliente> clientes = ClienteService.getWriteBehind();
+		if (funcionarios != null) {
+			queues.add(funcionarios);
+		}
+		if (clientes != null) {
+			queues.add(clientes);
+		}
+		return queues;
+	}
+
+}
@@ -0,0 +1,135 @@
+package gui;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import db.DB;
+import db.PoolMetrics;
+import db.QueryMetrics;
+import db.QueryStats;
+import gui.util.Utils;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Duration;
+
+/**
+ * Mostra os nmeros do {@link QueryMetrics} e do pool, atualizados a cada dois
+ * segundos enquanto a janela est aberta. As operaes vm ordenadas pelo
+ * tempo total gasto.
+ */
+public class DiagnosticsController implements Initializable {
+
+	private final QueryMetrics metrics = QueryMetrics.getDefault();
+
+	private final Timeline refresher = new Timeline(new KeyFrame(Duration.seconds(2), event -> refresh()));
+
+	@FXML
+	private Label labelPool;
+
+	@FXML
+	private Label labelLentas;
+
+	@FXML
+	private TableView<QueryStats> tableViewOperacoes;
+
+	@FXML
+	private TableColumn<QueryStats, String> tableColumnTipo;
+
+	@FXML
+	private TableColumn<QueryStats, String> tableColumnNome;
+
+	@FXML
+	private TableColumn<QueryStats, Long> tableColumnChamadas;
+
+	@FXML
+	private TableColumn<QueryStats, Long> tableColumnErros;
+
+	@FXML
+	private TableColumn<QueryStats, Long> tableColumnLinhas;
+
+	@FXML
+	private TableColumn<QueryStats, Double> tableColumnMedia;
+
+	@FXML
+	private TableColumn<QueryStats, Double> tableColumnP50;
+
+	@FXML
+	private TableColumn<QueryStats, Double> tableColumnP99;
+
+	@FXML
+	private TableColumn<QueryStats, Double> tableColumnMax;
+
+	@FXML
+	private Button btAtualizar;
+
+	@FXML
+	private Button btZerar;
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		tableColumnTipo.setCellValueFactory(new PropertyValueFactory<>("kind"));
+		tableColumnNome.setCellValueFactory(new PropertyValueFactory<>("name"));
+		tableColumnChamadas.setCellValueFactory(new PropertyValueFactory<>("count"));
+		tableColumnErros.setCellValueFactory(new PropertyValueFactory<>("errorCount"));
+		tableColumnLinhas.setCellValueFactory(new PropertyValueFactory<>("rowCount"));
+		tableColumnMedia.setCellValueFactory(new PropertyValueFactory<>("meanMillis"));
+		Utils.formatTableColumnDouble(tableColumnMedia, 2, Locale.US);
+		tableColumnP50.setCellValueFactory(new PropertyValueFactory<>("p50Millis"));
+		Utils.formatTableColumnDouble(tableColumnP50, 2, Locale.US);
+		tableColumnP99.setCellValueFactory(new PropertyValueFactory<>("p99Millis"));
+		Utils.formatTableColumnDouble(tableColumnP99, 2, Locale.US);
+		tableColumnMax.setCellValueFactory(new PropertyValueFactory<>("maxMillis"));
+		Utils.formatTableColumnDouble(tableColumnMax, 2, Locale.US);
+
+		refresher.setCycleCount(Animation.INDEFINITE);
+		refresher.play();
+		refresh();
+	}
+
+	/**
+	 * Para a atualizao automtica; chamado quando a janela  fechada.
+	 */
+	public void dispose() {
+		refresher.stop();
+	}
+
+	@FXML
+	public void onBtAtualizarAction(ActionEvent event) {
+		refresh();
+	}
+
+	@FXML
+	public void onBtZerarAction(ActionEvent event) {
+		metrics.reset();
+		refresh();
+	}
+
+	private void refresh() {
+		PoolMetrics pool = DB.getPoolMetrics();
+		if (pool == null) {
+			labelPool.setText("Pool ainda no iniciado");
+		}
+		else {
+			labelPool.setText(String.format(Locale.US,
+					"Pool: %d ativas, %d ociosas, espera p50 %.2f ms, p99 %.2f ms, %d timeouts, cache de statements %.0f%%",
+					pool.getActiveCount(), pool.getIdleCount(), pool.getWaitPercentileMillis(0.50),
+					pool.getWaitPercentileMillis(0.99), pool.getTimeoutCount(), pool.getStatementCacheHitRate() * 100));
+		}
+		labelLentas.setText((metrics.isEnabled() ? "" : "Medio desligada. ") + metrics.getSlowQueryCount()
+				+ " chamadas acima de " + metrics.getSlowQueryThresholdMillis() + " ms");
+		tableViewOperacoes.getItems().setAll(metrics.getOperations());
+		// os objetos so os mesmos; as clulas precisam ler os nmeros de novo
+		tableViewOperacoes.refresh();
+	}
+
+}
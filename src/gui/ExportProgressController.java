@@ -0,0 +1,76 @@
+package gui;
+
+import java.nio.file.Path;
+
+import gui.util.Alerts;
+import gui.util.FxAsync;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.Stage;
+import model.dao.FuncionarioQuery;
+import model.exceptions.ExportCancelledException;
+import model.services.ExportService;
+import model.services.ExportService.Format;
+
+public class ExportProgressController {
+
+	private ExportService service;
+
+	@FXML
+	private Label labelStatus;
+
+	@FXML
+	private ProgressBar progressBar;
+
+	@FXML
+	private Button btCancelar;
+
+	public void setExportService(ExportService service) {
+		this.service = service;
+	}
+
+	/**
+	 * Inicia a exportao em segundo plano. O dilogo mostra as linhas j
+	 * gravadas e se fecha quando ela termina.
+	 */
+	public void start(FuncionarioQuery query, Format format, Path target) {
+		if (service == null) {
+			throw new IllegalStateException("Service estava nulo!");
+		}
+		labelStatus.setText("Exportando para " + target.getFileName() + "...");
+		FxAsync.onFx(service.exportFuncionariosAsync(query, format, target,
+				rows -> Platform.runLater(() -> labelStatus.setText(rows + " linhas exportadas"))), rows -> {
+					close();
+					Alerts.showAlert("Exportao", null, rows + " linhas gravadas em " + target, AlertType.INFORMATION);
+				}, e -> {
+					close();
+					if (e instanceof ExportCancelledException) {
+						Alerts.showAlert("Exportao", null, e.getMessage(), AlertType.INFORMATION);
+					}
+					else {
+						Alerts.showAlert("Erro na exportao", null, e.getMessage(), AlertType.ERROR);
+					}
+				});
+	}
+
+	public void cancel() {
+		btCancelar.setDisable(true);
+		labelStatus.setText("Cancelando...");
+		service.cancel();
+	}
+
+	@FXML
+	public void onBtCancelarAction(ActionEvent event) {
+		cancel();
+	}
+
+	private void close() {
+		((Stage) btCancelar.getScene().getWindow()).close();
+	}
+
+}
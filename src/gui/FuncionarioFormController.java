@@ -1,25 +1,29 @@
 package gui;
 
 import java.net.URL;
-import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.Set;
+import java.util.function.Predicate;
 
-import db.DbException;
-import gui.listeners.DataChangeListener;
+import db.DbConflictException;
 import gui.util.Alerts;
+import gui.util.ConflictDialog;
 import gui.util.Constraints;
+import gui.util.DateTextFormat;
+import gui.util.DecimalTextFormat;
+import gui.util.FxAsync;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Cursor;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
@@ -28,22 +32,33 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Cliente;
 import model.entities.Funcionario;
 import model.exceptions.ValidationException;
+import model.services.AsyncClienteService;
+import model.services.AsyncFuncionarioService;
+import model.services.ChangeEvent;
 import model.services.ClienteService;
-import model.services.FuncionarioService;
+import model.services.EntityChangeListener;
+import model.services.FuncionarioValidator;
 
 public class FuncionarioFormController implements Initializable {
 
 	private Funcionario entity;
 
-	private FuncionarioService service;
+	// como o registro estava quando foi aberto; base da mesclagem num conflito
+	private Funcionario original;
 
-	private ClienteService clienteService;
+	private AsyncFuncionarioService service;
 
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
+	private AsyncClienteService clienteService;
+
+	private final FuncionarioValidator validator = new FuncionarioValidator();
+
+	// o txtSalario  lido com Double.parseDouble, ento o separador  o ponto
+	private final DecimalTextFormat salarioFormat = new DecimalTextFormat(2, Locale.US, 0);
 
 	@FXML
 	private TextField txtId;
@@ -83,19 +98,20 @@ public class FuncionarioFormController implements Initializable {
 
 	private ObservableList<Cliente> obsList;
 
+	// o publisher guarda s uma referncia fraca; este campo mantm o listener vivo
+	private final EntityChangeListener<Cliente> clienteListener = event -> Platform
+			.runLater(() -> onClienteChanged(event));
+
 	public void setFuncionario(Funcionario entity) {
 		this.entity = entity;
+		this.original = entity;
 	}
 
-	public void setServices(FuncionarioService service, ClienteService clienteService) {
+	public void setServices(AsyncFuncionarioService service, AsyncClienteService clienteService) {
 		this.service = service;
 		this.clienteService = clienteService;
 	}
 
-	public void subscribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListeners.add(listener);
-	}
-
 	@FXML
 	public void onBtSalvarAction(ActionEvent evento) {
 		if (entity == null) {
@@ -106,42 +122,87 @@ public class FuncionarioFormController implements Initializable {
 		}
 		try {
 			entity = getFormData();
-			service.saveOrUpdate(entity);
-			notifyDataChangeListeners();
-			Utils.atualStage(evento).close();
 		} catch (ValidationException e) {
 			setErrorMessages(e.getErrors());
-		} catch (DbException e) {
-			Alerts.showAlert("Erro ao salvar o cliente", null, e.getMessage(), AlertType.ERROR);
+			return;
 		}
+		Stage stage = Utils.atualStage(evento);
+		setBusy(true);
+		FxAsync.onFx(service.saveOrUpdateLater(entity), x -> {
+			setBusy(false);
+			stage.close();
+		}, e -> {
+			setBusy(false);
+			if (e instanceof DbConflictException) {
+				onConflict((DbConflictException) e);
+			}
+			else {
+				Alerts.showAlert("Erro ao salvar o cliente", null, e.getMessage(), AlertType.ERROR);
+			}
+		});
 	}
 
-	private void notifyDataChangeListeners() {
-		for (DataChangeListener listener : dataChangeListeners) {
-			listener.onDataChanged();
+	private void onConflict(DbConflictException e) {
+		if (e.isDeleted()) {
+			Alerts.showAlert("Erro ao salvar o funcionrio", null, e.getMessage(), AlertType.ERROR);
+			return;
+		}
+		ConflictDialog.Choice choice = ConflictDialog.show("Erro ao salvar o funcionrio",
+				"Recarregar descarta as suas alteraes. Mesclar mantm os campos que voc editou e traz os "
+						+ "demais do banco; confira e salve de novo.");
+		if (choice == ConflictDialog.Choice.CANCEL) {
+			return;
 		}
+		Funcionario mine = entity;
+		setBusy(true);
+		FxAsync.onFx(service.findById(e.getId()), theirs -> {
+			setBusy(false);
+			if (theirs == null) {
+				Alerts.showAlert("Erro ao salvar o funcionrio", null, "O funcionrio foi removido por outro usurio",
+						AlertType.ERROR);
+				return;
+			}
+			Funcionario base = original;
+			original = theirs;
+			entity = choice == ConflictDialog.Choice.RELOAD ? theirs : merge(base, mine, theirs);
+			updateFormData();
+		}, error -> {
+			setBusy(false);
+			Alerts.showAlert("Erro ao recarregar o funcionrio", null, error.getMessage(), AlertType.ERROR);
+		});
+	}
 
+	private static Funcionario merge(Funcionario base, Funcionario mine, Funcionario theirs) {
+		Funcionario obj = new Funcionario();
+		obj.setId(theirs.getId());
+		obj.setNome(ConflictDialog.merge(base.getNome(), mine.getNome(), theirs.getNome()));
+		obj.setEmail(ConflictDialog.merge(base.getEmail(), mine.getEmail(), theirs.getEmail()));
+		obj.setInicio(ConflictDialog.merge(base.getInicio(), mine.getInicio(), theirs.getInicio()));
+		obj.setSalario(ConflictDialog.merge(base.getSalario(), mine.getSalario(), theirs.getSalario()));
+		obj.setCliente(ConflictDialog.merge(base.getCliente(), mine.getCliente(), theirs.getCliente()));
+		obj.setVersion(theirs.getVersion());
+		return obj;
+	}
+
+	private void setBusy(boolean busy) {
+		btSalvar.setDisable(busy);
+		btSalvar.getScene().setCursor(busy ? Cursor.WAIT : Cursor.DEFAULT);
 	}
 
 	private Funcionario getFormData() {
 		Funcionario obj = new Funcionario();
 
-		ValidationException exception = new ValidationException("Erro de validao");
-
 		obj.setId(Utils.tryParseToInt(txtId.getText()));
-
-		if (txtNome.getText() == null || txtNome.getText().trim().equals("")) {
-			exception.addError("nome", "O campo no pode ser vazio!");
-		}
 		obj.setNome(txtNome.getText());
-		if (txtEmail.getText() == null || txtEmail.getText().trim().equals("")) {
-			exception.addError("email", "O Campo no pode ser vazio!");
-		}
 		obj.setEmail(txtEmail.getText());
-
-		if (exception.getErrors().size() > 0) {
-			throw exception;
+		if (diInicio.getValue() != null) {
+			obj.setInicio(Date.from(diInicio.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant()));
 		}
+		obj.setSalario(Utils.tryParseToDouble(txtSalario.getText()));
+		obj.setCliente(comboBoxCliente.getValue());
+		obj.setVersion(entity.getVersion());
+
+		validator.validate(obj);
 
 		return obj;
 	}
@@ -159,8 +220,8 @@ public class FuncionarioFormController implements Initializable {
 
 	private void initializeNodes() {
 		Constraints.setTextFieldInteger(txtId);
-		Constraints.setTextFieldMaxLength(txtNome, 70);
-		Constraints.setTextFieldMaxLength(txtEmail, 60);
+		Constraints.setTextFieldMaxLength(txtNome, FuncionarioValidator.NOME_MAX_LENGTH);
+		Constraints.setTextFieldMaxLength(txtEmail, FuncionarioValidator.EMAIL_MAX_LENGTH);
 		Constraints.setTextFieldDouble(txtSalario);
 		Utils.formatDatePicker(diInicio, "dd/MM/yyyy");
 		
@@ -174,11 +235,11 @@ public class FuncionarioFormController implements Initializable {
 		txtId.setText(String.valueOf(entity.getId()));
 		txtNome.setText(entity.getNome());
 		txtEmail.setText(entity.getEmail());
-		Locale.setDefault(Locale.US);
-		txtSalario.setText(String.format("%.2f", entity.getSalario()));
-		if (entity.getInicio() != null) {
-			diInicio.setValue(LocalDate.ofInstant(entity.getInicio().toInstant(), ZoneId.systemDefault()));
-		}
+		txtSalario.setText(salarioFormat.format(entity.getSalario()));
+		// o formulrio  reaproveitado entre aberturas, ento todo campo  reescrito
+		diInicio.setValue(entity.getInicio() == null ? null
+				: DateTextFormat.toLocalDate(entity.getInicio(), ZoneId.systemDefault()));
+		setErrorMessages(Collections.emptyMap());
 		if(entity.getCliente() == null) {
 			comboBoxCliente.getSelectionModel().selectFirst();
 		}
@@ -187,23 +248,63 @@ public class FuncionarioFormController implements Initializable {
 		}
 	}
 
+	/**
+	 * Carrega os clientes do combo. Chamado uma vez por instncia do formulrio;
+	 * depois disso o combo acompanha os eventos do {@link ClienteService}.
+	 */
 	public void loadAssociatedObjects() {
 		if (clienteService == null) {
 			throw new IllegalStateException("ClienteService est nulo!");
 		}
-		List<Cliente> list = clienteService.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		comboBoxCliente.setItems(obsList);
+		ClienteService.getChanges().subscribe(clienteListener);
+		reloadClientes();
 	}
 
-	private void setErrorMessages(Map<String, String> errors) {
-		Set<String> fields = errors.keySet();
+	private void onClienteChanged(ChangeEvent<Cliente> event) {
+		if (obsList == null) {
+			return;
+		}
+		Predicate<Cliente> sameId = c -> event.getId().equals(c.getId());
+		switch (event.getType()) {
+		case INSERTED:
+			obsList.add(event.getEntity());
+			break;
+		case UPDATED:
+			for (int i = 0; i < obsList.size(); i++) {
+				if (sameId.test(obsList.get(i))) {
+					obsList.set(i, event.getEntity());
+					break;
+				}
+			}
+			break;
+		case DELETED:
+			obsList.removeIf(sameId);
+			break;
+		default:
+			reloadClientes();
+			break;
+		}
+	}
 
-		if (fields.contains("nome")) {
-			labelErroN.setText(errors.get("nome"));
-			if (fields.contains("email")) {
-				labelErroM.setText(errors.get("email"));
+	private void reloadClientes() {
+		comboBoxCliente.setDisable(true);
+		FxAsync.onFx(clienteService.findAll(), list -> {
+			obsList = FXCollections.observableArrayList(list);
+			comboBoxCliente.setItems(obsList);
+			comboBoxCliente.setDisable(false);
+			if (comboBoxCliente.getValue() == null) {
+				comboBoxCliente.getSelectionModel().selectFirst();
 			}
+		}, e -> Alerts.showAlert("Erro ao carregar os clientes", null, e.getMessage(), AlertType.ERROR));
+	}
+
+	private void setErrorMessages(Map<String, String> errors) {
+		labelErroN.setText(errors.getOrDefault("nome", ""));
+		labelErroM.setText(errors.getOrDefault("email", ""));
+		labelErroI.setText(errors.getOrDefault("inicio", ""));
+		labelErroS.setText(errors.getOrDefault("salario", ""));
+		if (errors.containsKey("cliente")) {
+			Alerts.showAlert("Erro de validao", null, errors.get("cliente"), AlertType.ERROR);
 		}
 	}
 
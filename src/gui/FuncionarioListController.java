@@ -1,42 +1,74 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.Predicate;
 
 import application.Main;
-import db.DbIntegrityException;
-import gui.listeners.DataChangeListener;
+import db.DB;
+import gui.util.ActionButtonCell;
 import gui.util.Alerts;
+import gui.util.DecimalTextFormat;
+import gui.util.FxAsync;
+import gui.util.PagedList;
+import gui.util.SnapshotList;
 import gui.util.Utils;
-import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import gui.util.ViewRegistry.View;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
-import javafx.scene.control.TableCell;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.SortType;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.Pane;
-import javafx.stage.Modality;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.FuncionarioDao;
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
 import model.entities.Funcionario;
+import model.services.AsyncClienteService;
+import model.services.AsyncFuncionarioService;
+import model.services.ChangeEvent;
 import model.services.ClienteService;
+import model.services.EntityChangeListener;
+import model.services.FuncionarioIndex;
+import model.services.FuncionarioIndex.Column;
 import model.services.FuncionarioService;
+import model.services.ImportReport;
+import model.services.ImportReport.Rejection;
+import model.services.ImportService;
 
-public class FuncionarioListController implements Initializable, DataChangeListener {
+public class FuncionarioListController implements Initializable {
 
-	private FuncionarioService service;
+	private static final int PAGE_SIZE = 100;
+
+	private static final int MAX_RESIDENT_PAGES = 10;
+
+	private static final Duration SEARCH_DELAY = Duration.millis(300);
+
+	private static final Duration REFRESH_DELAY = Duration.millis(500);
+
+	private static final int INDEX_CACHE_ROWS = 256;
+
+	private AsyncFuncionarioService service;
 
 	@FXML
 	private TableView<Funcionario> tableViewFuncionario;
@@ -65,7 +97,32 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 	@FXML
 	private Button btNovo;
 
-	public void setFuncionarioService(FuncionarioService service) {
+	@FXML
+	private Button btImportar;
+
+	@FXML
+	private ProgressIndicator progressIndicator;
+
+	@FXML
+	private TextField txtBusca;
+
+	private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+
+	private FuncionarioQuery query = new FuncionarioQuery();
+
+	private final PauseTransition refreshDelay = new PauseTransition(REFRESH_DELAY);
+
+	// os publishers guardam s referncias fracas; estes campos mantm os listeners vivos
+	private final EntityChangeListener<Funcionario> funcionarioListener = event -> Platform
+			.runLater(() -> onFuncionarioChanged(event));
+
+	private final EntityChangeListener<Cliente> clienteListener = event -> {
+		if (event.getType() != ChangeEvent.Type.INSERTED) {
+			Platform.runLater(this::scheduleRefresh);
+		}
+	};
+
+	public void setFuncionarioService(AsyncFuncionarioService service) {
 		this.service = service;
 	}
 
@@ -76,7 +133,60 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 		criaDialogoFormu(obj, "/gui/FuncionarioForm.fxml", parentStage);
 	}
 
-	private ObservableList<Funcionario> obsList;
+	@FXML
+	public void onBtImportarAction(ActionEvent evento) {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Importar funcionrios");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv", "*.txt"));
+		File file = chooser.showOpenDialog(Utils.atualStage(evento));
+		if (file == null) {
+			return;
+		}
+		btImportar.setDisable(true);
+		FxAsync.onFx(new ImportService().importFuncionariosAsync(file.toPath(), null), report -> {
+			btImportar.setDisable(false);
+			Alerts.showAlert("Importao", null, describe(report),
+					report.getRejected() > 0 ? AlertType.WARNING : AlertType.INFORMATION);
+		}, e -> {
+			btImportar.setDisable(false);
+			Alerts.showAlert("Erro na importao", null, e.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	private static String describe(ImportReport report) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d linhas lidas, %d importadas e %d rejeitadas em %.1f s (%.0f linhas/s).",
+				report.getRead(), report.getImported(), report.getRejected(), report.getElapsedSeconds(),
+				report.getRowsPerSecond()));
+		List<Rejection> rejections = report.getRejections();
+		for (int i = 0; i < rejections.size() && i < 10; i++) {
+			sb.append("\n").append(rejections.get(i));
+		}
+		if (report.getRejected() > 10) {
+			sb.append("\n...");
+		}
+		return sb.toString();
+	}
+
+	private PagedList<Funcionario> obsList;
+
+	// com index.enabled a lista  lida inteira uma vez e ordenada e filtrada em memria
+	private final boolean indexEnabled = Boolean
+			.parseBoolean(DB.getProperties().getProperty("index.enabled", "false").trim());
+
+	private FuncionarioIndex index;
+
+	private boolean indexLoading;
+
+	// refresh pedido durante a carga do ndice: carrega de novo ao terminar
+	private boolean indexReloadPending;
+
+	// alteraes recebidas durante a carga, para aplicar no ndice novo antes de us-lo
+	private List<ChangeEvent<Funcionario>> pendingIndexEvents;
+
+	private SnapshotList<Funcionario> indexList;
+
+	private final Map<TableColumn<Funcionario, ?>, Column> sortColumns = new IdentityHashMap<>();
 
 	@Override
 	public void initialize(URL url, ResourceBundle rb) {
@@ -89,13 +199,105 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 		tableColumnNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
 		tableColumnEmail.setCellValueFactory(new PropertyValueFactory<>("email"));
 		tableColumnInicio.setCellValueFactory(new PropertyValueFactory<>("inicio"));
-		Utils.formatTableColumnDate(tableColumnInicio, "dd/MM/yyyy");
+		Utils.formatTableColumnDate(tableColumnInicio, "dd/MM/yyyy", Locale.US);
 		tableColumnSalario.setCellValueFactory(new PropertyValueFactory<>("salario"));
-		Utils.formatTableColumnDouble(tableColumnSalario, 2);
+		// o cache dos salrios cobre as linhas que a lista paginada mantm
+		Utils.formatTableColumnDouble(tableColumnSalario, 2, Locale.US,
+				DecimalTextFormat.cacheSizeFor(PAGE_SIZE * MAX_RESIDENT_PAGES));
+
+		// a lista  paginada no banco, a ordenao pela tabela no se aplica at o ndice carregar
+		tableViewFuncionario.getColumns().forEach(column -> column.setSortable(false));
+		sortColumns.put(tableColumnId, Column.ID);
+		sortColumns.put(tableColumnNome, Column.NOME);
+		sortColumns.put(tableColumnEmail, Column.EMAIL);
+		sortColumns.put(tableColumnInicio, Column.INICIO);
+		sortColumns.put(tableColumnSalario, Column.SALARIO);
+
+		ActionButtonCell.install(tableColumnEDIT, "editar",
+				(obj, event) -> criaDialogoFormu(obj, "/gui/FuncionarioForm.fxml", Utils.atualStage(event)));
+		ActionButtonCell.install(tableColumnREMOVE, "remove", (obj, event) -> removeEntity(obj));
+
+		// a busca s vai ao banco quando o usurio para de digitar
+		searchDelay.setOnFinished(event -> applySearch());
+		txtBusca.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+
+		refreshDelay.setOnFinished(event -> updateTableView());
+		FuncionarioService.getChanges().subscribe(funcionarioListener);
+		// a empresa faz parte da ordem da lista; um cliente alterado recarrega a lista
+		ClienteService.getChanges().subscribe(clienteListener);
+	}
+
+	/**
+	 * Aplica a alterao na lista sem voltar ao banco. Gravaes em lote chegam
+	 * como {@code INVALIDATED} e so agrupadas em um nico refresh.
+	 */
+	private void onFuncionarioChanged(ChangeEvent<Funcionario> event) {
+		if (pendingIndexEvents != null) {
+			pendingIndexEvents.add(event);
+		}
+		if (index != null) {
+			if (index.apply(event)) {
+				reselect();
+			}
+			else {
+				scheduleRefresh();
+			}
+			return;
+		}
+		if (obsList == null) {
+			return;
+		}
+		Funcionario obj = event.getEntity();
+		Predicate<Funcionario> sameId = row -> event.getId().equals(row.getId());
+		switch (event.getType()) {
+		case INSERTED:
+			if (query.matches(obj)) {
+				obsList.insertRow(obj);
+			}
+			break;
+		case UPDATED:
+			// a alterao pode mudar a posio da linha ou tir-la do filtro
+			if (!obsList.removeRow(sameId) && !obsList.isFullyResident()) {
+				// a linha pode estar numa pgina descartada, que guarda a contagem antiga
+				scheduleRefresh();
+			}
+			else if (query.matches(obj)) {
+				obsList.insertRow(obj);
+			}
+			break;
+		case DELETED:
+			if (!obsList.removeRow(sameId) && !obsList.isFullyResident()) {
+				scheduleRefresh();
+			}
+			break;
+		default:
+			scheduleRefresh();
+			break;
+		}
+	}
 
-		Stage stage = (Stage) Main.getMainScene().getWindow();
-		tableViewFuncionario.prefHeightProperty().bind(stage.heightProperty());
+	private void scheduleRefresh() {
+		if (obsList != null) {
+			refreshDelay.playFromStart();
+		}
+	}
 
+	private void applySearch() {
+		String text = txtBusca.getText();
+		FuncionarioQuery newQuery = new FuncionarioQuery();
+		if (text != null && text.contains("@")) {
+			newQuery.emailComecaCom(text);
+		}
+		else {
+			newQuery.nomeComecaCom(text);
+		}
+		query = newQuery;
+		if (index != null) {
+			reselect();
+		}
+		else if (obsList != null) {
+			obsList.refresh();
+		}
 	}
 
 	public void updateTableView() {
@@ -103,32 +305,107 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 			throw new IllegalStateException("Service estava nulo!");
 		}
 
-		List<Funcionario> list = service.findAll();
-		obsList = FXCollections.observableArrayList(list);
-		tableViewFuncionario.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		if (obsList == null) {
+			obsList = new PagedList<>((after, limit) -> service.findPage(query, after, limit),
+					FuncionarioDao.PAGE_ORDER, PAGE_SIZE, MAX_RESIDENT_PAGES);
+			progressIndicator.visibleProperty().bind(obsList.loadingProperty());
+			tableViewFuncionario.setItems(obsList);
+			// aqui e no no initialize, que pode rodar antes da janela existir
+			Stage stage = (Stage) Main.getMainScene().getWindow();
+			tableViewFuncionario.prefHeightProperty().bind(stage.heightProperty());
+		}
+		else if (!indexEnabled) {
+			obsList.refresh();
+		}
+		if (indexEnabled) {
+			loadIndex();
+		}
+	}
+
+	/**
+	 * Monta o ndice em segundo plano; enquanto isso a tabela continua na
+	 * lista paginada, ou no ndice anterior num refresh. O snapshot pode ter
+	 * sido lido antes de gravaes feitas durante a carga: as alteraes
+	 * recebidas nesse meio tempo so aplicadas no ndice novo antes da troca,
+	 * e um refresh pedido durante a carga faz outra carga depois dela.
+	 */
+	private void loadIndex() {
+		if (indexLoading) {
+			indexReloadPending = true;
+			return;
+		}
+		indexLoading = true;
+		indexReloadPending = false;
+		pendingIndexEvents = new ArrayList<>();
+		FxAsync.onFx(service.index(), loaded -> {
+			List<ChangeEvent<Funcionario>> events = pendingIndexEvents;
+			pendingIndexEvents = null;
+			indexLoading = false;
+			for (ChangeEvent<Funcionario> event : events) {
+				if (!loaded.apply(event)) {
+					// INVALIDATED: o ndice novo tambm pode estar desatualizado
+					indexReloadPending = true;
+				}
+			}
+			index = loaded;
+			if (indexList == null) {
+				indexList = new SnapshotList<>(INDEX_CACHE_ROWS);
+				// com o ndice a tabela rola por todos os funcionrios
+				Utils.formatTableColumnDouble(tableColumnSalario, 2, Locale.US,
+						DecimalTextFormat.cacheSizeFor(loaded.size()));
+				sortColumns.keySet().forEach(column -> column.setSortable(true));
+				tableViewFuncionario.setSortPolicy(table -> {
+					reselect();
+					return true;
+				});
+				tableViewFuncionario.setItems(indexList);
+			}
+			reselect();
+			if (indexReloadPending) {
+				loadIndex();
+			}
+		}, e -> {
+			indexLoading = false;
+			pendingIndexEvents = null;
+			// sem ndice a tela segue com a lista paginada, sem ordenar pelas colunas
+			Alerts.showAlert("Erro ao carregar o ndice", "A lista continua paginada, sem ordenao pelas colunas",
+					e.getMessage(), AlertType.ERROR);
+		});
+	}
+
+	/**
+	 * Refaz a lista pelo ndice com o filtro e a ordem atuais. Sem coluna
+	 * escolhida, a ordem  a das pginas.
+	 */
+	private void reselect() {
+		if (index == null) {
+			return;
+		}
+		Column order = Column.CLIENTE;
+		boolean ascending = true;
+		if (!tableViewFuncionario.getSortOrder().isEmpty()) {
+			TableColumn<Funcionario, ?> column = tableViewFuncionario.getSortOrder().get(0);
+			order = sortColumns.getOrDefault(column, Column.CLIENTE);
+			ascending = column.getSortType() == SortType.ASCENDING;
+		}
+		FuncionarioIndex current = index;
+		int[] rows = current.select(query, order, ascending);
+		indexList.setSource(rows.length, i -> current.get(rows[i]));
 	}
 
 	private void criaDialogoFormu(Funcionario obj, String absoluteName, Stage parentStage) {
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-			Pane pane = loader.load();
+			View<FuncionarioFormController> view = Main.getViews().get(absoluteName);
 
-			FuncionarioFormController controller = loader.getController();
+			FuncionarioFormController controller = view.getController();
+			view.initOnce(c -> {
+				c.setServices(service, new AsyncClienteService());
+				c.loadAssociatedObjects();
+			});
 			controller.setFuncionario(obj);
-			controller.setServices(new FuncionarioService(), new ClienteService());
-			controller.loadAssociatedObjects();
-			controller.subscribeDataChangeListener(this);
 			controller.updateFormData();
 
-			Stage dialogoStage = new Stage();
-			dialogoStage.setTitle("Insira os dados do funcionrio");
-			dialogoStage.setScene(new Scene(pane));
-			dialogoStage.setResizable(false);
-			dialogoStage.initOwner(parentStage);
-			dialogoStage.initModality(Modality.WINDOW_MODAL);
-			dialogoStage.showAndWait();
+			view.getDialog("Insira os dados do funcionrio", parentStage).showAndWait();
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -136,51 +413,6 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 		}
 	}
 
-	@Override
-	public void onDataChanged() {
-		updateTableView();
-
-	}
-
-	private void initEditButtons() {
-		tableColumnEDIT.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
-		tableColumnEDIT.setCellFactory(param -> new TableCell<Funcionario, Funcionario>() {
-			private final Button button = new Button("editar");
-
-			@Override
-			protected void updateItem(Funcionario obj, boolean empty) {
-				super.updateItem(obj, empty);
-				if (obj == null) {
-					setGraphic(null);
-					return;
-				}
-
-				setGraphic(button);
-				button.setOnAction(event -> criaDialogoFormu(obj, "/gui/FuncionarioForm.fxml", Utils.atualStage(event)));
-
-			}
-
-		});
-	}
-
-	private void initRemoveButtons() {
-		tableColumnREMOVE.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
-		tableColumnREMOVE.setCellFactory(param -> new TableCell<Funcionario, Funcionario>() {
-			private final Button button = new Button("remove");
-
-			@Override
-			protected void updateItem(Funcionario obj, boolean empty) {
-				super.updateItem(obj, empty);
-				if (obj == null) {
-					setGraphic(null);
-					return;
-				}
-				setGraphic(button);
-				button.setOnAction(event -> removeEntity(obj));
-			}
-		});
-	}
-
 	private void removeEntity(Funcionario obj) {
 		Optional<ButtonType> result = Alerts.showConfirmation("Confirmao", "Tem certeza que quer deletar?");
 		
@@ -188,14 +420,9 @@ public class FuncionarioListController implements Initializable, DataChangeListe
 			if (service == null) {
 				throw new IllegalStateException("service estava nulo!");
 			}
-			try {
-				service.remove(obj);
-				updateTableView();
+			FxAsync.onFx(service.remove(obj), x -> {},
+					e -> Alerts.showAlert("Erro ao remover", null, e.getMessage(), AlertType.ERROR));
 		}
-			catch(DbIntegrityException e) {
-				Alerts.showAlert("Erro ao remover", null, e.getMessage(), AlertType.ERROR);
-			}
-	}
 
 	}
 }
@@ -1,5 +1,6 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
@@ -7,17 +8,31 @@ import java.util.function.Consumer;
 
 import application.Main;
 import gui.util.Alerts;
+import gui.util.ViewRegistry.View;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import model.services.AsyncAnalyticsService;
+import model.services.AsyncClienteService;
+import model.services.AsyncFuncionarioService;
+import model.services.AsyncReportService;
 import model.services.ClienteService;
+import model.services.ExportService;
+import model.services.ExportService.Format;
 import model.services.FuncionarioService;
+import model.services.WriteBehindQueue;
 
 public class MainViewController implements Initializable {
 
@@ -30,24 +45,135 @@ public class MainViewController implements Initializable {
 	@FXML
 	private MenuItem menuItemSobre;
 
+	@FXML
+	private MenuItem menuItemExportar;
+
+	@FXML
+	private MenuItem menuItemPainel;
+
+	@FXML
+	private MenuItem menuItemAnalise;
+
+	@FXML
+	private MenuItem menuItemDiagnostico;
+
+	@FXML
+	private Menu menuGravacoes;
+
+	@FXML
+	private MenuItem menuItemFalhas;
+
+	private final Runnable deadLetterListener = () -> Platform.runLater(this::updateDeadLetterCount);
+
 	@FXML
 	private void onMenuItemFuncionarioAction() {
 		loadView("/gui/FuncionarioList.fxml", (FuncionarioListController controller) -> {
-			controller.setFuncionarioService(new FuncionarioService());
+			controller.setFuncionarioService(new AsyncFuncionarioService());
 			controller.updateTableView();
-			
 		});
 	}
 
 	@FXML
 	private void onMenuItemClienteAction() {
 		loadView("/gui/ClienteList.fxml", (ClienteListController controller) -> {
-			controller.setClienteService(new ClienteService());
+			controller.setClienteService(new AsyncClienteService());
 			controller.updateTableView();
-			
 		});
 	}
 
+	@FXML
+	private void onMenuItemPainelAction() {
+		loadView("/gui/Dashboard.fxml", (DashboardController controller) -> {
+			controller.setReportService(new AsyncReportService());
+			controller.updateView();
+		});
+	}
+
+	@FXML
+	private void onMenuItemAnaliseAction() {
+		loadView("/gui/Analytics.fxml", (AnalyticsController controller) -> {
+			controller.setAnalyticsService(new AsyncAnalyticsService());
+			controller.updateView();
+		});
+	}
+
+	@FXML
+	private void onMenuItemExportarAction() {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Exportar funcionrios");
+		chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV", "*.csv"),
+				new FileChooser.ExtensionFilter("JSON", "*.json"));
+		chooser.setInitialFileName("funcionarios.csv");
+		File file = chooser.showSaveDialog(Main.getMainScene().getWindow());
+		if (file == null) {
+			return;
+		}
+		Format format = chooser.getSelectedExtensionFilter() != null
+				&& chooser.getSelectedExtensionFilter().getDescription().equals("JSON") ? Format.JSON
+						: Format.fromFileName(file.getName());
+
+		try {
+			FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/ExportProgress.fxml"));
+			Pane pane = loader.load();
+
+			ExportProgressController controller = loader.getController();
+			controller.setExportService(new ExportService());
+
+			Stage dialogoStage = new Stage();
+			dialogoStage.setTitle("Exportao");
+			dialogoStage.setScene(new Scene(pane));
+			dialogoStage.setResizable(false);
+			dialogoStage.initOwner(Main.getMainScene().getWindow());
+			dialogoStage.initModality(Modality.WINDOW_MODAL);
+			dialogoStage.setOnCloseRequest(event -> controller.cancel());
+			dialogoStage.show();
+
+			controller.start(null, format, file.toPath());
+		}
+		catch (IOException e) {
+			Alerts.showAlert("IO Exception", "Erro ao carregar a visualizao", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
+	@FXML
+	private void onMenuItemFalhasAction() {
+		try {
+			FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/DeadLetters.fxml"));
+			Pane pane = loader.load();
+			DeadLettersController controller = loader.getController();
+
+			Stage dialogoStage = new Stage();
+			dialogoStage.setTitle("Falhas de gravao");
+			dialogoStage.setScene(new Scene(pane));
+			dialogoStage.initOwner(Main.getMainScene().getWindow());
+			dialogoStage.initModality(Modality.WINDOW_MODAL);
+			dialogoStage.setOnHidden(event -> controller.dispose());
+			dialogoStage.show();
+		}
+		catch (IOException e) {
+			Alerts.showAlert("IO Exception", "Erro ao carregar a visualizao", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
+	@FXML
+	private void onMenuItemDiagnosticoAction() {
+		try {
+			FXMLLoader loader = new FXMLLoader(getClass().getResource("/gui/Diagnostics.fxml"));
+			Pane pane = loader.load();
+			DiagnosticsController controller = loader.getController();
+
+			Stage dialogoStage = new Stage();
+			dialogoStage.setTitle("Diagnstico");
+			dialogoStage.setScene(new Scene(pane));
+			dialogoStage.initOwner(Main.getMainScene().getWindow());
+			dialogoStage.setOnHidden(event -> controller.dispose());
+			dialogoStage.show();
+		}
+		catch (IOException e) {
+			Alerts.showAlert("IO Exception", "Erro ao carregar a visualizao", e.getMessage(), AlertType.ERROR);
+		}
+	}
+
 	@FXML
 	private void onMenuItemSobreAction() {
 		loadView("/gui/About.fxml", x -> {});
@@ -55,26 +181,63 @@ public class MainViewController implements Initializable {
 
 	@Override
 	public void initialize(URL uri, ResourceBundle rb) {
+		// nada do banco aqui: o FXML carrega na thread do JavaFX, antes da janela
+		// aparecer; o menu de falhas  ligado pelo watchWriteBehind
+	}
 
+	/**
+	 * Mostra o menu de falhas se o write-behind estiver ligado e passa a
+	 * acompanhar as falhas. Cria as filas, o que l o db.properties e abre o
+	 * pool, ento roda fora da thread do JavaFX, no aquecimento do banco.
+	 */
+	public void watchWriteBehind() {
+		WriteBehindQueue<?> funcionarios = FuncionarioService.getWriteBehind();
+		WriteBehindQueue<?> clientes = ClienteService.getWriteBehind();
+		if (funcionarios == null && clientes == null) {
+			return;
+		}
+		if (funcionarios != null) {
+			funcionarios.addListener(deadLetterListener);
+		}
+		if (clientes != null) {
+			clientes.addListener(deadLetterListener);
+		}
+		Platform.runLater(() -> {
+			menuGravacoes.setVisible(true);
+			updateDeadLetterCount();
+		});
+	}
+
+	private void updateDeadLetterCount() {
+		int count = 0;
+		if (FuncionarioService.getWriteBehind() != null) {
+			count += FuncionarioService.getWriteBehind().getDeadLetters().size();
+		}
+		if (ClienteService.getWriteBehind() != null) {
+			count += ClienteService.getWriteBehind().getDeadLetters().size();
+		}
+		menuItemFalhas.setText(count == 0 ? "Falhas de gravao" : "Falhas de gravao (" + count + ")");
 	}
 
-	private synchronized <T> void loadView(String absoluteName, Consumer<T> initializingAction) {
+	/**
+	 * Mostra a view abaixo do menu. A view vem do {@link ViewRegistry}, ento s
+	 * o primeiro uso l o FXML e executa {@code initializingAction}; nas trocas
+	 * seguintes a lista continua como estava, j atualizada pelos eventos de
+	 * alterao dos services.
+	 */
+	private <T> void loadView(String absoluteName, Consumer<T> initializingAction) {
 
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-			VBox newVBox = loader.load();
+			View<T> view = Main.getViews().get(absoluteName);
 
 			Scene mainScene = Main.getMainScene();
 			VBox mainVBox = (VBox) ((ScrollPane) mainScene.getRoot()).getContent();
 
 			Node mainMenu = mainVBox.getChildren().get(0);
-			mainVBox.getChildren().clear();
-			mainVBox.getChildren().add(mainMenu);
-			mainVBox.getChildren().addAll(newVBox.getChildren());
-			
-			T controller = loader.getController();
-			initializingAction.accept(controller);
-			
+			mainVBox.getChildren().setAll(mainMenu);
+			mainVBox.getChildren().addAll(view.getChildren());
+
+			view.initOnce(initializingAction);
 		} 
 		catch (IOException e) {
 			Alerts.showAlert("IO EXception", "Erro carregando a pagina", e.getMessage(), AlertType.ERROR);
@@ -0,0 +1,47 @@
+package gui.util;
+
+import java.util.function.BiConsumer;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.event.ActionEvent;
+import javafx.scene.control.Button;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+/**
+ * Clula com um boto de ao sobre a linha, como "editar" e "remover". O
+ * boto e o handler so criados uma vez por clula; o handler l o item atual
+ * da clula no momento do clique, ento reaproveitar a clula para outra linha
+ * no aloca nada. Use {@link #install} uma vez, no {@code initialize} do
+ * controller.
+ */
+public class ActionButtonCell<S> extends TableCell<S, S> {
+
+	private final Button button;
+
+	public ActionButtonCell(String text, BiConsumer<S, ActionEvent> action) {
+		button = new Button(text);
+		button.setOnAction(event -> {
+			S item = getItem();
+			if (item != null) {
+				action.accept(item, event);
+			}
+		});
+	}
+
+	@Override
+	protected void updateItem(S item, boolean empty) {
+		super.updateItem(item, empty);
+		setGraphic(empty || item == null ? null : button);
+	}
+
+	/**
+	 * Faz a coluna mostrar o boto em cada linha, com a prpria linha como
+	 * valor da clula.
+	 */
+	public static <S> void install(TableColumn<S, S> column, String text, BiConsumer<S, ActionEvent> action) {
+		column.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue()));
+		column.setCellFactory(param -> new ActionButtonCell<>(text, action));
+	}
+
+}
@@ -0,0 +1,43 @@
+package gui.util;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonBar.ButtonData;
+import javafx.scene.control.ButtonType;
+
+/**
+ * Pergunta ao usurio o que fazer quando o registro que ele editava foi
+ * alterado por outra pessoa desde que o formulrio foi aberto.
+ */
+public class ConflictDialog {
+
+	public enum Choice {
+		RELOAD, MERGE, CANCEL
+	}
+
+	private static final ButtonType RELOAD = new ButtonType("Recarregar", ButtonData.LEFT);
+	private static final ButtonType MERGE = new ButtonType("Mesclar", ButtonData.OK_DONE);
+
+	public static Choice show(String title, String content) {
+		Alert alert = new Alert(AlertType.WARNING, content, RELOAD, MERGE, ButtonType.CANCEL);
+		alert.setTitle(title);
+		alert.setHeaderText("O registro foi alterado por outro usurio");
+		Optional<ButtonType> result = alert.showAndWait();
+		if (!result.isPresent() || result.get() == ButtonType.CANCEL) {
+			return Choice.CANCEL;
+		}
+		return result.get() == RELOAD ? Choice.RELOAD : Choice.MERGE;
+	}
+
+	/**
+	 * Mescla um campo: fica a edio do usurio se ele mudou o valor lido, e a
+	 * verso do banco caso contrrio.
+	 */
+	public static <V> V merge(V original, V mine, V theirs) {
+		return Objects.equals(mine, original) ? theirs : mine;
+	}
+
+}
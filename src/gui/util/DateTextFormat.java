@@ -0,0 +1,62 @@
+package gui.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Data no padro do {@link DateTimeFormatter}, com {@link Locale} e fuso
+ * explcitos. O formatter  imutvel e montado uma vez; com
+ * {@code cacheSize > 0} os textos ficam num {@link FormatCache} indexado pelos
+ * milissegundos da data.
+ */
+public final class DateTextFormat implements TextFormat<Date> {
+
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private final DateTimeFormatter formatter;
+	private final ZoneId zone;
+	private final FormatCache cache;
+
+	public DateTextFormat(String pattern, Locale locale) {
+		this(pattern, locale, ZoneId.systemDefault(), DEFAULT_CACHE_SIZE);
+	}
+
+	public DateTextFormat(String pattern, Locale locale, ZoneId zone, int cacheSize) {
+		this.formatter = DateTimeFormatter.ofPattern(pattern, locale);
+		this.zone = zone;
+		this.cache = cacheSize > 0 ? new FormatCache(cacheSize) : null;
+	}
+
+	@Override
+	public String format(Date value) {
+		if (value == null) {
+			return "";
+		}
+		if (cache == null) {
+			return formatter.format(toLocalDate(value, zone));
+		}
+		long key = value.getTime();
+		String text = cache.get(key);
+		if (text == null) {
+			text = formatter.format(toLocalDate(value, zone));
+			cache.put(key, text);
+		}
+		return text;
+	}
+
+	/**
+	 * Converte tambm um {@link java.sql.Date}, que vem do JDBC e no suporta
+	 * {@code toInstant()}.
+	 */
+	public static LocalDate toLocalDate(Date date, ZoneId zone) {
+		if (date instanceof java.sql.Date) {
+			return ((java.sql.Date) date).toLocalDate();
+		}
+		return LocalDate.ofInstant(Instant.ofEpochMilli(date.getTime()), zone);
+	}
+
+}
@@ -0,0 +1,78 @@
+package gui.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Nmero com uma quantidade fixa de casas decimais, sem separador de milhar,
+ * arredondado como o {@code String.format("%.2f")}. O separador decimal vem
+ * do {@link Locale} informado, sem depender do locale padro da JVM.
+ * <p>
+ * O {@link DecimalFormat}  montado uma vez no construtor. Com
+ * {@code cacheSize > 0} os textos ficam num {@link FormatCache}, e repintar
+ * valores j vistos, como ao rolar uma tabela, s deixa de alocar quando o
+ * cache tem umas oito posies por valor distinto ({@link #cacheSizeFor}); com
+ * menos, parte dos valores  formatada de novo a cada volta
+ * (DecimalTextFormatBenchmark).
+ */
+public final class DecimalTextFormat implements TextFormat<Double> {
+
+	public static final int DEFAULT_CACHE_SIZE = 4096;
+
+	public static final int MAX_CACHE_SIZE = 1 << 17;
+
+	private final DecimalFormat decimalFormat;
+	private final FormatCache cache;
+
+	public DecimalTextFormat(int decimalPlaces, Locale locale) {
+		this(decimalPlaces, locale, DEFAULT_CACHE_SIZE);
+	}
+
+	public DecimalTextFormat(int decimalPlaces, Locale locale, int cacheSize) {
+		decimalFormat = new DecimalFormat("0", DecimalFormatSymbols.getInstance(locale));
+		decimalFormat.setMinimumFractionDigits(decimalPlaces);
+		decimalFormat.setMaximumFractionDigits(decimalPlaces);
+		decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
+		cache = cacheSize > 0 ? new FormatCache(cacheSize) : null;
+	}
+
+	/**
+	 * O tamanho de cache para uma coluna que mostra at {@code values} valores
+	 * distintos, limitado a {@link #MAX_CACHE_SIZE}.
+	 */
+	public static int cacheSizeFor(int values) {
+		return (int) Math.min(MAX_CACHE_SIZE, Math.max(DEFAULT_CACHE_SIZE, 8L * values));
+	}
+
+	@Override
+	public String format(Double value) {
+		return value == null ? "" : format(value.doubleValue());
+	}
+
+	public String format(double value) {
+		if (cache == null) {
+			return formatNow(value);
+		}
+		long key = Double.doubleToLongBits(value);
+		String text = cache.get(key);
+		if (text == null) {
+			text = formatNow(value);
+			cache.put(key, text);
+		}
+		return text;
+	}
+
+	// o DecimalFormat no  thread-safe; na tabela s a thread do JavaFX chega aqui.
+	// O BigDecimal parte da representao decimal do double, como o String.format,
+	// ento 1.005 vira 1.01 e no 1.00
+	private synchronized String formatNow(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return Double.toString(value);
+		}
+		return decimalFormat.format(BigDecimal.valueOf(value));
+	}
+
+}
@@ -0,0 +1,65 @@
+package gui.util;
+
+/**
+ * Cache de textos j formatados, indexado por um {@code long} (os bits de um
+ * {@code double} ou os milissegundos de uma data).  um vetor de tamanho fixo
+ * dividido em grupos de {@value #WAYS} posies vizinhas; cada chave cai num
+ * grupo, e uma chave nova entra na primeira posio, empurra as outras uma
+ * posio para trs e descarta a ltima. A consulta no aloca e o tamanho
+ * nunca cresce; s guarda todas as chaves quando h bem menos chaves distintas
+ * que posies, ento o tamanho deve acompanhar os dados.
+ * <p>
+ * Pode ser usado por vrias threads sem sincronizao: cada posio guarda
+ * uma entrada imutvel e, numa corrida, o pior caso  formatar o mesmo valor
+ * de novo.
+ */
+final class FormatCache {
+
+	static final int WAYS = 4;
+
+	private static final class Entry {
+		final long key;
+		final String text;
+
+		Entry(long key, String text) {
+			this.key = key;
+			this.text = text;
+		}
+	}
+
+	private final Entry[] slots;
+	private final int shift;
+
+	FormatCache(int size) {
+		int capacity = Math.max(2 * WAYS, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+		this.slots = new Entry[capacity];
+		this.shift = 64 - Integer.numberOfTrailingZeros(capacity / WAYS);
+	}
+
+	String get(long key) {
+		int i = indexOf(key);
+		for (int end = i + WAYS; i < end; i++) {
+			Entry entry = slots[i];
+			if (entry == null) {
+				return null;
+			}
+			if (entry.key == key) {
+				return entry.text;
+			}
+		}
+		return null;
+	}
+
+	void put(long key, String text) {
+		int i = indexOf(key);
+		System.arraycopy(slots, i, slots, i + 1, WAYS - 1);
+		slots[i] = new Entry(key, text);
+	}
+
+	// hash de Fibonacci: os bits altos do produto dependem de todos os bits da
+	// chave, o que importa para doubles "redondos", com os bits baixos zerados
+	private int indexOf(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) * WAYS;
+	}
+
+}
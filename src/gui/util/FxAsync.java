@@ -0,0 +1,37 @@
+package gui.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+public class FxAsync {
+
+	/**
+	 * Entrega o resultado (ou o erro) do future na thread do JavaFX. Nada 
+	 * entregue se o future for cancelado antes de terminar.
+	 */
+	public static <T> void onFx(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+		future.whenComplete((value, error) -> Platform.runLater(() -> {
+			if (future.isCancelled()) {
+				return;
+			}
+			if (error == null) {
+				onSuccess.accept(value);
+			}
+			else {
+				onError.accept(unwrap(error));
+			}
+		}));
+	}
+
+	public static Throwable unwrap(Throwable e) {
+		while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e;
+	}
+
+}
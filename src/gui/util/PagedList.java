@@ -0,0 +1,384 @@
+package gui.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.Alert.AlertType;
+
+/**
+ * Lista somente leitura para {@code TableView} que busca as linhas em pginas
+ * sob demanda. Cada pgina  carregada a partir da ltima linha da pgina
+ * anterior (paginao por keyset), ento abrir a lista custa apenas a primeira
+ * pgina, independente do tamanho da tabela. A lista cresce conforme o usurio
+ * rola at o fim e as pginas distantes da posio atual so descartadas,
+ * guardando apenas a ltima linha de cada uma para recarreg-la depois.
+ * <p>
+ * As pginas chegam de forma assncrona; enquanto uma pgina descartada 
+ * recarregada as suas linhas aparecem vazias. Um {@link #refresh()} cancela as
+ * cargas ainda pendentes. Deve ser usada somente na thread do JavaFX.
+ * <p>
+ * Alteraes pontuais podem ser aplicadas sem ir ao banco com
+ * {@link #insertRow}, {@link #replaceRow} e {@link #removeRow}; elas s
+ * procuram nas pginas residentes, ento o custo no depende do tamanho da
+ * tabela. Linhas de pginas descartadas so atualizadas quando a pgina 
+ * recarregada, mas uma pgina descartada no sabe que perdeu uma linha: se
+ * {@link #removeRow} no achar a linha e {@link #isFullyResident()} for
+ * {@code false}, a lista precisa de um {@link #refresh()}.
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+
+	public interface PageLoader<T> {
+		CompletableFuture<List<T>> load(T after, int limit);
+	}
+
+	private static class Page<T> {
+		List<T> rows;
+		T last;
+		int start;
+		int count;
+		boolean loading;
+	}
+
+	private final PageLoader<T> loader;
+	private final Comparator<? super T> order;
+	private final int pageSize;
+	private final int maxResidentPages;
+
+	private final List<Page<T>> pages = new ArrayList<>();
+	private final Deque<Page<T>> resident = new ArrayDeque<>();
+	private final List<CompletableFuture<List<T>>> inFlight = new ArrayList<>();
+	private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper();
+	private Consumer<Throwable> onError = e -> Alerts.showAlert("Erro ao carregar dados", null, e.getMessage(),
+			AlertType.ERROR);
+
+	private int size;
+	private int generation;
+	private boolean complete;
+	private boolean loadingMore;
+
+	public PagedList(PageLoader<T> loader, int pageSize, int maxResidentPages) {
+		this(loader, null, pageSize, maxResidentPages);
+	}
+
+	/**
+	 * @param order a mesma ordem em que o {@code loader} devolve as linhas; 
+	 *        usada pelo {@link #insertRow} para achar a posio de uma linha nova
+	 */
+	public PagedList(PageLoader<T> loader, Comparator<? super T> order, int pageSize, int maxResidentPages) {
+		this.loader = loader;
+		this.order = order;
+		this.pageSize = pageSize;
+		this.maxResidentPages = Math.max(2, maxResidentPages);
+		refresh();
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int p = pageOf(index);
+		Page<T> page = pages.get(p);
+		if (!complete && index >= size - pageSize / 4) {
+			requestMore();
+		}
+		if (page.rows == null) {
+			reload(p);
+			return null;
+		}
+		touch(page);
+		return page.rows.get(index - page.start);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Se nenhuma pgina carregada foi descartada; s ento um {@link #removeRow}
+	 * que devolve {@code false} garante que a linha no est na lista.
+	 */
+	public boolean isFullyResident() {
+		return resident.size() == pages.size();
+	}
+
+	public ReadOnlyBooleanProperty loadingProperty() {
+		return loading.getReadOnlyProperty();
+	}
+
+	public void setOnError(Consumer<Throwable> onError) {
+		this.onError = onError;
+	}
+
+	/**
+	 * Recarrega a lista a partir do incio. O contedo atual continua visvel
+	 * at a primeira pgina nova chegar; cargas anteriores so canceladas.
+	 */
+	public void refresh() {
+		generation++;
+		for (CompletableFuture<List<T>> future : inFlight) {
+			future.cancel(false);
+		}
+		inFlight.clear();
+		loadingMore = false;
+		request(null, pageSize, rows -> {
+			int oldSize = size;
+			pages.clear();
+			resident.clear();
+			size = 0;
+			complete = false;
+			appendPage(rows);
+			beginChange();
+			if (oldSize > 0) {
+				nextRemove(0, Collections.nCopies(oldSize, (T) null));
+			}
+			if (size > 0) {
+				nextAdd(0, size);
+			}
+			endChange();
+		}, () -> {});
+	}
+
+	/**
+	 * Inclui uma linha na posio dada pela ordem da lista. Devolve
+	 * {@code false} se a lista no tem ordem ou se a linha fica depois do que
+	 * j foi carregado; nesse caso ela aparece quando o usurio rolar at l.
+	 */
+	public boolean insertRow(T row) {
+		if (order == null) {
+			return false;
+		}
+		if (pages.isEmpty()) {
+			if (!complete) {
+				return false;
+			}
+			appendPage(Collections.singletonList(row));
+			beginChange();
+			nextAdd(0, 1);
+			endChange();
+			return true;
+		}
+		for (int p = 0; p < pages.size(); p++) {
+			Page<T> page = pages.get(p);
+			boolean lastPage = p == pages.size() - 1;
+			if (order.compare(row, page.last) > 0 && !(lastPage && complete)) {
+				continue;
+			}
+			int offset = page.count;
+			if (page.rows != null) {
+				for (int i = 0; i < page.rows.size(); i++) {
+					T other = page.rows.get(i);
+					if (other != null && order.compare(row, other) < 0) {
+						offset = i;
+						break;
+					}
+				}
+				page.rows.add(offset, row);
+			}
+			// numa pgina descartada a linha entra como vazia e vem na recarga
+			page.count++;
+			if (lastPage && offset == page.count - 1) {
+				page.last = row;
+			}
+			shiftPages(p + 1, 1);
+			size++;
+			beginChange();
+			nextAdd(page.start + offset, page.start + offset + 1);
+			endChange();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Troca a primeira linha residente que atende a {@code match} por
+	 * {@code row}, na mesma posio.
+	 */
+	public boolean replaceRow(Predicate<? super T> match, T row) {
+		for (Page<T> page : resident) {
+			for (int i = 0; i < page.rows.size(); i++) {
+				T old = page.rows.get(i);
+				if (old != null && match.test(old)) {
+					page.rows.set(i, row);
+					beginChange();
+					nextSet(page.start + i, old);
+					endChange();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove a primeira linha residente que atende a {@code match}.
+	 */
+	public boolean removeRow(Predicate<? super T> match) {
+		for (Page<T> page : resident) {
+			for (int i = 0; i < page.rows.size(); i++) {
+				T old = page.rows.get(i);
+				if (old != null && match.test(old)) {
+					page.rows.remove(i);
+					page.count--;
+					int p = pages.indexOf(page);
+					shiftPages(p + 1, -1);
+					if (page.count == 0) {
+						// a ltima linha da pgina anterior continua servindo de posio
+						pages.remove(p);
+						resident.remove(page);
+					}
+					size--;
+					beginChange();
+					nextRemove(page.start + i, old);
+					endChange();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void shiftPages(int from, int delta) {
+		for (int p = from; p < pages.size(); p++) {
+			pages.get(p).start += delta;
+		}
+	}
+
+	private int pageOf(int index) {
+		int low = 0;
+		int high = pages.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (pages.get(mid).start <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private void requestMore() {
+		if (loadingMore || pages.isEmpty()) {
+			return;
+		}
+		loadingMore = true;
+		request(pages.get(pages.size() - 1).last, pageSize, rows -> {
+			loadingMore = false;
+			int from = size;
+			appendPage(rows);
+			if (size > from) {
+				beginChange();
+				nextAdd(from, size);
+				endChange();
+			}
+		}, () -> loadingMore = false);
+	}
+
+	private void reload(int p) {
+		Page<T> page = pages.get(p);
+		if (page.loading) {
+			return;
+		}
+		page.loading = true;
+		T after = p == 0 ? null : pages.get(p - 1).last;
+		request(after, page.count, loaded -> {
+			page.loading = false;
+			if (!pages.contains(page)) {
+				// a pgina ficou vazia e saiu da lista enquanto carregava
+				return;
+			}
+			List<T> rows = new ArrayList<>(loaded);
+			// linhas includas ou removidas por outros usurios no mudam o tamanho
+			// j exibido; o refresh seguinte acerta a lista
+			while (rows.size() > page.count) {
+				rows.remove(rows.size() - 1);
+			}
+			while (rows.size() < page.count) {
+				rows.add(null);
+			}
+			page.rows = rows;
+			touch(page);
+			// a posio  lida agora: incluses e remoes durante a carga deslocam a pgina
+			int from = page.start;
+			beginChange();
+			nextReplace(from, from + page.count, Collections.nCopies(page.count, (T) null));
+			endChange();
+		}, () -> page.loading = false);
+	}
+
+	private void request(T after, int limit, Consumer<List<T>> apply, Runnable onFailure) {
+		int requestGeneration = generation;
+		CompletableFuture<List<T>> future = loader.load(after, limit);
+		inFlight.add(future);
+		loading.set(true);
+		FxAsync.onFx(future, rows -> {
+			finished(future);
+			if (requestGeneration == generation) {
+				apply.accept(rows);
+			}
+		}, error -> {
+			finished(future);
+			if (requestGeneration == generation) {
+				onFailure.run();
+				onError.accept(error);
+			}
+		});
+	}
+
+	private void finished(CompletableFuture<List<T>> future) {
+		inFlight.remove(future);
+		loading.set(!inFlight.isEmpty());
+	}
+
+	private void appendPage(List<T> rows) {
+		if (rows.size() < pageSize) {
+			complete = true;
+		}
+		if (rows.isEmpty()) {
+			return;
+		}
+		Page<T> page = new Page<>();
+		page.rows = new ArrayList<>(rows);
+		page.start = size;
+		page.count = rows.size();
+		page.last = rows.get(rows.size() - 1);
+		pages.add(page);
+		size += page.count;
+		touch(page);
+	}
+
+	private void touch(Page<T> page) {
+		if (resident.peekFirst() == page) {
+			return;
+		}
+		resident.remove(page);
+		resident.addFirst(page);
+		Iterator<Page<T>> it = resident.descendingIterator();
+		while (resident.size() > maxResidentPages && it.hasNext()) {
+			Page<T> far = it.next();
+			if (far != pages.get(pages.size() - 1)) {
+				far.rows = null;
+				it.remove();
+			}
+		}
+	}
+
+}
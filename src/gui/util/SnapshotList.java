@@ -0,0 +1,86 @@
+package gui.util;
+
+import java.util.Collections;
+import java.util.function.IntFunction;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * Lista somente leitura para {@code TableView} sobre dados guardados fora de
+ * objetos, como um {@code FuncionarioSnapshot}: cada linha s  montada
+ * quando a tabela a pede. As ltimas linhas montadas ficam num cache pequeno,
+ * indexado pela posio, para que as clulas de uma mesma linha e a seleo
+ * recebam o mesmo objeto; o resto no ocupa memria.
+ * <p>
+ * {@link #setSource} troca os dados de uma vez, como um refresh. Deve ser usada
+ * somente na thread do JavaFX.
+ */
+public class SnapshotList<T> extends ObservableListBase<T> {
+
+	private final Object[] cache;
+	private final int[] cachedIndex;
+
+	private IntFunction<? extends T> rowAt;
+	private int size;
+
+	/**
+	 * @param cacheSize quantas linhas montadas guardar; algumas vezes o nmero
+	 *        de linhas visveis na tabela
+	 */
+	public SnapshotList(int cacheSize) {
+		this.cache = new Object[Math.max(1, cacheSize)];
+		this.cachedIndex = new int[cache.length];
+		clearCache();
+	}
+
+	public SnapshotList(int size, IntFunction<? extends T> rowAt, int cacheSize) {
+		this(cacheSize);
+		this.size = size;
+		this.rowAt = rowAt;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int slot = index % cache.length;
+		if (cachedIndex[slot] != index) {
+			cache[slot] = rowAt.apply(index);
+			cachedIndex[slot] = index;
+		}
+		return (T) cache[slot];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Passa a mostrar {@code size} linhas montadas por {@code rowAt}.
+	 */
+	public void setSource(int size, IntFunction<? extends T> rowAt) {
+		int oldSize = this.size;
+		this.size = size;
+		this.rowAt = rowAt;
+		clearCache();
+		beginChange();
+		if (oldSize > 0) {
+			nextRemove(0, Collections.nCopies(oldSize, (T) null));
+		}
+		if (size > 0) {
+			nextAdd(0, size);
+		}
+		endChange();
+	}
+
+	private void clearCache() {
+		for (int i = 0; i < cache.length; i++) {
+			cache[i] = null;
+			cachedIndex[i] = -1;
+		}
+	}
+
+}
@@ -0,0 +1,14 @@
+package gui.util;
+
+/**
+ * Formata um valor para exibio. As implementaes so imutveis e podem ser
+ * compartilhadas entre colunas e threads.
+ */
+public interface TextFormat<V> {
+
+	/**
+	 * @return o texto do valor, ou {@code ""} se ele for {@code null}
+	 */
+	String format(V value);
+
+}
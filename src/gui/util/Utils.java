@@ -1,6 +1,5 @@
 package gui.util;
 
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
@@ -28,41 +27,40 @@ public class Utils {
 		}
 	}
 
-	public static <T> void formatTableColumnDate(TableColumn<T, Date> tableColumn, String format) {
-		tableColumn.setCellFactory(column -> {
-			TableCell<T, Date> cell = new TableCell<T, Date>() {
-				private SimpleDateFormat sdf = new SimpleDateFormat(format);
+	public static Double tryParseToDouble(String str) {
+		try {
+			return Double.parseDouble(str);
+		} catch (NumberFormatException | NullPointerException e) {
+			return null;
+		}
+	}
 
-				@Override
-				protected void updateItem(Date item, boolean empty) {
-					super.updateItem(item, empty);
-					if (empty) {
-						setText(null);
-					} else {
-						setText(sdf.format(item));
-					}
-				}
-			};
-			return cell;
-		});
+	public static <T> void formatTableColumnDate(TableColumn<T, Date> tableColumn, String format, Locale locale) {
+		formatTableColumn(tableColumn, new DateTextFormat(format, locale));
 	}
 
-	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces) {
-		tableColumn.setCellFactory(column -> {
-			TableCell<T, Double> cell = new TableCell<T, Double>() {
+	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces,
+			Locale locale) {
+		formatTableColumn(tableColumn, new DecimalTextFormat(decimalPlaces, locale));
+	}
 
-				@Override
-				protected void updateItem(Double item, boolean empty) {
-					super.updateItem(item, empty);
-					if (empty) {
-						setText(null);
-					} else {
-						Locale.setDefault(Locale.US);
-						setText(String.format("%." + decimalPlaces + "f", item));
-					}
-				}
-			};
-			return cell;
+	public static <T> void formatTableColumnDouble(TableColumn<T, Double> tableColumn, int decimalPlaces,
+			Locale locale, int cacheSize) {
+		formatTableColumn(tableColumn, new DecimalTextFormat(decimalPlaces, locale, cacheSize));
+	}
+
+	/**
+	 * Todas as clulas da coluna compartilham o mesmo {@code format}, que 
+	 * imutvel; o {@code updateItem} s consulta o texto.
+	 */
+	public static <T, V> void formatTableColumn(TableColumn<T, V> tableColumn, TextFormat<V> format) {
+		tableColumn.setCellFactory(column -> new TableCell<T, V>() {
+
+			@Override
+			protected void updateItem(V item, boolean empty) {
+				super.updateItem(item, empty);
+				setText(empty ? null : format.format(item));
+			}
 		});
 	}
 
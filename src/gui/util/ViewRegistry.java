@@ -0,0 +1,159 @@
+package gui.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Guarda as views j carregadas, de modo que cada FXML  lido uma nica vez
+ * e trocar de tela reaproveita o controller e os ns. As views podem ser
+ * carregadas antes do uso com {@link #prewarm}, numa thread em segundo plano;
+ * por isso o {@code initialize} dos controllers no deve mexer na cena
+ * principal, e sim no primeiro uso (ver {@link View#initOnce}).
+ */
+public class ViewRegistry {
+
+	private final Map<String, CompletableFuture<View<?>>> views = new ConcurrentHashMap<>();
+
+	/**
+	 * Carrega as views numa thread daemon. Uma view pedida com {@link #get}
+	 * enquanto ainda carrega espera a carga em andamento em vez de ler o FXML
+	 * de novo. O future termina quando todas foram carregadas, e falha com o
+	 * primeiro erro se alguma no pde ser lida.
+	 */
+	public CompletableFuture<Void> prewarm(String... absoluteNames) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			Throwable error = null;
+			for (String name : absoluteNames) {
+				CompletableFuture<View<?>> created = new CompletableFuture<>();
+				if (views.putIfAbsent(name, created) == null) {
+					load(name, created);
+					if (error == null && created.isCompletedExceptionally()) {
+						error = created.handle((view, e) -> e).join();
+					}
+				}
+			}
+			if (error == null) {
+				done.complete(null);
+			}
+			else {
+				done.completeExceptionally(error);
+			}
+		}, "view-prewarm");
+		thread.setDaemon(true);
+		thread.start();
+		return done;
+	}
+
+	/**
+	 * Devolve a view, carregando-a na thread atual se ela ainda no foi pedida.
+	 * Uma carga que falhou no fica no cache; a prxima chamada tenta de novo.
+	 */
+	@SuppressWarnings("unchecked")
+	public <C> View<C> get(String absoluteName) throws IOException {
+		CompletableFuture<View<?>> created = new CompletableFuture<>();
+		CompletableFuture<View<?>> future = views.putIfAbsent(absoluteName, created);
+		if (future == null) {
+			future = created;
+			load(absoluteName, created);
+		}
+		try {
+			return (View<C>) future.join();
+		}
+		catch (CompletionException e) {
+			views.remove(absoluteName, future);
+			Throwable cause = FxAsync.unwrap(e);
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private void load(String absoluteName, CompletableFuture<View<?>> future) {
+		try {
+			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
+			Parent root = loader.load();
+			future.complete(new View<>(root, loader.getController()));
+		}
+		catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+	}
+
+	public static class View<C> {
+
+		private final Parent root;
+		private final C controller;
+		private final List<Node> children;
+		private boolean initialized;
+		private Stage dialog;
+
+		View(Parent root, C controller) {
+			this.root = root;
+			this.controller = controller;
+			this.children = Collections.unmodifiableList(new ArrayList<>(root.getChildrenUnmodifiable()));
+		}
+
+		public Parent getRoot() {
+			return root;
+		}
+
+		public C getController() {
+			return controller;
+		}
+
+		/**
+		 * Os filhos da raiz como foram carregados, para quem monta a view dentro
+		 * de outro container; continuam vlidos depois de trocados de pai.
+		 */
+		public List<Node> getChildren() {
+			return children;
+		}
+
+		/**
+		 * Executa {@code action} s no primeiro uso da view, na thread do JavaFX.
+		 */
+		public void initOnce(Consumer<C> action) {
+			if (!initialized) {
+				initialized = true;
+				action.accept(controller);
+			}
+		}
+
+		/**
+		 * Janela modal com a view, criada no primeiro uso e reaproveitada depois;
+		 * o {@code owner} s  usado na criao.
+		 */
+		public Stage getDialog(String title, Window owner) {
+			if (dialog == null) {
+				dialog = new Stage();
+				dialog.setScene(new Scene(root));
+				dialog.setResizable(false);
+				dialog.initOwner(owner);
+				dialog.initModality(Modality.WINDOW_MODAL);
+			}
+			dialog.setTitle(title);
+			return dialog;
+		}
+	}
+
+}
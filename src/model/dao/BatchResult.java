@@ -0,0 +1,70 @@
+package model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma gravao em lote: as entidades gravadas e as que falharam,
+ * cada uma com a mensagem de erro correspondente.
+ */
+public class BatchResult<T> {
+
+	private final List<T> saved = new ArrayList<>();
+	private final List<Failure<T>> failures = new ArrayList<>();
+
+	public void addSaved(T obj) {
+		saved.add(obj);
+	}
+
+	public void addFailure(T obj, String message) {
+		failures.add(new Failure<>(obj, message));
+	}
+
+	public void addAll(BatchResult<T> other) {
+		saved.addAll(other.saved);
+		failures.addAll(other.failures);
+	}
+
+	public List<T> getSaved() {
+		return Collections.unmodifiableList(saved);
+	}
+
+	public List<Failure<T>> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [saved=" + saved.size() + ", failures=" + failures.size() + "]";
+	}
+
+	public static class Failure<T> {
+
+		private final T entity;
+		private final String message;
+
+		public Failure(T entity, String message) {
+			this.entity = entity;
+			this.message = message;
+		}
+
+		public T getEntity() {
+			return entity;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "Failure [entity=" + entity + ", message=" + message + "]";
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package model.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import model.entities.ChangeLogEntry;
+
+/**
+ * Acesso ao {@code change_log}, o feed de alteraes lido pelas outras
+ * instncias da aplicao.
+ */
+public interface ChangeLogDao {
+
+	/**
+	 * Inclui uma linha; dentro de uma {@code UnitOfWork} ela  confirmada junto
+	 * com a gravao que descreve. {@code entityId}  nulo quando muitas linhas
+	 * mudaram de uma vez.
+	 */
+	void append(String entity, String type, Integer entityId, String origin);
+
+	/**
+	 * At {@code limit} linhas com {@code Seq} maior que {@code seq}, em ordem
+	 * de {@code Seq}.
+	 */
+	List<ChangeLogEntry> findAfter(long seq, int limit);
+
+	/**
+	 * As linhas com os {@code Seq} informados que j existem, em ordem de
+	 * {@code Seq}; usado para procurar os nmeros pulados.
+	 */
+	List<ChangeLogEntry> findBySeq(Collection<Long> seqs);
+
+	/**
+	 * O maior {@code Seq} gravado, ou 0 se o feed est vazio.
+	 */
+	long lastSeq();
+
+	/**
+	 * Apaga as linhas includas antes de {@code limit} e devolve quantas eram.
+	 */
+	int deleteOlderThan(Date limit);
+
+}
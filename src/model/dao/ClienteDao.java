@@ -1,15 +1,27 @@
 package model.dao;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 import model.entities.Cliente;
 
 public interface ClienteDao {
 	
+	/**
+	 * Ordem das pginas do {@link #findPage}: (Empresa, Id). Empresa  comparada
+	 * sem diferenciar maisculas, como na collation padro do MySQL.
+	 */
+	Comparator<Cliente> PAGE_ORDER = Comparator.comparing(Cliente::getEmpresa, String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(Cliente::getId);
+	
 	void insert (Cliente cli);
 	void update (Cliente cli);
+	BatchResult<Cliente> insertAll(Collection<Cliente> list);
+	BatchResult<Cliente> updateAll(Collection<Cliente> list);
 	void deleteById (Integer id);
 	Cliente findById (Integer id);
 	List<Cliente> findAll();
+	List<Cliente> findPage(Cliente after, int limit);
 
 }
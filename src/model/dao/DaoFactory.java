@@ -1,17 +1,53 @@
 package model.dao;
 
 import db.DB;
+import db.QueryMetrics;
+import model.dao.impl.CachingClienteDao;
+import model.dao.impl.ChangeLogDaoJDBC;
+import model.dao.impl.ClienteCache;
 import model.dao.impl.ClienteDaoJDBC;
 import model.dao.impl.FuncionarioDaoJDBC;
+import model.dao.impl.InstrumentedDao;
+import model.dao.impl.ReportDaoJDBC;
 
 public class DaoFactory {
 
+	private static ClienteCache clienteCache = null;
+
 	public static FuncionarioDao criaFuncionarioDao() {
-		return new FuncionarioDaoJDBC(DB.getConnection());
+		return instrument(FuncionarioDao.class, new FuncionarioDaoJDBC(DB.getConnectionProvider(),
+				DB.getIntProperty("batch.size", 500), getClienteCache(),
+				DB.getIntProperty("stream.fetchSize", Integer.MIN_VALUE)));
 
 	}
 
 	public static ClienteDao criaClienteDao() {
-		return new ClienteDaoJDBC(DB.getConnection());
+		return instrument(ClienteDao.class,
+				new CachingClienteDao(new ClienteDaoJDBC(DB.getConnectionProvider(), DB.getIntProperty("batch.size", 500)),
+						getClienteCache(), DB.getIntProperty("cache.cliente.ttlMs", 300000)));
+	}
+
+	public static ChangeLogDao criaChangeLogDao() {
+		return instrument(ChangeLogDao.class, new ChangeLogDaoJDBC(DB.getConnectionProvider()));
+	}
+
+	public static ReportDao criaReportDao() {
+		return instrument(ReportDao.class, new ReportDaoJDBC(DB.getConnectionProvider()));
+	}
+
+	/**
+	 * Mede os mtodos do DAO, a no ser que {@code metrics.enabled=false}.
+	 */
+	private static <D> D instrument(Class<D> type, D dao) {
+		QueryMetrics metrics = QueryMetrics.getDefault();
+		return metrics.isEnabled() ? InstrumentedDao.wrap(type, dao, metrics) : dao;
+	}
+
+	public static synchronized ClienteCache getClienteCache() {
+		if (clienteCache == null) {
+			clienteCache = new ClienteCache(DB.getIntProperty("cache.cliente.maxSize", 1000),
+					DB.getIntProperty("cache.cliente.ttlMs", 300000));
+		}
+		return clienteCache;
 	}
 }
@@ -1,18 +1,54 @@
 package model.dao;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import model.entities.Cliente;
 import model.entities.Funcionario;
 
 public interface FuncionarioDao {
 	
+	/**
+	 * Ordem das pginas do {@link #findPage}: (Empresa do cliente, ClienteId, Id).
+	 */
+	Comparator<Funcionario> PAGE_ORDER = Comparator
+			.comparing((Funcionario f) -> f.getCliente().getEmpresa(), String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(f -> f.getCliente().getId()).thenComparing(Funcionario::getId);
+	
 	void insert (Funcionario fun);
 	void update (Funcionario fun);
+	BatchResult<Funcionario> insertAll(Collection<Funcionario> list);
+	BatchResult<Funcionario> updateAll(Collection<Funcionario> list);
 	void deleteById (Integer id);
+	
+	/**
+	 * Passa todos os funcionrios de um cliente para outro.
+	 * 
+	 * @return quantos funcionrios foram alterados
+	 */
+	int reassignCliente(Integer fromClienteId, Integer toClienteId);
 	Funcionario findById (Integer id);
 	List<Funcionario> findAll();
 	List<Funcionario> findByCliente(Cliente cliente);
+	List<Funcionario> findPage(Funcionario after, int limit);
+	List<Funcionario> findPage(FuncionarioQuery query, Funcionario after, int limit);
+	
+	/**
+	 * Percorre os funcionrios que atendem  consulta sem carregar todos em
+	 * memria. Com {@code reuseRow} o mesmo objeto  reaproveitado a cada
+	 * linha e no deve ser guardado pela ao.
+	 */
+	void forEachFuncionario(FuncionarioQuery query, boolean reuseRow, Consumer<? super Funcionario> action);
+	
+	/**
+	 * Mesma leitura do {@link #forEachFuncionario}, como {@link Stream}. A
+	 * conexo fica aberta at o stream ser fechado ou chegar ao fim, ento use
+	 * try-with-resources.
+	 */
+	Stream<Funcionario> streamFuncionarios(FuncionarioQuery query);
 	}
 
 
@@ -0,0 +1,112 @@
+package model.dao;
+
+import java.util.Date;
+
+import model.entities.Cliente;
+import model.entities.Funcionario;
+
+/**
+ * Critrios de busca de funcionrios. Cada critrio  opcional e os que forem
+ * informados so combinados com AND em uma nica consulta parametrizada. Os
+ * limites dos intervalos so inclusivos; um limite nulo deixa o intervalo
+ * aberto daquele lado.
+ */
+public class FuncionarioQuery {
+
+	private String nomePrefix;
+	private String emailPrefix;
+	private Integer clienteId;
+	private Date inicioMin;
+	private Date inicioMax;
+	private Double salarioMin;
+	private Double salarioMax;
+
+	public FuncionarioQuery nomeComecaCom(String prefix) {
+		this.nomePrefix = blankToNull(prefix);
+		return this;
+	}
+
+	public FuncionarioQuery emailComecaCom(String prefix) {
+		this.emailPrefix = blankToNull(prefix);
+		return this;
+	}
+
+	public FuncionarioQuery doCliente(Cliente cliente) {
+		this.clienteId = cliente == null ? null : cliente.getId();
+		return this;
+	}
+
+	public FuncionarioQuery inicioEntre(Date min, Date max) {
+		this.inicioMin = min;
+		this.inicioMax = max;
+		return this;
+	}
+
+	public FuncionarioQuery salarioEntre(Double min, Double max) {
+		this.salarioMin = min;
+		this.salarioMax = max;
+		return this;
+	}
+
+	public String getNomePrefix() {
+		return nomePrefix;
+	}
+
+	public String getEmailPrefix() {
+		return emailPrefix;
+	}
+
+	public Integer getClienteId() {
+		return clienteId;
+	}
+
+	public Date getInicioMin() {
+		return inicioMin;
+	}
+
+	public Date getInicioMax() {
+		return inicioMax;
+	}
+
+	public Double getSalarioMin() {
+		return salarioMin;
+	}
+
+	public Double getSalarioMax() {
+		return salarioMax;
+	}
+
+	/**
+	 * Aplica os critrios a um funcionrio em memria, com a mesma semntica do
+	 * SQL (prefixos sem diferenciar maisculas).
+	 */
+	public boolean matches(Funcionario obj) {
+		return startsWith(obj.getNome(), nomePrefix) && startsWith(obj.getEmail(), emailPrefix)
+				&& (clienteId == null || (obj.getCliente() != null && clienteId.equals(obj.getCliente().getId())))
+				&& (inicioMin == null || (obj.getInicio() != null && !obj.getInicio().before(inicioMin)))
+				&& (inicioMax == null || (obj.getInicio() != null && !obj.getInicio().after(inicioMax)))
+				&& (salarioMin == null || (obj.getSalario() != null && obj.getSalario() >= salarioMin))
+				&& (salarioMax == null || (obj.getSalario() != null && obj.getSalario() <= salarioMax));
+	}
+
+	private static boolean startsWith(String value, String prefix) {
+		return prefix == null || (value != null && value.regionMatches(true, 0, prefix, 0, prefix.length()));
+	}
+
+	public boolean isEmpty() {
+		return nomePrefix == null && emailPrefix == null && clienteId == null && inicioMin == null
+				&& inicioMax == null && salarioMin == null && salarioMax == null;
+	}
+
+	private static String blankToNull(String str) {
+		return str == null || str.trim().isEmpty() ? null : str.trim();
+	}
+
+	@Override
+	public String toString() {
+		return "FuncionarioQuery [nomePrefix=" + nomePrefix + ", emailPrefix=" + emailPrefix + ", clienteId="
+				+ clienteId + ", inicioMin=" + inicioMin + ", inicioMax=" + inicioMax + ", salarioMin=" + salarioMin
+				+ ", salarioMax=" + salarioMax + "]";
+	}
+
+}
@@ -0,0 +1,27 @@
+package model.dao;
+
+import java.util.List;
+
+import model.entities.PayrollTotals;
+
+/**
+ * Totais da folha calculados pelo banco. S as linhas agregadas trafegam,
+ * nunca os funcionrios.
+ */
+public interface ReportDao {
+
+	/**
+	 * Um total por cliente, inclusive os sem funcionrios, na ordem
+	 * (Empresa, Id).
+	 */
+	List<PayrollTotals> payrollByCliente();
+
+	/**
+	 * Um total por ms de incio dos funcionrios, do mais antigo ao mais
+	 * recente.
+	 */
+	List<PayrollTotals> payrollByInicioMes();
+
+	PayrollTotals payrollTotal();
+
+}
@@ -0,0 +1,147 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import db.UnitOfWork;
+import model.dao.BatchResult;
+import model.dao.ClienteDao;
+import model.entities.Cliente;
+
+/**
+ * Decorador de {@link ClienteDao} que l atravs do {@link ClienteCache}.
+ * Qualquer gravao invalida as entradas afetadas e a lista completa, tambm
+ * a guardada pelos outros decoradores do mesmo cache.
+ */
+public class CachingClienteDao implements ClienteDao {
+
+	private final ClienteDao delegate;
+	private final ClienteCache cache;
+	private final long ttlMillis;
+
+	private List<Cliente> all;
+	private long allLoadedAt;
+	private long allGeneration;
+
+	public CachingClienteDao(ClienteDao delegate, ClienteCache cache, long ttlMillis) {
+		this.delegate = delegate;
+		this.cache = cache;
+		this.ttlMillis = ttlMillis;
+	}
+
+	@Override
+	public void insert(Cliente cli) {
+		delegate.insert(cli);
+		invalidateAll();
+	}
+
+	@Override
+	public void update(Cliente cli) {
+		try {
+			delegate.update(cli);
+		}
+		finally {
+			// num conflito a verso em cache tambm est velha
+			invalidate(cli.getId());
+		}
+	}
+
+	@Override
+	public BatchResult<Cliente> insertAll(Collection<Cliente> list) {
+		BatchResult<Cliente> result = delegate.insertAll(list);
+		invalidateAll();
+		return result;
+	}
+
+	@Override
+	public BatchResult<Cliente> updateAll(Collection<Cliente> list) {
+		BatchResult<Cliente> result = delegate.updateAll(list);
+		for (Cliente cli : list) {
+			invalidate(cli.getId());
+		}
+		return result;
+	}
+
+	@Override
+	public void deleteById(Integer id) {
+		delegate.deleteById(id);
+		invalidate(id);
+	}
+
+	@Override
+	public Cliente findById(Integer id) {
+		Cliente cli = cache.get(id);
+		if (cli == null) {
+			cli = delegate.findById(id);
+			if (cli != null) {
+				cli = cache.canonical(cli.getId(), cli.getEmpresa(), cli.getProjeto(), cli.getVersion());
+			}
+		}
+		return cli;
+	}
+
+	@Override
+	public List<Cliente> findAll() {
+		synchronized (this) {
+			if (all != null && allGeneration == cache.getGeneration()
+					&& (ttlMillis <= 0 || System.currentTimeMillis() - allLoadedAt <= ttlMillis)) {
+				return new ArrayList<>(all);
+			}
+		}
+		// a gerao  lida antes da consulta: uma invalidao durante ela faz a
+		// prxima chamada ler de novo
+		long generation = cache.getGeneration();
+		List<Cliente> list = canonicalize(delegate.findAll());
+		synchronized (this) {
+			all = list;
+			allLoadedAt = System.currentTimeMillis();
+			allGeneration = generation;
+		}
+		return new ArrayList<>(list);
+	}
+
+	@Override
+	public List<Cliente> findPage(Cliente after, int limit) {
+		return canonicalize(delegate.findPage(after, limit));
+	}
+
+	public ClienteCache getCache() {
+		return cache;
+	}
+
+	private List<Cliente> canonicalize(List<Cliente> list) {
+		List<Cliente> result = new ArrayList<>(list.size());
+		for (Cliente cli : list) {
+			result.add(cache.canonical(cli.getId(), cli.getEmpresa(), cli.getProjeto(), cli.getVersion()));
+		}
+		return result;
+	}
+
+	private void invalidate(Integer id) {
+		discard(id);
+		// dentro de uma UnitOfWork outra leitura pode cachear dados ainda no
+		// confirmados; descarta de novo quando a transao termina
+		if (UnitOfWork.isActive()) {
+			UnitOfWork.afterCompletion(() -> discard(id));
+		}
+	}
+
+	private synchronized void discard(Integer id) {
+		cache.invalidate(id);
+		all = null;
+	}
+
+	private void invalidateAll() {
+		discardAll();
+		if (UnitOfWork.isActive()) {
+			UnitOfWork.afterCompletion(this::discardAll);
+		}
+	}
+
+	private synchronized void discardAll() {
+		all = null;
+		cache.listChanged();
+	}
+
+}
@@ -0,0 +1,173 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import model.dao.ChangeLogDao;
+import model.entities.ChangeLogEntry;
+
+public class ChangeLogDaoJDBC implements ChangeLogDao {
+
+	private static final String INSERT_SQL = "INSERT INTO change_log (Entity, Type, EntityId, Origin) VALUES (?, ?, ?, ?)";
+
+	private static final String SELECT_SQL = "SELECT Seq, Entity, Type, EntityId, Origin, CreatedAt FROM change_log ";
+
+	private static final String FIND_AFTER_SQL = SELECT_SQL + "WHERE Seq > ? ORDER BY Seq LIMIT ?";
+
+	private static final String LAST_SEQ_SQL = "SELECT MAX(Seq) FROM change_log";
+
+	private static final String DELETE_SQL = "DELETE FROM change_log WHERE CreatedAt < ?";
+
+	private ConnectionProvider provider;
+
+	public ChangeLogDaoJDBC(ConnectionProvider provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public void append(String entity, String type, Integer entityId, String origin) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(INSERT_SQL);
+			st.setString(1, entity);
+			st.setString(2, type);
+			if (entityId == null) {
+				st.setNull(3, Types.INTEGER);
+			}
+			else {
+				st.setInt(3, entityId);
+			}
+			st.setString(4, origin);
+			st.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public List<ChangeLogEntry> findAfter(long seq, int limit) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(FIND_AFTER_SQL);
+			st.setLong(1, seq);
+			st.setInt(2, limit);
+			rs = st.executeQuery();
+			return toEntries(rs);
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public List<ChangeLogEntry> findBySeq(Collection<Long> seqs) {
+		if (seqs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		StringBuilder sql = new StringBuilder(SELECT_SQL).append("WHERE Seq IN (");
+		for (int i = 0; i < seqs.size(); i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(") ORDER BY Seq");
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(sql.toString());
+			int index = 1;
+			for (Long seq : seqs) {
+				st.setLong(index++, seq);
+			}
+			rs = st.executeQuery();
+			return toEntries(rs);
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	private static List<ChangeLogEntry> toEntries(ResultSet rs) throws SQLException {
+		List<ChangeLogEntry> list = new ArrayList<>();
+		while (rs.next()) {
+			int id = rs.getInt("EntityId");
+			Integer entityId = rs.wasNull() ? null : id;
+			list.add(new ChangeLogEntry(rs.getLong("Seq"), rs.getString("Entity"), rs.getString("Type"), entityId,
+					rs.getString("Origin"), rs.getTimestamp("CreatedAt")));
+		}
+		return list;
+	}
+
+	@Override
+	public long lastSeq() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(LAST_SEQ_SQL);
+			rs = st.executeQuery();
+			return rs.next() ? rs.getLong(1) : 0L;
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public int deleteOlderThan(Date limit) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(DELETE_SQL);
+			st.setTimestamp(1, new Timestamp(limit.getTime()));
+			return st.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeConnection(conn);
+		}
+	}
+
+}
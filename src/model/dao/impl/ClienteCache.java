@@ -0,0 +1,165 @@
+package model.dao.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.entities.Cliente;
+
+/**
+ * Cache LRU com expirao por tempo das instncias de {@link Cliente},
+ * compartilhado pelo {@link CachingClienteDao} e pelo mapeamento do
+ * {@link FuncionarioDaoJDBC}, de forma que todos os funcionrios de um mesmo
+ * cliente apontem para a mesma instncia.
+ */
+public class ClienteCache {
+
+	private static class CachedCliente {
+		final Cliente cliente;
+		final long loadedAt;
+
+		CachedCliente(Cliente cliente, long loadedAt) {
+			this.cliente = cliente;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Map<Integer, CachedCliente> entries;
+
+	// muda a cada invalidao; quem guarda listas de clientes compara com ela
+	private long generation;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public ClienteCache(int maxSize, long ttlMillis) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.entries = new LinkedHashMap<Integer, CachedCliente>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CachedCliente> eldest) {
+				if (size() > ClienteCache.this.maxSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public synchronized Cliente get(Integer id) {
+		Cliente cliente = lookup(id);
+		if (cliente == null) {
+			misses.increment();
+		}
+		else {
+			hits.increment();
+		}
+		return cliente;
+	}
+
+	public synchronized void put(Cliente cliente) {
+		entries.put(cliente.getId(), new CachedCliente(cliente, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Devolve a instncia em cache para o cliente lido do banco, ou guarda uma
+	 * nova se no houver nenhuma ou se os dados ou a verso lidos forem
+	 * diferentes.
+	 */
+	public synchronized Cliente canonical(int id, String empresa, String projeto, Integer version) {
+		Cliente cached = lookup(id);
+		if (cached != null && equalsText(cached.getEmpresa(), empresa) && equalsText(cached.getProjeto(), projeto)
+				&& Objects.equals(cached.getVersion(), version)) {
+			return cached;
+		}
+		Cliente cli = new Cliente(id, empresa, projeto);
+		cli.setVersion(version);
+		put(cli);
+		return cli;
+	}
+
+	public synchronized void invalidate(Integer id) {
+		entries.remove(id);
+		generation++;
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+		generation++;
+	}
+
+	/**
+	 * Avisa que o conjunto de clientes mudou (uma incluso) sem que os j em
+	 * cache tenham ficado velhos.
+	 */
+	public synchronized void listChanged() {
+		generation++;
+	}
+
+	/**
+	 * Contador das invalidaes. Uma lista carregada com uma gerao diferente
+	 * da atual pode estar velha, mesmo que a invalidao tenha vindo de outro
+	 * DAO ou de outra instncia da aplicao.
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	// consulta sem contar acerto nem falha: o canonical roda depois de um get
+	// que j contou, ou no mapeamento das linhas, que no  uma busca no cache
+	private Cliente lookup(Integer id) {
+		CachedCliente entry = entries.get(id);
+		if (entry == null || isExpired(entry)) {
+			if (entry != null) {
+				entries.remove(id);
+				evictions.increment();
+			}
+			return null;
+		}
+		return entry.cliente;
+	}
+
+	private boolean isExpired(CachedCliente entry) {
+		return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt > ttlMillis;
+	}
+
+	private static boolean equalsText(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	@Override
+	public String toString() {
+		return "ClienteCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + "]";
+	}
+
+}
@@ -5,30 +5,52 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import com.mysql.jdbc.Statement;
 
+import db.ConnectionProvider;
 import db.DB;
 import db.DbException;
+import model.dao.BatchResult;
 import model.dao.ClienteDao;
 import model.entities.Cliente;
 
 public class ClienteDaoJDBC implements ClienteDao {
 
-	private Connection conn;
+	private static final String INSERT_SQL = "INSERT INTO cliente " + "(Empresa, Projeto) " + "VALUES " + "(?, ?)";
 
-	public ClienteDaoJDBC(Connection conn) {
-		this.conn = conn;
+	private static final String UPDATE_SQL = "UPDATE cliente " + "SET Empresa = ?, Projeto = ?, Version = Version + 1 "
+			+ "WHERE Id = ? AND Version = COALESCE(?, Version)";
+
+	private static final String FIRST_PAGE_SQL = "SELECT * FROM cliente ORDER BY Empresa, Id LIMIT ?";
+
+	private static final String NEXT_PAGE_SQL = "SELECT * FROM cliente "
+			+ "WHERE Empresa >= ? AND (Empresa > ? OR Id > ?) "
+			+ "ORDER BY Empresa, Id LIMIT ?";
+
+	private ConnectionProvider provider;
+
+	private int batchSize;
+
+	public ClienteDaoJDBC(ConnectionProvider provider) {
+		this(provider, 500);
+	}
+
+	public ClienteDaoJDBC(ConnectionProvider provider, int batchSize) {
+		this.provider = provider;
+		this.batchSize = batchSize;
 	}
 
 	@Override
 	public void insert(Cliente cli) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
-			st = conn.prepareStatement("INSERT INTO cliente " + "(Empresa, Projeto) " + "VALUES " + "(?, ?)",
-					Statement.RETURN_GENERATED_KEYS);
+			conn = provider.getConnection();
+			st = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
 
 			st.setString(1, cli.getEmpresa());
 			st.setString(2, cli.getProjeto());
@@ -38,17 +60,17 @@ public class ClienteDaoJDBC implements ClienteDao {
 			if (linhaAfetada > 0) {
 				ResultSet rs = st.getGeneratedKeys();
 				if (rs.next()) {
-					int id = rs.getInt(1);
-					cli.setId(id);
+					Versions.assign(cli, rs.getInt(1), Cliente::getVersion, Cliente::setId, Cliente::setVersion);
 				}
 				DB.closeResultSet(rs);
 			} else {
 				throw new DbException("Erro inesperado, nenhuma linha foi afetada !");
 			}
 		} catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 
 	}
@@ -56,30 +78,60 @@ public class ClienteDaoJDBC implements ClienteDao {
 	@Override
 	public void update(Cliente cli) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
-			st = conn.prepareStatement("UPDATE cliente " + "SET Empresa = ?, Projeto = ? " + "WHERE Id = ?");
+			conn = provider.getConnection();
+			st = conn.prepareStatement(UPDATE_SQL);
 
 			st.setString(1, cli.getEmpresa());
 			st.setString(2, cli.getProjeto());
 			st.setInt(3, cli.getId());
+			Versions.bind(st, 4, cli.getVersion());
 
-			st.executeUpdate();
+			if (st.executeUpdate() == 0) {
+				throw Versions.conflict(conn, "cliente", "O cliente", cli.getId());
+			}
+			Versions.advance(cli, Cliente::getVersion, Cliente::setVersion);
 
 		} catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 
 	}
 
+	@Override
+	public BatchResult<Cliente> insertAll(Collection<Cliente> list) {
+		return new JdbcBatch<Cliente>(provider, INSERT_SQL, batchSize, (st, cli) -> {
+			st.setString(1, cli.getEmpresa());
+			st.setString(2, cli.getProjeto());
+		}, (cli, id) -> Versions.assign(cli, id, Cliente::getVersion, Cliente::setId, Cliente::setVersion))
+				.execute(list);
+	}
+
+	@Override
+	public BatchResult<Cliente> updateAll(Collection<Cliente> list) {
+		BatchResult<Cliente> result = new JdbcBatch<Cliente>(provider, UPDATE_SQL, batchSize, (st, cli) -> {
+			st.setString(1, cli.getEmpresa());
+			st.setString(2, cli.getProjeto());
+			st.setInt(3, cli.getId());
+			Versions.bind(st, 4, cli.getVersion());
+		}, null).execute(list);
+		Versions.advanceAll(result.getSaved(), Cliente::getVersion, Cliente::setVersion);
+		return result;
+	}
+
 	@Override
 	public void deleteById(Integer id) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
 
+			conn = provider.getConnection();
 			st = conn.prepareStatement("DELETE FROM cliente WHERE Id = ?");
 
 			st.setInt(1, id);
@@ -87,9 +139,10 @@ public class ClienteDaoJDBC implements ClienteDao {
 			st.executeUpdate();
 
 		} catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		} finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 
 	}
@@ -97,9 +150,11 @@ public class ClienteDaoJDBC implements ClienteDao {
 	@Override
 	public Cliente findById(Integer id) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
+			conn = provider.getConnection();
 			st = conn.prepareStatement("SELECT * FROM cliente WHERE Id = ?");
 
 			st.setInt(1, id);
@@ -111,6 +166,7 @@ public class ClienteDaoJDBC implements ClienteDao {
 				cli.setId(rs.getInt("Id"));
 				cli.setEmpresa(rs.getString("Empresa"));
 				cli.setProjeto(rs.getString("Projeto"));
+				cli.setVersion(rs.getInt("Version"));
 				return cli;
 			}
 			
@@ -118,12 +174,13 @@ public class ClienteDaoJDBC implements ClienteDao {
 			
 		} 
 		catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 			
 		} 
 		finally {
 			DB.closeStatement(st);
 			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
 		}
 
 	}
@@ -131,9 +188,11 @@ public class ClienteDaoJDBC implements ClienteDao {
 	@Override
 	public List<Cliente> findAll() {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
+			conn = provider.getConnection();
 			st = conn.prepareStatement("SELECT * FROM cliente ORDER BY Empresa");
 
 			rs = st.executeQuery();
@@ -146,6 +205,51 @@ public class ClienteDaoJDBC implements ClienteDao {
 				cli.setId(rs.getInt("Id"));
 				cli.setEmpresa(rs.getString("Empresa"));
 				cli.setProjeto(rs.getString("Projeto"));
+				cli.setVersion(rs.getInt("Version"));
+				list.add(cli);
+
+			}
+			return list;
+		}
+
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		} finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public List<Cliente> findPage(Cliente after, int limit) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			if (after == null) {
+				st = conn.prepareStatement(FIRST_PAGE_SQL);
+				st.setInt(1, limit);
+			}
+			else {
+				st = conn.prepareStatement(NEXT_PAGE_SQL);
+				st.setString(1, after.getEmpresa());
+				st.setString(2, after.getEmpresa());
+				st.setInt(3, after.getId());
+				st.setInt(4, limit);
+			}
+			rs = st.executeQuery();
+
+			List<Cliente> list = new ArrayList<>();
+
+			while (rs.next()) {
+
+				Cliente cli = new Cliente();
+				cli.setId(rs.getInt("Id"));
+				cli.setEmpresa(rs.getString("Empresa"));
+				cli.setProjeto(rs.getString("Projeto"));
+				cli.setVersion(rs.getInt("Version"));
 				list.add(cli);
 
 			}
@@ -153,10 +257,11 @@ public class ClienteDaoJDBC implements ClienteDao {
 		}
 
 		catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		} finally {
 			DB.closeStatement(st);
 			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
 		}
 	}
 
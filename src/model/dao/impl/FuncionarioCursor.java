@@ -0,0 +1,96 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+
+/**
+ * Leitura de funcionrios linha a linha, sem carregar o resultado inteiro. O
+ * statement  forward-only e somente leitura e usa o fetch size informado; no
+ * Connector/J, {@code Integer.MIN_VALUE} faz o driver entregar as linhas
+ * conforme chegam em vez de bufferizar tudo. A conexo fica presa ao cursor
+ * at o {@link #close()}, que tambm acontece sozinho ao fim das linhas.
+ * <p>
+ * Com {@code reuseRow} o mesmo objeto {@link Funcionario}  preenchido a cada
+ * linha; quem consome no pode guard-lo depois de devolver o controle.
+ */
+class FuncionarioCursor extends Spliterators.AbstractSpliterator<Funcionario> implements AutoCloseable {
+
+	private final FuncionarioDaoJDBC dao;
+	private final boolean reuseRow;
+	private final Map<Integer, Cliente> clientes = new HashMap<>();
+	private final Funcionario row = new Funcionario();
+
+	private Connection conn;
+	private PreparedStatement st;
+	private ResultSet rs;
+
+	FuncionarioCursor(FuncionarioDaoJDBC dao, ConnectionProvider provider, String sql, FuncionarioQuerySql params,
+			int fetchSize, boolean reuseRow) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.dao = dao;
+		this.reuseRow = reuseRow;
+		try {
+			conn = provider.getConnection();
+			// o prepareStatement de trs argumentos fica fora do cache de statements
+			st = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			st.setFetchSize(fetchSize);
+			params.bind(st);
+			rs = st.executeQuery();
+		}
+		catch (SQLException e) {
+			close();
+			throw new DbException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Funcionario> action) {
+		if (rs == null) {
+			return false;
+		}
+		Funcionario obj;
+		try {
+			if (!rs.next()) {
+				close();
+				return false;
+			}
+			int clienteId = rs.getInt("ClienteId");
+			Cliente cli = clientes.get(clienteId);
+			if (cli == null) {
+				cli = dao.instantiateCliente(rs);
+				clientes.put(clienteId, cli);
+			}
+			obj = dao.fillFuncionario(reuseRow ? row : new Funcionario(), rs, cli);
+		}
+		catch (SQLException e) {
+			close();
+			throw new DbException(e.getMessage(), e);
+		}
+		action.accept(obj);
+		return true;
+	}
+
+	@Override
+	public void close() {
+		DB.closeResultSet(rs);
+		DB.closeStatement(st);
+		DB.closeConnection(conn);
+		rs = null;
+		st = null;
+		conn = null;
+	}
+
+}
@@ -5,50 +5,92 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.mysql.jdbc.Statement;
 
+import db.ConnectionProvider;
 import db.DB;
 import db.DbException;
+import model.dao.BatchResult;
 import model.dao.FuncionarioDao;
+import model.dao.FuncionarioQuery;
 import model.entities.Cliente;
 import model.entities.Funcionario;
 
 public class FuncionarioDaoJDBC implements FuncionarioDao {
 
-	private Connection conn;
+	private static final String INSERT_SQL = "INSERT INTO funcionario "
+			+ "(Nome, Email, Inicio, Salario, ClienteId) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
 
-	public FuncionarioDaoJDBC(Connection conn) {
-		this.conn = conn;
+	private static final String UPDATE_SQL = "UPDATE funcionario "
+			+ "SET Nome = ?, Email = ?, Inicio = ?, Salario = ?, ClienteId = ?, Version = Version + 1 "
+			+ "WHERE Id = ? AND Version = COALESCE(?, Version)";
+
+	private static final String SELECT_JOIN_SQL = "SELECT funcionario.*,cliente.Empresa as EmpNome, cliente.Projeto as EmpProj, cliente.Version as EmpVersion "
+			+ "FROM funcionario INNER JOIN cliente "
+			+ "ON funcionario.ClienteId = cliente.Id ";
+
+	private static final String PAGE_ORDER_SQL = "ORDER BY cliente.Empresa, funcionario.ClienteId, funcionario.Id "
+			+ "LIMIT ?";
+
+	private ConnectionProvider provider;
+
+	private int batchSize;
+
+	private ClienteCache clienteCache;
+
+	private int streamFetchSize;
+
+	public FuncionarioDaoJDBC(ConnectionProvider provider) {
+		this(provider, 500);
+	}
+
+	public FuncionarioDaoJDBC(ConnectionProvider provider, int batchSize) {
+		this(provider, batchSize, null);
+	}
+
+	public FuncionarioDaoJDBC(ConnectionProvider provider, int batchSize, ClienteCache clienteCache) {
+		this(provider, batchSize, clienteCache, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * @param streamFetchSize fetch size das leituras em streaming; no MySQL,
+	 *        {@code Integer.MIN_VALUE} l linha a linha sem bufferizar o resultado
+	 */
+	public FuncionarioDaoJDBC(ConnectionProvider provider, int batchSize, ClienteCache clienteCache,
+			int streamFetchSize) {
+		this.provider = provider;
+		this.batchSize = batchSize;
+		this.clienteCache = clienteCache;
+		this.streamFetchSize = streamFetchSize;
 	}
 
 	@Override
 	public void insert(Funcionario cli) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
-			st = conn.prepareStatement(
-					"INSERT INTO funcionario "
-					+ "(Nome, Email, Inicio, Salario, ClienteId) "
-					+ "VALUES "
-					+ "(?, ?, ?, ?, ?)",
-					Statement.RETURN_GENERATED_KEYS );
+			conn = provider.getConnection();
+			st = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
 			
-			st.setString(1, cli.getNome());
-			st.setString(2, cli.getEmail());
-			st.setDate(3, new java.sql.Date(cli.getInicio().getTime()));
-			st.setDouble(4, cli.getSalario());
-			st.setInt(5, cli.getCliente().getId());
+			setParameters(st, cli);
 			
 			int linhaAfetada = st.executeUpdate();
 			
 			if (linhaAfetada > 0) {
 				ResultSet rs = st.getGeneratedKeys();
 				if(rs.next()) {
-					int id = rs.getInt(1);
-					cli.setId(id);
+					Versions.assign(cli, rs.getInt(1), Funcionario::getVersion, Funcionario::setId,
+							Funcionario::setVersion);
 				}
 				DB.closeResultSet(rs);
 			}
@@ -57,45 +99,74 @@ public class FuncionarioDaoJDBC implements FuncionarioDao {
 			}
 		}
 		catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 	}
 
 	@Override
 	public void update(Funcionario cli) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
-			st = conn.prepareStatement(
-					"UPDATE funcionario "
-					+ "SET Nome = ?, Email = ?, Inicio = ?, Salario = ?, ClienteId = ? "
-					+ "WHERE Id = ?");
+			conn = provider.getConnection();
+			st = conn.prepareStatement(UPDATE_SQL);
 			
-			st.setString(1, cli.getNome());
-			st.setString(2, cli.getEmail());
-			st.setDate(3, new java.sql.Date(cli.getInicio().getTime()));
-			st.setDouble(4, cli.getSalario());
-			st.setInt(5, cli.getCliente().getId());
+			setParameters(st, cli);
 			st.setInt(6, cli.getId());
+			Versions.bind(st, 7, cli.getVersion());
 			
-			st.executeUpdate();
-			
+			if (st.executeUpdate() == 0) {
+				throw Versions.conflict(conn, "funcionario", "O funcionrio", cli.getId());
+			}
+			Versions.advance(cli, Funcionario::getVersion, Funcionario::setVersion);
 		}
 		catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 	}
 
+	@Override
+	public BatchResult<Funcionario> insertAll(Collection<Funcionario> list) {
+		return new JdbcBatch<Funcionario>(provider, INSERT_SQL, batchSize,
+				FuncionarioDaoJDBC::setParameters,
+				(obj, id) -> Versions.assign(obj, id, Funcionario::getVersion, Funcionario::setId,
+						Funcionario::setVersion)).execute(list);
+	}
+
+	@Override
+	public BatchResult<Funcionario> updateAll(Collection<Funcionario> list) {
+		BatchResult<Funcionario> result = new JdbcBatch<Funcionario>(provider, UPDATE_SQL, batchSize, (st, obj) -> {
+			setParameters(st, obj);
+			st.setInt(6, obj.getId());
+			Versions.bind(st, 7, obj.getVersion());
+		}, null).execute(list);
+		Versions.advanceAll(result.getSaved(), Funcionario::getVersion, Funcionario::setVersion);
+		return result;
+	}
+
+	private static void setParameters(PreparedStatement st, Funcionario obj) throws SQLException {
+		st.setString(1, obj.getNome());
+		st.setString(2, obj.getEmail());
+		st.setDate(3, new java.sql.Date(obj.getInicio().getTime()));
+		st.setDouble(4, obj.getSalario());
+		st.setInt(5, obj.getCliente().getId());
+	}
+
 	@Override
 	public void deleteById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
 			
+			conn = provider.getConnection();
 			st = conn.prepareStatement("DELETE FROM funcionario WHERE Id = ?");
 			
 			st.setInt(1, id);
@@ -105,20 +176,43 @@ public class FuncionarioDaoJDBC implements FuncionarioDao {
 			
 		}
 		catch (SQLException e) {
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public int reassignCliente(Integer fromClienteId, Integer toClienteId) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement("UPDATE funcionario SET ClienteId = ?, Version = Version + 1 WHERE ClienteId = ?");
+			st.setInt(1, toClienteId);
+			st.setInt(2, fromClienteId);
+			return st.executeUpdate();
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeConnection(conn);
 		}
 	}
 
 	@Override
 	public Funcionario findById(Integer id) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
+		conn = provider.getConnection();
 		st = conn.prepareStatement(
-				"SELECT funcionario.*,Empresa as EmpNome,Projeto as EmpProj "
+				"SELECT funcionario.*,Empresa as EmpNome,Projeto as EmpProj,cliente.Version as EmpVersion "
 				+ "FROM funcionario INNER JOIN cliente "
 				+ "ON funcionario.ClienteId = cliente.Id "
 				+ "WHERE funcionario.Id = ?");
@@ -133,47 +227,45 @@ public class FuncionarioDaoJDBC implements FuncionarioDao {
 		return null;
 		}
 		catch(SQLException e){
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
 			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
 		}
 		
 	}
 
-	private Funcionario instantiateFuncionario(ResultSet rs, Cliente cli) throws SQLException {
-		Funcionario obj = new Funcionario();
+	Funcionario instantiateFuncionario(ResultSet rs, Cliente cli) throws SQLException {
+		return fillFuncionario(new Funcionario(), rs, cli);
+	}
+
+	Funcionario fillFuncionario(Funcionario obj, ResultSet rs, Cliente cli) throws SQLException {
 		obj.setId(rs.getInt("Id"));
 		obj.setNome(rs.getString("Nome"));
 		obj.setEmail(rs.getString("Email"));
 		obj.setInicio(new java.util.Date(rs.getTimestamp("iNICIO").getTime()));
 		obj.setSalario(rs.getDouble("Salario"));
+		obj.setVersion(rs.getInt("Version"));
 		obj.setCliente(cli);
 		return obj;
 	}
 
-	private Cliente instantiateCliente(ResultSet rs) throws SQLException {
+	Cliente instantiateCliente(ResultSet rs) throws SQLException {
+		if (clienteCache != null) {
+			return clienteCache.canonical(rs.getInt("ClienteId"), rs.getString("EmpNome"), rs.getString("EmpProj"),
+					rs.getInt("EmpVersion"));
+		}
 		Cliente cli = new Cliente();
 		cli.setId(rs.getInt("ClienteId"));
 		cli.setEmpresa(rs.getString("EmpNome"));
 		cli.setProjeto(rs.getString("EmpProj"));
+		cli.setVersion(rs.getInt("EmpVersion"));
 		return cli;
 	}
 
-	@Override
-	public List<Funcionario> findAll() {
-		PreparedStatement st = null;
-		ResultSet rs = null;
-		try {
-		st = conn.prepareStatement(
-				"SELECT funcionario.*,cliente.Empresa as EmpNome, cliente.Projeto as EmpProj "
-				+ "FROM funcionario INNER JOIN cliente "
-				+ "ON funcionario.ClienteId = cliente.Id "
-				+ "ORDER BY Empresa");
-		
-		rs = st.executeQuery();
-		
+	private List<Funcionario> instantiateList(ResultSet rs) throws SQLException {
 		List<Funcionario> list = new ArrayList<>();
 		Map<Integer, Cliente> map = new HashMap<>();
 		
@@ -190,23 +282,44 @@ public class FuncionarioDaoJDBC implements FuncionarioDao {
 			list.add(obj);
 		}
 		return list;
+	}
+
+	@Override
+	public List<Funcionario> findAll() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+		conn = provider.getConnection();
+		st = conn.prepareStatement(
+				"SELECT funcionario.*,cliente.Empresa as EmpNome, cliente.Projeto as EmpProj, cliente.Version as EmpVersion "
+				+ "FROM funcionario INNER JOIN cliente "
+				+ "ON funcionario.ClienteId = cliente.Id "
+				+ "ORDER BY Empresa");
+		
+		rs = st.executeQuery();
+		
+		return instantiateList(rs);
 		}
 		catch(SQLException e){
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
 			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
 		}
 	}
 
 	@Override
 		public List<Funcionario> findByCliente(Cliente cliente) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
+		conn = provider.getConnection();
 		st = conn.prepareStatement(
-				"SELECT funcionario.*,cliente.Empresa as EmpNome, cliente.Projeto as EmpProj "
+				"SELECT funcionario.*,cliente.Empresa as EmpNome, cliente.Projeto as EmpProj, cliente.Version as EmpVersion "
 				+ "FROM funcionario INNER JOIN cliente "
 				+ "ON funcionario.ClienteId = cliente.Id "
 				+ "WHERE ClienteId = ? "
@@ -216,30 +329,65 @@ public class FuncionarioDaoJDBC implements FuncionarioDao {
 		
 		rs = st.executeQuery();
 		
-		List<Funcionario> list = new ArrayList<>();
-		Map<Integer, Cliente> map = new HashMap<>();
-		
-		while(rs.next()) {
-			
-			Cliente cli = map.get(rs.getInt("ClienteId"));
-			
-			if(cli == null) {
-				cli = instantiateCliente(rs);
-				map.put(rs.getInt("ClienteId"), cli);
-			}
-			
-			Funcionario obj = instantiateFuncionario(rs, cli);
-			list.add(obj);
-		}
-		return list;
+		return instantiateList(rs);
 		}
 		catch(SQLException e){
-			throw new DbException(e.getMessage());
+			throw new DbException(e.getMessage(), e);
 		}
 		finally {
 			DB.closeStatement(st);
 			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
 		}
 		
 	}
+
+	@Override
+	public List<Funcionario> findPage(Funcionario after, int limit) {
+		return findPage(null, after, limit);
+	}
+
+	@Override
+	public List<Funcionario> findPage(FuncionarioQuery query, Funcionario after, int limit) {
+		FuncionarioQuerySql sql = new FuncionarioQuerySql(query);
+		if (after != null) {
+			sql.after(after);
+		}
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(sql.toSql(SELECT_JOIN_SQL, PAGE_ORDER_SQL));
+			st.setInt(sql.bind(st), limit);
+			rs = st.executeQuery();
+			return instantiateList(rs);
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public void forEachFuncionario(FuncionarioQuery query, boolean reuseRow, Consumer<? super Funcionario> action) {
+		try (FuncionarioCursor cursor = openCursor(query, reuseRow)) {
+			cursor.forEachRemaining(action);
+		}
+	}
+
+	@Override
+	public Stream<Funcionario> streamFuncionarios(FuncionarioQuery query) {
+		FuncionarioCursor cursor = openCursor(query, false);
+		return StreamSupport.stream(cursor, false).onClose(cursor::close);
+	}
+
+	private FuncionarioCursor openCursor(FuncionarioQuery query, boolean reuseRow) {
+		FuncionarioQuerySql sql = new FuncionarioQuerySql(query);
+		return new FuncionarioCursor(this, provider, sql.toSql(SELECT_JOIN_SQL, ""), sql, streamFetchSize, reuseRow);
+	}
 }
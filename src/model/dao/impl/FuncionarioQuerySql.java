@@ -0,0 +1,116 @@
+package model.dao.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.dao.FuncionarioQuery;
+import model.entities.Funcionario;
+
+/**
+ * Monta a clusula WHERE de uma {@link FuncionarioQuery}, com a posio da
+ * paginao por keyset quando houver, e guarda os parmetros na ordem em que
+ * aparecem. Critrios ausentes no entram no SQL, ento cada combinao de
+ * filtros gera um texto prprio e estvel, que o cache de statements do pool
+ * reaproveita. Os ndices de cada caminho esto em {@code sql/indexes.sql}.
+ */
+class FuncionarioQuerySql {
+
+	private static final char LIKE_ESCAPE = '!';
+
+	private final List<String> conditions = new ArrayList<>();
+	private final List<Object> params = new ArrayList<>();
+
+	FuncionarioQuerySql(FuncionarioQuery query) {
+		if (query == null) {
+			return;
+		}
+		if (query.getNomePrefix() != null) {
+			add("funcionario.Nome LIKE ? ESCAPE '" + LIKE_ESCAPE + "'", likePrefix(query.getNomePrefix()));
+		}
+		if (query.getEmailPrefix() != null) {
+			add("funcionario.Email LIKE ? ESCAPE '" + LIKE_ESCAPE + "'", likePrefix(query.getEmailPrefix()));
+		}
+		if (query.getClienteId() != null) {
+			add("funcionario.ClienteId = ?", query.getClienteId());
+		}
+		if (query.getInicioMin() != null) {
+			add("funcionario.Inicio >= ?", new java.sql.Date(query.getInicioMin().getTime()));
+		}
+		if (query.getInicioMax() != null) {
+			add("funcionario.Inicio <= ?", new java.sql.Date(query.getInicioMax().getTime()));
+		}
+		if (query.getSalarioMin() != null) {
+			add("funcionario.Salario >= ?", query.getSalarioMin());
+		}
+		if (query.getSalarioMax() != null) {
+			add("funcionario.Salario <= ?", query.getSalarioMax());
+		}
+	}
+
+	/**
+	 * Restringe s linhas depois de {@code after} na ordem
+	 * (cliente.Empresa, funcionario.ClienteId, funcionario.Id).
+	 */
+	void after(Funcionario after) {
+		String empresa = after.getCliente().getEmpresa();
+		int clienteId = after.getCliente().getId();
+		conditions.add("cliente.Empresa >= ? AND (cliente.Empresa > ? OR (funcionario.ClienteId > ? "
+				+ "OR (funcionario.ClienteId = ? AND funcionario.Id > ?)))");
+		params.add(empresa);
+		params.add(empresa);
+		params.add(clienteId);
+		params.add(clienteId);
+		params.add(after.getId());
+	}
+
+	String toSql(String select, String suffix) {
+		if (conditions.isEmpty()) {
+			return select + suffix;
+		}
+		return select + "WHERE " + String.join(" AND ", conditions) + " " + suffix;
+	}
+
+	/**
+	 * Preenche os parmetros do WHERE e devolve o ndice do prximo parmetro
+	 * livre.
+	 */
+	int bind(PreparedStatement st) throws SQLException {
+		int i = 1;
+		for (Object param : params) {
+			if (param instanceof String) {
+				st.setString(i, (String) param);
+			}
+			else if (param instanceof Integer) {
+				st.setInt(i, (Integer) param);
+			}
+			else if (param instanceof Double) {
+				st.setDouble(i, (Double) param);
+			}
+			else {
+				st.setDate(i, (java.sql.Date) param);
+			}
+			i++;
+		}
+		return i;
+	}
+
+	private void add(String condition, Object param) {
+		conditions.add(condition);
+		params.add(param);
+	}
+
+	private static String likePrefix(String prefix) {
+		StringBuilder sb = new StringBuilder(prefix.length() + 1);
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+			if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+				sb.append(LIKE_ESCAPE);
+			}
+			sb.append(c);
+		}
+		return sb.append('%').toString();
+	}
+
+}
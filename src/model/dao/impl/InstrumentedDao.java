@@ -0,0 +1,96 @@
+package model.dao.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.BaseStream;
+
+import db.QueryMetrics;
+import db.QueryStats;
+import model.dao.BatchResult;
+
+/**
+ * Proxy de uma interface de DAO que mede cada mtodo no {@link QueryMetrics}:
+ * tempo, linhas devolvidas e erros. O {@link QueryStats} de cada mtodo 
+ * resolvido na criao, ento a chamada no consulta mapa nenhum.
+ * <p>
+ * Mtodos que devolvem {@code Stream} ou cursor medem s a abertura; a leitura
+ * aparece no SQL correspondente.
+ */
+public class InstrumentedDao implements InvocationHandler {
+
+	private final Object target;
+	private final QueryMetrics metrics;
+	private final Map<Method, QueryStats> stats = new HashMap<>();
+
+	private InstrumentedDao(Class<?> type, Object target, QueryMetrics metrics) {
+		this.target = target;
+		this.metrics = metrics;
+		for (Method method : type.getMethods()) {
+			if (method.getDeclaringClass() != Object.class) {
+				stats.put(method, metrics.dao(type.getSimpleName() + "." + method.getName()));
+			}
+		}
+	}
+
+	public static <D> D wrap(Class<D> type, D target, QueryMetrics metrics) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				new InstrumentedDao(type, target, metrics)));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		QueryStats methodStats = stats.get(method);
+		if (methodStats == null) {
+			switch (method.getName()) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				return call(method, args);
+			}
+		}
+		if (!metrics.isEnabled()) {
+			return call(method, args);
+		}
+		long start = System.nanoTime();
+		Object result = null;
+		boolean error = true;
+		try {
+			result = call(method, args);
+			error = false;
+			return result;
+		}
+		finally {
+			metrics.record(methodStats, System.nanoTime() - start, rowsOf(method, result), error);
+		}
+	}
+
+	private Object call(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static long rowsOf(Method method, Object result) {
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof BatchResult) {
+			return ((BatchResult<?>) result).getSaved().size();
+		}
+		if (result == null || result instanceof BaseStream || method.getReturnType().isPrimitive()) {
+			return 0;
+		}
+		return 1;
+	}
+
+}
@@ -0,0 +1,198 @@
+package model.dao.impl;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import model.dao.BatchResult;
+
+/**
+ * Execuo em lote compartilhada pelos DAOs JDBC. As linhas so enviadas em
+ * blocos de {@code chunkSize} dentro de uma nica transao. Se um bloco
+ * falha, ele  desfeito at o savepoint e reenviado linha a linha, de modo
+ * que s as linhas com problema ficam de fora.
+ */
+class JdbcBatch<T> {
+
+	// num UPDATE com verso, a linha mudou ou sumiu desde a leitura
+	private static final String NO_ROWS_MESSAGE = "Nenhuma linha foi afetada; o registro foi alterado ou removido por outro usurio";
+
+	interface Binder<T> {
+		void bind(PreparedStatement st, T obj) throws SQLException;
+	}
+
+	interface IdSetter<T> {
+		void setId(T obj, int id);
+	}
+
+	private final ConnectionProvider provider;
+	private final String sql;
+	private final int chunkSize;
+	private final Binder<T> binder;
+	private final IdSetter<T> idSetter;
+
+	JdbcBatch(ConnectionProvider provider, String sql, int chunkSize, Binder<T> binder, IdSetter<T> idSetter) {
+		this.provider = provider;
+		this.sql = sql;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.binder = binder;
+		this.idSetter = idSetter;
+	}
+
+	BatchResult<T> execute(Collection<T> items) {
+		BatchResult<T> result = new BatchResult<>();
+		if (items.isEmpty()) {
+			return result;
+		}
+		Connection conn = null;
+		PreparedStatement st = null;
+		try {
+			conn = provider.getConnection();
+			boolean ownTransaction = conn.getAutoCommit();
+			if (ownTransaction) {
+				conn.setAutoCommit(false);
+			}
+			try {
+				st = idSetter != null ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+						: conn.prepareStatement(sql);
+
+				List<T> chunk = new ArrayList<>(Math.min(chunkSize, items.size()));
+				for (T obj : items) {
+					chunk.add(obj);
+					if (chunk.size() == chunkSize) {
+						executeChunk(conn, st, chunk, result);
+						chunk.clear();
+					}
+				}
+				if (!chunk.isEmpty()) {
+					executeChunk(conn, st, chunk, result);
+				}
+				if (ownTransaction) {
+					conn.commit();
+				}
+			}
+			catch (SQLException | RuntimeException e) {
+				if (ownTransaction) {
+					conn.rollback();
+				}
+				throw e;
+			}
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeConnection(conn);
+		}
+		return result;
+	}
+
+	private void executeChunk(Connection conn, PreparedStatement st, List<T> chunk, BatchResult<T> result)
+			throws SQLException {
+		List<T> bound = new ArrayList<>(chunk.size());
+		for (T obj : chunk) {
+			try {
+				binder.bind(st, obj);
+				st.addBatch();
+				bound.add(obj);
+			}
+			catch (RuntimeException e) {
+				result.addFailure(obj, messageOf(e));
+			}
+		}
+		if (bound.isEmpty()) {
+			return;
+		}
+
+		Savepoint savepoint = conn.setSavepoint();
+		try {
+			int[] counts = st.executeBatch();
+			assignKeys(st, bound);
+			for (int i = 0; i < bound.size(); i++) {
+				if (i < counts.length && (counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED)) {
+					result.addFailure(bound.get(i), NO_ROWS_MESSAGE);
+				}
+				else {
+					result.addSaved(bound.get(i));
+				}
+			}
+			conn.releaseSavepoint(savepoint);
+		}
+		catch (BatchUpdateException e) {
+			conn.rollback(savepoint);
+			st.clearBatch();
+			executeOneByOne(conn, st, bound, result);
+		}
+	}
+
+	private void executeOneByOne(Connection conn, PreparedStatement st, List<T> rows, BatchResult<T> result)
+			throws SQLException {
+		for (T obj : rows) {
+			Savepoint savepoint = conn.setSavepoint();
+			try {
+				binder.bind(st, obj);
+				if (st.executeUpdate() > 0) {
+					assignKeys(st, obj);
+					result.addSaved(obj);
+				}
+				else {
+					result.addFailure(obj, NO_ROWS_MESSAGE);
+				}
+				conn.releaseSavepoint(savepoint);
+			}
+			catch (SQLException e) {
+				conn.rollback(savepoint);
+				result.addFailure(obj, e.getMessage());
+			}
+		}
+	}
+
+	private void assignKeys(PreparedStatement st, List<T> rows) throws SQLException {
+		if (idSetter == null) {
+			return;
+		}
+		ResultSet rs = st.getGeneratedKeys();
+		try {
+			for (T obj : rows) {
+				if (!rs.next()) {
+					break;
+				}
+				idSetter.setId(obj, rs.getInt(1));
+			}
+		}
+		finally {
+			DB.closeResultSet(rs);
+		}
+	}
+
+	private void assignKeys(PreparedStatement st, T obj) throws SQLException {
+		if (idSetter == null) {
+			return;
+		}
+		ResultSet rs = st.getGeneratedKeys();
+		try {
+			if (rs.next()) {
+				idSetter.setId(obj, rs.getInt(1));
+			}
+		}
+		finally {
+			DB.closeResultSet(rs);
+		}
+	}
+
+	private static String messageOf(Exception e) {
+		return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+	}
+
+}
@@ -0,0 +1,132 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import db.ConnectionProvider;
+import db.DB;
+import db.DbException;
+import model.dao.ReportDao;
+import model.entities.PayrollTotals;
+
+public class ReportDaoJDBC implements ReportDao {
+
+	private static final String AGGREGATES = "COUNT(*) AS Funcionarios, SUM(Salario) AS Total, "
+			+ "AVG(Salario) AS Media, MIN(Salario) AS Menor, MAX(Salario) AS Maior";
+
+	// agrega funcionario antes do join para usar idx_funcionario_cliente_salario sem ler as linhas
+	private static final String BY_CLIENTE_SQL = "SELECT cliente.Id, cliente.Empresa, cliente.Projeto, "
+			+ "t.Funcionarios, t.Total, t.Media, t.Menor, t.Maior "
+			+ "FROM cliente LEFT JOIN "
+			+ "(SELECT ClienteId, " + AGGREGATES + " FROM funcionario GROUP BY ClienteId) t "
+			+ "ON t.ClienteId = cliente.Id "
+			+ "ORDER BY cliente.Empresa, cliente.Id";
+
+	private static final String BY_INICIO_MES_SQL = "SELECT YEAR(Inicio) AS Ano, MONTH(Inicio) AS Mes, " + AGGREGATES
+			+ " FROM funcionario GROUP BY YEAR(Inicio), MONTH(Inicio) ORDER BY Ano, Mes";
+
+	private static final String TOTAL_SQL = "SELECT " + AGGREGATES + " FROM funcionario";
+
+	private ConnectionProvider provider;
+
+	public ReportDaoJDBC(ConnectionProvider provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public List<PayrollTotals> payrollByCliente() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(BY_CLIENTE_SQL);
+			rs = st.executeQuery();
+			List<PayrollTotals> list = new ArrayList<>();
+			while (rs.next()) {
+				PayrollTotals obj = instantiateTotals(rs);
+				obj.setClienteId(rs.getInt("Id"));
+				obj.setEmpresa(rs.getString("Empresa"));
+				obj.setProjeto(rs.getString("Projeto"));
+				list.add(obj);
+			}
+			return list;
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public List<PayrollTotals> payrollByInicioMes() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(BY_INICIO_MES_SQL);
+			rs = st.executeQuery();
+			List<PayrollTotals> list = new ArrayList<>();
+			while (rs.next()) {
+				PayrollTotals obj = instantiateTotals(rs);
+				obj.setInicioMes(YearMonth.of(rs.getInt("Ano"), rs.getInt("Mes")));
+				list.add(obj);
+			}
+			return list;
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	@Override
+	public PayrollTotals payrollTotal() {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = provider.getConnection();
+			st = conn.prepareStatement(TOTAL_SQL);
+			rs = st.executeQuery();
+			return rs.next() ? instantiateTotals(rs) : new PayrollTotals();
+		}
+		catch (SQLException e) {
+			throw new DbException(e.getMessage(), e);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+			DB.closeConnection(conn);
+		}
+	}
+
+	/**
+	 * Os agregados de um grupo; sem funcionrios o SUM e o AVG vm nulos e
+	 * ficam zero.
+	 */
+	private PayrollTotals instantiateTotals(ResultSet rs) throws SQLException {
+		PayrollTotals obj = new PayrollTotals();
+		obj.setFuncionarios(rs.getInt("Funcionarios"));
+		obj.setTotalSalario(rs.getDouble("Total"));
+		obj.setMediaSalario(rs.getDouble("Media"));
+		obj.setMenorSalario(rs.getDouble("Menor"));
+		obj.setMaiorSalario(rs.getDouble("Maior"));
+		return obj;
+	}
+
+}
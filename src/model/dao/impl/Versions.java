@@ -0,0 +1,89 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import db.DB;
+import db.DbConflictException;
+import db.UnitOfWork;
+
+/**
+ * Controle de concorrncia otimista compartilhado pelos DAOs JDBC. Os UPDATE
+ * incrementam a coluna Version e s gravam se ela ainda for a verso lida
+ * ({@code Version = COALESCE(?, Version)}); uma entidade sem verso, como as
+ * da importao,  gravada sem verificao.
+ * <p>
+ * A verso da entidade s avana depois do commit, para que uma
+ * {@link UnitOfWork} desfeita ou repetida grave de novo com a verso lida.
+ * Do mesmo jeito, o id gerado por um INSERT volta a {@code null} se a unidade
+ * for desfeita, e a nova tentativa inclui a linha de novo.
+ */
+class Versions {
+
+	static void bind(PreparedStatement st, int index, Integer version) throws SQLException {
+		if (version == null) {
+			st.setNull(index, Types.INTEGER);
+		}
+		else {
+			st.setInt(index, version);
+		}
+	}
+
+	/**
+	 * Grava na entidade o id gerado e a verso inicial, devolvendo os valores
+	 * anteriores se a {@link UnitOfWork} no fizer commit.
+	 */
+	static <T> void assign(T obj, int id, Function<T, Integer> versionGetter, BiConsumer<T, Integer> idSetter,
+			BiConsumer<T, Integer> versionSetter) {
+		Integer previousVersion = versionGetter.apply(obj);
+		idSetter.accept(obj, id);
+		versionSetter.accept(obj, 0);
+		UnitOfWork.afterRollback(() -> {
+			idSetter.accept(obj, null);
+			versionSetter.accept(obj, previousVersion);
+		});
+	}
+
+	static <T> void advance(T obj, Function<T, Integer> getter, BiConsumer<T, Integer> setter) {
+		Integer version = getter.apply(obj);
+		if (version != null) {
+			UnitOfWork.afterCommit(() -> setter.accept(obj, version + 1));
+		}
+	}
+
+	static <T> void advanceAll(Collection<T> saved, Function<T, Integer> getter, BiConsumer<T, Integer> setter) {
+		for (T obj : saved) {
+			advance(obj, getter, setter);
+		}
+	}
+
+	/**
+	 * O erro de um UPDATE que no afetou nenhuma linha: consulta a verso atual
+	 * para dizer se a linha mudou ou foi removida.
+	 */
+	static DbConflictException conflict(Connection conn, String table, String label, Integer id)
+			throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement("SELECT Version FROM " + table + " WHERE Id = ?");
+			st.setInt(1, id);
+			rs = st.executeQuery();
+			if (rs.next()) {
+				return new DbConflictException(label + " " + id + " foi alterado por outro usurio", id, rs.getInt(1));
+			}
+			return new DbConflictException(label + " " + id + " foi removido por outro usurio", id, null);
+		}
+		finally {
+			DB.closeStatement(st);
+			DB.closeResultSet(rs);
+		}
+	}
+
+}
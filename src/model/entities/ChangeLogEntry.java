@@ -0,0 +1,89 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Uma linha do {@code change_log}: a gravao de uma entidade feita por uma
+ * instncia da aplicao. {@code seq} cresce a cada linha includa e  a
+ * posio de leitura de quem acompanha o feed; {@code origin} identifica a
+ * instncia que gravou.
+ */
+public class ChangeLogEntry implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long seq;
+	private String entity;
+	private String type;
+	private Integer entityId;
+	private String origin;
+	private Date createdAt;
+
+	public ChangeLogEntry() {
+	}
+
+	public ChangeLogEntry(long seq, String entity, String type, Integer entityId, String origin, Date createdAt) {
+		this.seq = seq;
+		this.entity = entity;
+		this.type = type;
+		this.entityId = entityId;
+		this.origin = origin;
+		this.createdAt = createdAt;
+	}
+
+	public long getSeq() {
+		return seq;
+	}
+
+	public void setSeq(long seq) {
+		this.seq = seq;
+	}
+
+	public String getEntity() {
+		return entity;
+	}
+
+	public void setEntity(String entity) {
+		this.entity = entity;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public Integer getEntityId() {
+		return entityId;
+	}
+
+	public void setEntityId(Integer entityId) {
+		this.entityId = entityId;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public void setOrigin(String origin) {
+		this.origin = origin;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Date createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeLogEntry [seq=" + seq + ", entity=" + entity + ", type=" + type + ", entityId=" + entityId
+				+ ", origin=" + origin + "]";
+	}
+
+}
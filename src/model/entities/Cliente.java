@@ -10,6 +10,12 @@ public class Cliente implements Serializable{
 	private String empresa;
 	private String projeto;
 	
+	/**
+	 * Verso da linha lida do banco, usada para detectar alteraes
+	 * concorrentes; {@code null} em entidades que no vieram do banco.
+	 */
+	private Integer version;
+	
 	public Cliente() {
 	}
 
@@ -43,6 +49,14 @@ public class Cliente implements Serializable{
 		this.projeto = projeto;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -15,6 +15,12 @@ public class Funcionario implements Serializable{
 	
 	private Cliente cliente;
 	
+	/**
+	 * Verso da linha lida do banco, usada para detectar alteraes
+	 * concorrentes; {@code null} em entidades que no vieram do banco.
+	 */
+	private Integer version;
+	
 	public Funcionario() {
 	}
 
@@ -75,6 +81,14 @@ public class Funcionario implements Serializable{
 		this.cliente = cliente;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
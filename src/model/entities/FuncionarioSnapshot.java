@@ -0,0 +1,293 @@
+package model.entities;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cpia somente leitura de muitos funcionrios guardada por colunas, sem um
+ * objeto por linha: ids e salrios em arrays primitivos, a data de incio
+ * como dia desde 1970, os clientes como ndice num dicionrio, e nome e
+ * e-mail como bytes UTF-8 num nico array. O domnio do e-mail tambm vai
+ * para um dicionrio. As colunas de inteiros usam 1, 2 ou 4 bytes por linha
+ * conforme a faixa de valores ({@link PackedInts}).
+ * <p>
+ * Com 1 milho de linhas ocupa cerca de um sexto da memria de uma
+ * {@code List<Funcionario>} com os mesmos dados (medido pelo
+ * {@code FuncionarioSnapshotBenchmark}). {@link #get} monta um
+ * {@link Funcionario} novo para a linha pedida, para telas e formulrios;
+ * leituras em massa devem usar os getters por coluna, que no alocam nada
+ * alm das strings.
+ * <p>
+ *  imutvel depois do {@link Builder#build()} e pode ser lido de qualquer
+ * thread.
+ */
+public final class FuncionarioSnapshot {
+
+	/**
+	 * Dia guardado para quem no tem data de incio.
+	 */
+	public static final int NO_DATE = Integer.MIN_VALUE;
+
+	private final int size;
+	private final int[] ids;
+	private final double[] salarios;
+	private final PackedInts inicios;
+	private final PackedInts versions;
+	private final PackedInts clientes;
+	private final PackedInts domains;
+	private final int[] offsets;
+	private final byte[] text;
+	private final Cliente[] clienteDictionary;
+	private final String[] domainDictionary;
+
+	private FuncionarioSnapshot(Builder b) {
+		size = b.size;
+		ids = Arrays.copyOf(b.ids, size);
+		salarios = Arrays.copyOf(b.salarios, size);
+		inicios = PackedInts.of(b.inicios, size);
+		versions = PackedInts.of(b.versions, size);
+		clientes = PackedInts.of(b.clientes, size);
+		domains = PackedInts.of(b.domains, size);
+		offsets = Arrays.copyOf(b.offsets, size + 1);
+		text = Arrays.copyOf(b.text, b.textLength);
+		clienteDictionary = b.clienteList.toArray(new Cliente[0]);
+		domainDictionary = b.domainList.toArray(new String[0]);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * O dia de uma data lida do banco, no fuso local como o {@code DATE} do
+	 * JDBC, ou {@link #NO_DATE}.
+	 */
+	public static int toEpochDay(Date date) {
+		if (date == null) {
+			return NO_DATE;
+		}
+		if (date instanceof java.sql.Date) {
+			return (int) ((java.sql.Date) date).toLocalDate().toEpochDay();
+		}
+		return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getId(int row) {
+		return ids[row];
+	}
+
+	public String getNome(int row) {
+		int start = offsets[row];
+		int length = nomeLength(start);
+		return new String(text, start + prefixLength(length), length, StandardCharsets.UTF_8);
+	}
+
+	public String getEmail(int row) {
+		int start = offsets[row];
+		int nome = nomeLength(start);
+		int from = start + prefixLength(nome) + nome;
+		return new String(text, from, offsets[row + 1] - from, StandardCharsets.UTF_8)
+				+ domainDictionary[domains.get(row)];
+	}
+
+	/**
+	 * Dias desde 1970-01-01, ou {@link #NO_DATE}.
+	 */
+	public int getInicioEpochDay(int row) {
+		return inicios.get(row);
+	}
+
+	public LocalDate getInicio(int row) {
+		int day = inicios.get(row);
+		return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+	}
+
+	/**
+	 * O salrio, ou {@code NaN} sem salrio.
+	 */
+	public double getSalario(int row) {
+		return salarios[row];
+	}
+
+	public int getVersion(int row) {
+		return versions.get(row);
+	}
+
+	/**
+	 * O cliente da linha, compartilhado por todas as linhas do mesmo cliente,
+	 * ou {@code null}.
+	 */
+	public Cliente getCliente(int row) {
+		int index = clientes.get(row);
+		return index < 0 ? null : clienteDictionary[index];
+	}
+
+	/**
+	 * Posio do cliente da linha em {@link #getClientes()}, ou -1.
+	 */
+	public int getClienteIndex(int row) {
+		return clientes.get(row);
+	}
+
+	/**
+	 * Os clientes distintos das linhas, na ordem em que apareceram.
+	 */
+	public List<Cliente> getClientes() {
+		return Arrays.asList(clienteDictionary.clone());
+	}
+
+	/**
+	 * Monta a linha como um {@link Funcionario} novo. A data  um
+	 * {@code java.sql.Date}, como a lida pelos DAOs.
+	 */
+	public Funcionario get(int row) {
+		LocalDate inicio = getInicio(row);
+		double salario = salarios[row];
+		Funcionario obj = new Funcionario(ids[row], getNome(row), getEmail(row),
+				inicio == null ? null : java.sql.Date.valueOf(inicio), Double.isNaN(salario) ? null : salario,
+				getCliente(row));
+		obj.setVersion(versions.get(row));
+		return obj;
+	}
+
+	private int nomeLength(int start) {
+		int first = text[start] & 0xFF;
+		return first < 0x80 ? first : (first & 0x7F) | (text[start + 1] & 0xFF) << 7;
+	}
+
+	private static int prefixLength(int length) {
+		return length < 0x80 ? 1 : 2;
+	}
+
+	@Override
+	public String toString() {
+		return "FuncionarioSnapshot [size=" + size + ", clientes=" + clienteDictionary.length + ", dominios="
+				+ domainDictionary.length + ", texto=" + text.length + " bytes]";
+	}
+
+	/**
+	 * Monta um snapshot linha a linha. {@link #add} copia os valores, ento o
+	 * mesmo {@link Funcionario} pode ser reaproveitado entre as chamadas, como
+	 * no {@code forEachFuncionario} do DAO.
+	 */
+	public static class Builder {
+
+		private int size;
+		private int[] ids = new int[1024];
+		private double[] salarios = new double[1024];
+		private int[] inicios = new int[1024];
+		private int[] versions = new int[1024];
+		private int[] clientes = new int[1024];
+		private int[] domains = new int[1024];
+		private int[] offsets = new int[1025];
+		private byte[] text = new byte[32 * 1024];
+		private int textLength;
+
+		private final Map<Integer, Integer> clienteIndex = new HashMap<>();
+		private final List<Cliente> clienteList = new ArrayList<>();
+		private final Map<String, Integer> domainIndex = new HashMap<>();
+		private final List<String> domainList = new ArrayList<>();
+		private final Map<String, String> strings = new HashMap<>();
+
+		private Builder() {
+		}
+
+		public Builder add(Funcionario obj) {
+			if (obj.getId() == null) {
+				throw new IllegalArgumentException("O funcionrio ainda no foi gravado");
+			}
+			if (size == ids.length) {
+				grow();
+			}
+			ids[size] = obj.getId();
+			salarios[size] = obj.getSalario() == null ? Double.NaN : obj.getSalario();
+			inicios[size] = toEpochDay(obj.getInicio());
+			versions[size] = obj.getVersion() == null ? 0 : obj.getVersion();
+			clientes[size] = clienteIndexOf(obj.getCliente());
+
+			String email = obj.getEmail() == null ? "" : obj.getEmail();
+			int at = email.lastIndexOf('@');
+			String domain = at < 0 ? "" : email.substring(at);
+			domains[size] = domainIndex.computeIfAbsent(domain, d -> {
+				domainList.add(d);
+				return domainList.size() - 1;
+			});
+
+			byte[] nome = (obj.getNome() == null ? "" : obj.getNome()).getBytes(StandardCharsets.UTF_8);
+			byte[] local = (at < 0 ? email : email.substring(0, at)).getBytes(StandardCharsets.UTF_8);
+			if (nome.length >= 1 << 14) {
+				throw new IllegalArgumentException("Nome longo demais: " + nome.length + " bytes");
+			}
+			ensureText(2 + nome.length + local.length);
+			if (nome.length < 0x80) {
+				text[textLength++] = (byte) nome.length;
+			}
+			else {
+				text[textLength++] = (byte) (0x80 | nome.length & 0x7F);
+				text[textLength++] = (byte) (nome.length >>> 7);
+			}
+			System.arraycopy(nome, 0, text, textLength, nome.length);
+			textLength += nome.length;
+			System.arraycopy(local, 0, text, textLength, local.length);
+			textLength += local.length;
+
+			size++;
+			offsets[size] = textLength;
+			return this;
+		}
+
+		public FuncionarioSnapshot build() {
+			return new FuncionarioSnapshot(this);
+		}
+
+		private int clienteIndexOf(Cliente cliente) {
+			if (cliente == null || cliente.getId() == null) {
+				return -1;
+			}
+			Integer index = clienteIndex.get(cliente.getId());
+			if (index == null) {
+				// cpia: o cliente lido pelo DAO pode mudar depois
+				Cliente copy = new Cliente(cliente.getId(), intern(cliente.getEmpresa()), intern(cliente.getProjeto()));
+				copy.setVersion(cliente.getVersion());
+				clienteList.add(copy);
+				index = clienteList.size() - 1;
+				clienteIndex.put(cliente.getId(), index);
+			}
+			return index;
+		}
+
+		private String intern(String s) {
+			return s == null ? null : strings.computeIfAbsent(s, x -> x);
+		}
+
+		private void grow() {
+			int capacity = ids.length * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			salarios = Arrays.copyOf(salarios, capacity);
+			inicios = Arrays.copyOf(inicios, capacity);
+			versions = Arrays.copyOf(versions, capacity);
+			clientes = Arrays.copyOf(clientes, capacity);
+			domains = Arrays.copyOf(domains, capacity);
+			offsets = Arrays.copyOf(offsets, capacity + 1);
+		}
+
+		private void ensureText(int extra) {
+			if (textLength + extra > text.length) {
+				text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + extra));
+			}
+		}
+
+	}
+
+}
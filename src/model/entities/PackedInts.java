@@ -0,0 +1,78 @@
+package model.entities;
+
+import java.util.Arrays;
+
+/**
+ * Coluna de inteiros somente leitura guardada como diferena para o menor
+ * valor: um byte por linha se todos cabem em 256 valores a partir dele, um
+ * {@code char} se cabem em 65536, e um {@code int} caso contrrio. Uma coluna
+ * em que todas as linhas so iguais no guarda array nenhum.
+ */
+final class PackedInts {
+
+	private final int size;
+	private final int base;
+	private final byte[] bytes;
+	private final char[] chars;
+	private final int[] ints;
+
+	private PackedInts(int size, int base, byte[] bytes, char[] chars, int[] ints) {
+		this.size = size;
+		this.base = base;
+		this.bytes = bytes;
+		this.chars = chars;
+		this.ints = ints;
+	}
+
+	static PackedInts of(int[] values, int size) {
+		if (size == 0) {
+			return new PackedInts(0, 0, null, null, null);
+		}
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			min = Math.min(min, values[i]);
+			max = Math.max(max, values[i]);
+		}
+		long range = (long) max - min;
+		if (range == 0) {
+			return new PackedInts(size, min, null, null, null);
+		}
+		if (range <= 0xFF) {
+			byte[] packed = new byte[size];
+			for (int i = 0; i < size; i++) {
+				packed[i] = (byte) (values[i] - min);
+			}
+			return new PackedInts(size, min, packed, null, null);
+		}
+		if (range <= 0xFFFF) {
+			char[] packed = new char[size];
+			for (int i = 0; i < size; i++) {
+				packed[i] = (char) (values[i] - min);
+			}
+			return new PackedInts(size, min, null, packed, null);
+		}
+		return new PackedInts(size, 0, null, null, Arrays.copyOf(values, size));
+	}
+
+	int get(int index) {
+		if (bytes != null) {
+			return base + (bytes[index] & 0xFF);
+		}
+		if (chars != null) {
+			return base + chars[index];
+		}
+		if (ints != null) {
+			return ints[index];
+		}
+		if (index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return base;
+	}
+
+	int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,105 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+
+/**
+ * Uma linha dos relatrios de folha: quantidade de funcionrios e soma, mdia,
+ * menor e maior salrio de um grupo. Nos totais por cliente {@code clienteId},
+ * {@code empresa} e {@code projeto} identificam o grupo; nos totais por ms de
+ * incio, {@code inicioMes}. No total geral nenhum deles  preenchido.
+ */
+public class PayrollTotals implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Integer clienteId;
+	private String empresa;
+	private String projeto;
+	private YearMonth inicioMes;
+	private int funcionarios;
+	private double totalSalario;
+	private double mediaSalario;
+	private double menorSalario;
+	private double maiorSalario;
+
+	public Integer getClienteId() {
+		return clienteId;
+	}
+
+	public void setClienteId(Integer clienteId) {
+		this.clienteId = clienteId;
+	}
+
+	public String getEmpresa() {
+		return empresa;
+	}
+
+	public void setEmpresa(String empresa) {
+		this.empresa = empresa;
+	}
+
+	public String getProjeto() {
+		return projeto;
+	}
+
+	public void setProjeto(String projeto) {
+		this.projeto = projeto;
+	}
+
+	public YearMonth getInicioMes() {
+		return inicioMes;
+	}
+
+	public void setInicioMes(YearMonth inicioMes) {
+		this.inicioMes = inicioMes;
+	}
+
+	public int getFuncionarios() {
+		return funcionarios;
+	}
+
+	public void setFuncionarios(int funcionarios) {
+		this.funcionarios = funcionarios;
+	}
+
+	public double getTotalSalario() {
+		return totalSalario;
+	}
+
+	public void setTotalSalario(double totalSalario) {
+		this.totalSalario = totalSalario;
+	}
+
+	public double getMediaSalario() {
+		return mediaSalario;
+	}
+
+	public void setMediaSalario(double mediaSalario) {
+		this.mediaSalario = mediaSalario;
+	}
+
+	public double getMenorSalario() {
+		return menorSalario;
+	}
+
+	public void setMenorSalario(double menorSalario) {
+		this.menorSalario = menorSalario;
+	}
+
+	public double getMaiorSalario() {
+		return maiorSalario;
+	}
+
+	public void setMaiorSalario(double maiorSalario) {
+		this.maiorSalario = maiorSalario;
+	}
+
+	@Override
+	public String toString() {
+		return "PayrollTotals [clienteId=" + clienteId + ", empresa=" + empresa + ", projeto=" + projeto
+				+ ", inicioMes=" + inicioMes + ", funcionarios=" + funcionarios + ", totalSalario=" + totalSalario
+				+ ", mediaSalario=" + mediaSalario + "]";
+	}
+
+}
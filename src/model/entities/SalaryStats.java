@@ -0,0 +1,140 @@
+package model.entities;
+
+import java.io.Serializable;
+
+/**
+ * Uma linha da anlise salarial: o grupo (cliente, projeto ou ano de incio),
+ * quantos funcionrios tem, soma, mdia, desvio padro, extremos e percentis
+ * dos salrios, e quantos salrios ficam fora das cercas de Tukey do grupo
+ * ({@code p25 - 1,5 * IQR} e {@code p75 + 1,5 * IQR}). Os percentis so
+ * estimativas, com o erro relativo do resumo usado no clculo.
+ */
+public class SalaryStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String grupo;
+	private int funcionarios;
+	private double totalSalario;
+	private double mediaSalario;
+	private double desvioPadrao;
+	private double menorSalario;
+	private double p25;
+	private double mediana;
+	private double p75;
+	private double p90;
+	private double p99;
+	private double maiorSalario;
+	private int outliers;
+
+	public String getGrupo() {
+		return grupo;
+	}
+
+	public void setGrupo(String grupo) {
+		this.grupo = grupo;
+	}
+
+	public int getFuncionarios() {
+		return funcionarios;
+	}
+
+	public void setFuncionarios(int funcionarios) {
+		this.funcionarios = funcionarios;
+	}
+
+	public double getTotalSalario() {
+		return totalSalario;
+	}
+
+	public void setTotalSalario(double totalSalario) {
+		this.totalSalario = totalSalario;
+	}
+
+	public double getMediaSalario() {
+		return mediaSalario;
+	}
+
+	public void setMediaSalario(double mediaSalario) {
+		this.mediaSalario = mediaSalario;
+	}
+
+	public double getDesvioPadrao() {
+		return desvioPadrao;
+	}
+
+	public void setDesvioPadrao(double desvioPadrao) {
+		this.desvioPadrao = desvioPadrao;
+	}
+
+	public double getMenorSalario() {
+		return menorSalario;
+	}
+
+	public void setMenorSalario(double menorSalario) {
+		this.menorSalario = menorSalario;
+	}
+
+	public double getP25() {
+		return p25;
+	}
+
+	public void setP25(double p25) {
+		this.p25 = p25;
+	}
+
+	public double getMediana() {
+		return mediana;
+	}
+
+	public void setMediana(double mediana) {
+		this.mediana = mediana;
+	}
+
+	public double getP75() {
+		return p75;
+	}
+
+	public void setP75(double p75) {
+		this.p75 = p75;
+	}
+
+	public double getP90() {
+		return p90;
+	}
+
+	public void setP90(double p90) {
+		this.p90 = p90;
+	}
+
+	public double getP99() {
+		return p99;
+	}
+
+	public void setP99(double p99) {
+		this.p99 = p99;
+	}
+
+	public double getMaiorSalario() {
+		return maiorSalario;
+	}
+
+	public void setMaiorSalario(double maiorSalario) {
+		this.maiorSalario = maiorSalario;
+	}
+
+	public int getOutliers() {
+		return outliers;
+	}
+
+	public void setOutliers(int outliers) {
+		this.outliers = outliers;
+	}
+
+	@Override
+	public String toString() {
+		return "SalaryStats [grupo=" + grupo + ", funcionarios=" + funcionarios + ", mediaSalario=" + mediaSalario
+				+ ", mediana=" + mediana + ", p90=" + p90 + ", outliers=" + outliers + "]";
+	}
+
+}
@@ -0,0 +1,11 @@
+package model.exceptions;
+
+public class ExportCancelledException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ExportCancelledException(String msg) {
+		super(msg);
+	}
+
+}
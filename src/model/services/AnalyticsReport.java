@@ -0,0 +1,104 @@
+package model.services;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.entities.Funcionario;
+import model.entities.SalaryStats;
+
+/**
+ * Resultado de uma anlise salarial do {@link AnalyticsService}: o resumo
+ * geral e por cliente, projeto e ano de incio, o histograma dos salrios e
+ * os funcionrios mais fora da curva do seu projeto. S os
+ * {@link AnalyticsService#MAX_OUTLIERS} mais distantes das cercas so
+ * guardados; os demais s contam.
+ */
+public class AnalyticsReport {
+
+	private final SalaryStats total;
+	private final List<SalaryStats> byCliente;
+	private final List<SalaryStats> byProjeto;
+	private final List<SalaryStats> byInicioAno;
+	private final Histogram histogram;
+	private final List<Funcionario> outliers;
+	private final int outlierCount;
+	private final int rows;
+	private final long elapsedNanos;
+	private final int parallelism;
+
+	AnalyticsReport(SalaryStats total, List<SalaryStats> byCliente, List<SalaryStats> byProjeto,
+			List<SalaryStats> byInicioAno, Histogram histogram, List<Funcionario> outliers, int outlierCount,
+			int rows, long elapsedNanos, int parallelism) {
+		this.total = total;
+		this.byCliente = Collections.unmodifiableList(byCliente);
+		this.byProjeto = Collections.unmodifiableList(byProjeto);
+		this.byInicioAno = Collections.unmodifiableList(byInicioAno);
+		this.histogram = histogram;
+		this.outliers = Collections.unmodifiableList(outliers);
+		this.outlierCount = outlierCount;
+		this.rows = rows;
+		this.elapsedNanos = elapsedNanos;
+		this.parallelism = parallelism;
+	}
+
+	public SalaryStats getTotal() {
+		return total;
+	}
+
+	/** Por cliente, na ordem da empresa. */
+	public List<SalaryStats> getByCliente() {
+		return byCliente;
+	}
+
+	/** Por projeto, na ordem do nome; as cercas dos outliers so as do projeto. */
+	public List<SalaryStats> getByProjeto() {
+		return byProjeto;
+	}
+
+	/** Por ano de incio, do mais antigo; quem no tem data vem no fim. */
+	public List<SalaryStats> getByInicioAno() {
+		return byInicioAno;
+	}
+
+	/**
+	 * Os salrios de todos os funcionrios, do menor ao maior, em
+	 * {@link AnalyticsService#HISTOGRAM_BINS} faixas.
+	 */
+	public Histogram getHistogram() {
+		return histogram;
+	}
+
+	/** Os outliers dos projetos, do mais distante da cerca para o menos. */
+	public List<Funcionario> getOutliers() {
+		return outliers;
+	}
+
+	/**
+	 * Quantos funcionrios ficam fora das cercas do seu projeto; os de fora das
+	 * cercas gerais esto no {@link #getTotal()}.
+	 */
+	public int getOutlierCount() {
+		return outlierCount;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public double getElapsedMillis() {
+		return elapsedNanos / 1e6;
+	}
+
+	/** Quantas threads o pool da anlise tinha. */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@Override
+	public String toString() {
+		return "AnalyticsReport [rows=" + rows + ", clientes=" + byCliente.size() + ", projetos=" + byProjeto.size()
+				+ ", anos=" + byInicioAno.size() + ", outliers=" + outlierCount + ", elapsedMillis="
+				+ getElapsedMillis() + ", parallelism=" + parallelism + "]";
+	}
+
+}
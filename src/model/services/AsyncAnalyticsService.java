@@ -0,0 +1,35 @@
+package model.services;
+
+import java.util.concurrent.CompletableFuture;
+
+import model.dao.FuncionarioQuery;
+
+/**
+ * Verso assncrona do {@link AnalyticsService}: os funcionrios so lidos num
+ * {@code FuncionarioSnapshot} pelo cursor do DAO, no {@link DbExecutor}, e a
+ * anlise roda no pool do service, sem ocupar a thread do banco.
+ */
+public class AsyncAnalyticsService {
+
+	private final AnalyticsService service;
+
+	private final AsyncFuncionarioService funcionarioService;
+
+	public AsyncAnalyticsService() {
+		this(new AnalyticsService(), new AsyncFuncionarioService());
+	}
+
+	public AsyncAnalyticsService(AnalyticsService service, AsyncFuncionarioService funcionarioService) {
+		this.service = service;
+		this.funcionarioService = funcionarioService;
+	}
+
+	public AnalyticsService getService() {
+		return service;
+	}
+
+	public CompletableFuture<AnalyticsReport> analyze(FuncionarioQuery query) {
+		return funcionarioService.snapshot(query).thenApplyAsync(service::analyze, service.getPool());
+	}
+
+}
@@ -0,0 +1,73 @@
+package model.services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import model.dao.BatchResult;
+import model.entities.Cliente;
+
+/**
+ * Verso assncrona do {@link ClienteService}. Cada chamada roda no
+ * {@link DbExecutor} e devolve um {@link CompletableFuture}, para que a thread
+ * do JavaFX nunca fique bloqueada esperando o banco.
+ */
+public class AsyncClienteService {
+
+	private final ClienteService service;
+
+	public AsyncClienteService() {
+		this(new ClienteService());
+	}
+
+	public AsyncClienteService(ClienteService service) {
+		this.service = service;
+	}
+
+	public ClienteService getService() {
+		return service;
+	}
+
+	public CompletableFuture<List<Cliente>> findAll() {
+		return CompletableFuture.supplyAsync(service::findAll, DbExecutor.get());
+	}
+
+	public CompletableFuture<Cliente> findById(Integer id) {
+		return CompletableFuture.supplyAsync(() -> service.findById(id), DbExecutor.get());
+	}
+
+	public CompletableFuture<List<Cliente>> findPage(Cliente after, int limit) {
+		return CompletableFuture.supplyAsync(() -> service.findPage(after, limit), DbExecutor.get());
+	}
+
+	public CompletableFuture<Void> saveOrUpdate(Cliente obj) {
+		return CompletableFuture.runAsync(() -> service.saveOrUpdate(obj), DbExecutor.get());
+	}
+
+	/**
+	 * Com o write-behind ligado a entidade s entra na fila e o future j volta
+	 * completo; as falhas aparecem depois em
+	 * {@link ClienteService#getWriteBehind()}. Sem write-behind  igual ao
+	 * {@link #saveOrUpdate}.
+	 */
+	public CompletableFuture<Void> saveOrUpdateLater(Cliente obj) {
+		if (ClienteService.getWriteBehind() == null) {
+			return saveOrUpdate(obj);
+		}
+		service.saveOrUpdateLater(obj);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	public CompletableFuture<BatchResult<Cliente>> saveOrUpdateAll(Collection<Cliente> list) {
+		return CompletableFuture.supplyAsync(() -> service.saveOrUpdateAll(list), DbExecutor.get());
+	}
+
+	public CompletableFuture<Void> remove(Cliente obj) {
+		return CompletableFuture.runAsync(() -> service.remove(obj), DbExecutor.get());
+	}
+
+	public CompletableFuture<Void> remove(Cliente obj, Cliente target) {
+		return CompletableFuture.runAsync(() -> service.remove(obj, target), DbExecutor.get());
+	}
+
+}
@@ -0,0 +1,96 @@
+package model.services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import model.dao.BatchResult;
+import model.dao.FuncionarioQuery;
+import model.entities.Funcionario;
+import model.entities.FuncionarioSnapshot;
+
+/**
+ * Verso assncrona do {@link FuncionarioService}. Cada chamada roda no
+ * {@link DbExecutor} e devolve um {@link CompletableFuture}, para que a thread
+ * do JavaFX nunca fique bloqueada esperando o banco.
+ */
+public class AsyncFuncionarioService {
+
+	private final FuncionarioService service;
+
+	public AsyncFuncionarioService() {
+		this(new FuncionarioService());
+	}
+
+	public AsyncFuncionarioService(FuncionarioService service) {
+		this.service = service;
+	}
+
+	public FuncionarioService getService() {
+		return service;
+	}
+
+	public CompletableFuture<List<Funcionario>> findAll() {
+		return CompletableFuture.supplyAsync(service::findAll, DbExecutor.get());
+	}
+
+	public CompletableFuture<Funcionario> findById(Integer id) {
+		return CompletableFuture.supplyAsync(() -> service.findById(id), DbExecutor.get());
+	}
+
+	public CompletableFuture<List<Funcionario>> findPage(Funcionario after, int limit) {
+		return CompletableFuture.supplyAsync(() -> service.findPage(after, limit), DbExecutor.get());
+	}
+
+	public CompletableFuture<List<Funcionario>> findPage(FuncionarioQuery query, Funcionario after, int limit) {
+		return CompletableFuture.supplyAsync(() -> service.findPage(query, after, limit), DbExecutor.get());
+	}
+
+	public CompletableFuture<FuncionarioSnapshot> snapshot(FuncionarioQuery query) {
+		return CompletableFuture.supplyAsync(() -> service.snapshot(query), DbExecutor.get());
+	}
+
+	/**
+	 * L todos os funcionrios num snapshot e monta o {@link FuncionarioIndex}
+	 * fora da thread do banco, que fica livre durante a ordenao.
+	 */
+	public CompletableFuture<FuncionarioIndex> index() {
+		return snapshot(new FuncionarioQuery()).thenApplyAsync(FuncionarioIndex::new);
+	}
+
+	/**
+	 * A ao roda na thread do banco, uma vez por linha.
+	 */
+	public CompletableFuture<Void> forEachFuncionario(FuncionarioQuery query, boolean reuseRow,
+			Consumer<? super Funcionario> action) {
+		return CompletableFuture.runAsync(() -> service.forEachFuncionario(query, reuseRow, action), DbExecutor.get());
+	}
+
+	public CompletableFuture<Void> saveOrUpdate(Funcionario obj) {
+		return CompletableFuture.runAsync(() -> service.saveOrUpdate(obj), DbExecutor.get());
+	}
+
+	/**
+	 * Com o write-behind ligado a entidade s entra na fila e o future j volta
+	 * completo; as falhas aparecem depois em
+	 * {@link FuncionarioService#getWriteBehind()}. Sem write-behind  igual ao
+	 * {@link #saveOrUpdate}.
+	 */
+	public CompletableFuture<Void> saveOrUpdateLater(Funcionario obj) {
+		if (FuncionarioService.getWriteBehind() == null) {
+			return saveOrUpdate(obj);
+		}
+		service.saveOrUpdateLater(obj);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	public CompletableFuture<BatchResult<Funcionario>> saveOrUpdateAll(Collection<Funcionario> list) {
+		return CompletableFuture.supplyAsync(() -> service.saveOrUpdateAll(list), DbExecutor.get());
+	}
+
+	public CompletableFuture<Void> remove(Funcionario obj) {
+		return CompletableFuture.runAsync(() -> service.remove(obj), DbExecutor.get());
+	}
+
+}
@@ -0,0 +1,39 @@
+package model.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import model.entities.PayrollTotals;
+
+/**
+ * Verso assncrona do {@link ReportService}, rodando no {@link DbExecutor}.
+ */
+public class AsyncReportService {
+
+	private final ReportService service;
+
+	public AsyncReportService() {
+		this(new ReportService());
+	}
+
+	public AsyncReportService(ReportService service) {
+		this.service = service;
+	}
+
+	public ReportService getService() {
+		return service;
+	}
+
+	public CompletableFuture<List<PayrollTotals>> payrollByCliente() {
+		return CompletableFuture.supplyAsync(service::payrollByCliente, DbExecutor.get());
+	}
+
+	public CompletableFuture<List<PayrollTotals>> payrollByInicioMes() {
+		return CompletableFuture.supplyAsync(service::payrollByInicioMes, DbExecutor.get());
+	}
+
+	public CompletableFuture<PayrollTotals> payrollTotal() {
+		return CompletableFuture.supplyAsync(service::payrollTotal, DbExecutor.get());
+	}
+
+}
@@ -0,0 +1,41 @@
+package model.services;
+
+/**
+ * Alterao feita por um service: a entidade includa, alterada ou removida,
+ * com o id dela. {@link Type#INVALIDATED} avisa que muitas linhas mudaram de
+ * uma vez (gravao em lote) e no tem entidade; quem escuta deve recarregar.
+ */
+public class ChangeEvent<T> {
+
+	public enum Type {
+		INSERTED, UPDATED, DELETED, INVALIDATED
+	}
+
+	private final Type type;
+	private final T entity;
+	private final Integer id;
+
+	public ChangeEvent(Type type, T entity, Integer id) {
+		this.type = type;
+		this.entity = entity;
+		this.id = id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public T getEntity() {
+		return entity;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeEvent [type=" + type + ", id=" + id + ", entity=" + entity + "]";
+	}
+
+}
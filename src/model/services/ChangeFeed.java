@@ -0,0 +1,347 @@
+package model.services;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import db.DB;
+import model.dao.ChangeLogDao;
+import model.dao.DaoFactory;
+import model.dao.impl.ClienteCache;
+import model.entities.ChangeLogEntry;
+
+/**
+ * Leva as gravaes de uma instncia da aplicao s outras que usam o mesmo
+ * banco. Cada evento publicado pelos services vira uma linha do
+ * {@code change_log}, gravada na mesma transao da alterao; uma thread
+ * daemon l as linhas novas pelo {@code Seq} a cada {@code pollMs} e publica
+ * as das outras instncias nos {@link ChangePublisher} locais, como se a
+ * gravao tivesse sido feita aqui. As telas abertas recebem s o que mudou.
+ * <p>
+ * Incluses e alteraes so lidas de novo por id antes de publicadas;
+ * vrias linhas de um mesmo id numa leitura viram um evento s. Se uma
+ * leitura traz mais de {@code maxDeltas} linhas, ou um {@code INVALIDATED}
+ * (gravao em lote),  publicado um {@code INVALIDATED} e as telas
+ * recarregam.
+ * <p>
+ * O {@code Seq}  reservado na incluso, mas a linha s aparece no commit,
+ * ento uma transao mais lenta pode confirmar um {@code Seq} menor que o
+ * ltimo j lido. Os nmeros pulados ficam pendentes por {@code gapTimeoutMs}
+ * e so procurados de novo a cada leitura; depois disso so tratados como
+ * transaes desfeitas. Eles so procurados por {@code Seq} numa consulta 
+ * parte, e o limite de {@code maxDeltas} conta s as linhas novas.
+ * <p>
+ * Configurao lida do db.properties por {@link #start}:
+ * <ul>
+ * <li>changefeed.enabled - liga o feed; o banco precisa da tabela de sql/changelog.sql (false)</li>
+ * <li>changefeed.pollMs - intervalo entre as leituras (1000)</li>
+ * <li>changefeed.maxDeltas - mximo de linhas aplicadas uma a uma por leitura (200)</li>
+ * <li>changefeed.gapTimeoutMs - espera por um {@code Seq} pulado (10000)</li>
+ * <li>changefeed.retentionHours - idade das linhas apagadas do change_log (24)</li>
+ * </ul>
+ */
+public class ChangeFeed {
+
+	static final String FUNCIONARIO = "funcionario";
+	static final String CLIENTE = "cliente";
+
+	private static ChangeFeed instance;
+	private static boolean checked;
+
+	private final ChangeLogDao dao;
+	private final String origin;
+	private final long pollMs;
+	private final int maxDeltas;
+	private final long gapTimeoutMs;
+	private final long retentionMs;
+
+	// Seq pulado -> quando foi notado
+	private final TreeMap<Long, Long> gaps = new TreeMap<>();
+	private long lastSeq = -1;
+	private long lastPurge;
+	private long receivedCount;
+	private long invalidationCount;
+	private String lastError;
+
+	private FuncionarioService funcionarioService;
+	private ClienteService clienteService;
+	private ScheduledExecutorService scheduler;
+
+	public ChangeFeed(ChangeLogDao dao, String origin, long pollMs, int maxDeltas, long gapTimeoutMs,
+			long retentionMs) {
+		this.dao = dao;
+		this.origin = origin;
+		this.pollMs = Math.max(50, pollMs);
+		this.maxDeltas = Math.max(1, maxDeltas);
+		this.gapTimeoutMs = gapTimeoutMs;
+		this.retentionMs = retentionMs;
+	}
+
+	/**
+	 * Liga o feed da aplicao, se {@code changefeed.enabled=true}, e devolve
+	 * ele; seno devolve {@code null}. Chamado por cada service criado, para
+	 * que nenhuma gravao fique fora do feed; s a primeira chamada faz algo.
+	 * No vai ao banco na thread que chama.
+	 */
+	public static synchronized ChangeFeed start() {
+		if (!checked) {
+			checked = true;
+			if (Boolean.parseBoolean(DB.getProperties().getProperty("changefeed.enabled", "false").trim())) {
+				instance = new ChangeFeed(DaoFactory.criaChangeLogDao(), UUID.randomUUID().toString(),
+						DB.getIntProperty("changefeed.pollMs", 1000), DB.getIntProperty("changefeed.maxDeltas", 200),
+						DB.getIntProperty("changefeed.gapTimeoutMs", 10000),
+						DB.getIntProperty("changefeed.retentionHours", 24) * 3_600_000L);
+				instance.open();
+			}
+		}
+		return instance;
+	}
+
+	public static synchronized void stop() {
+		if (instance != null) {
+			instance.close();
+		}
+	}
+
+	/**
+	 * Passa a gravar os eventos dos services no {@code change_log} e comea a
+	 * ler os das outras instncias.
+	 */
+	public synchronized void open() {
+		attach();
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "change-feed");
+				t.setDaemon(true);
+				return t;
+			});
+			scheduler.scheduleWithFixedDelay(this::pollQuietly, 0, pollMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public synchronized void close() {
+		FuncionarioService.getChanges().setJournal(null);
+		ClienteService.getChanges().setJournal(null);
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * S grava os eventos locais no {@code change_log}, sem ler os das outras
+	 * instncias.
+	 */
+	public void attach() {
+		FuncionarioService.getChanges().setJournal(event -> append(FUNCIONARIO, event));
+		ClienteService.getChanges().setJournal(event -> append(CLIENTE, event));
+	}
+
+	private void append(String entity, ChangeEvent<?> event) {
+		dao.append(entity, event.getType().name(), event.getId(), origin);
+	}
+
+	private void pollQuietly() {
+		try {
+			poll();
+			lastError = null;
+		}
+		catch (RuntimeException e) {
+			// o banco pode estar fora do ar; tenta de novo na prxima leitura sem
+			// repetir a mesma mensagem
+			if (!Objects.equals(lastError, e.getMessage())) {
+				lastError = e.getMessage();
+				System.err.println("Feed de alteraes: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * L as linhas novas e publica as das outras instncias. A primeira
+	 * leitura s marca a posio atual: o que j estava gravado as telas leem
+	 * ao abrir.
+	 *
+	 * @return quantas linhas de outras instncias foram lidas
+	 */
+	public synchronized int poll() {
+		long now = System.currentTimeMillis();
+		if (lastSeq < 0) {
+			lastSeq = dao.lastSeq();
+			lastPurge = now;
+			return 0;
+		}
+		purge(now);
+		gaps.values().removeIf(seenAt -> now - seenAt > gapTimeoutMs);
+
+		// o limite vale s para as linhas novas; as dos nmeros pulados vm  parte
+		List<ChangeLogEntry> entries = dao.findAfter(lastSeq, maxDeltas);
+		if (entries.size() >= maxDeltas) {
+			// atrasado demais para aplicar uma a uma
+			lastSeq = Math.max(entries.get(entries.size() - 1).getSeq(), dao.lastSeq());
+			gaps.clear();
+			invalidateAll();
+			return entries.size();
+		}
+
+		Delta delta = new Delta();
+		if (!gaps.isEmpty()) {
+			for (ChangeLogEntry entry : dao.findBySeq(gaps.keySet())) {
+				if (gaps.remove(entry.getSeq()) != null) {
+					delta.add(entry);
+				}
+			}
+		}
+		for (ChangeLogEntry entry : entries) {
+			long seq = entry.getSeq();
+			for (long s = Math.max(lastSeq + 1, seq - maxDeltas); s < seq; s++) {
+				gaps.put(s, now);
+			}
+			lastSeq = seq;
+			delta.add(entry);
+		}
+		while (gaps.size() > maxDeltas) {
+			gaps.pollFirstEntry();
+		}
+		receivedCount += delta.received;
+
+		if (!delta.clientes.isEmpty() || delta.clientesInvalidated) {
+			ClienteCache cache = DaoFactory.getClienteCache();
+			if (delta.clientesInvalidated) {
+				cache.invalidateAll();
+			}
+			else {
+				delta.clientes.keySet().forEach(cache::invalidate);
+			}
+			apply(ClienteService.getChanges(), delta.clientesInvalidated, delta.clientes,
+					id -> clienteService().findById(id));
+		}
+		apply(FuncionarioService.getChanges(), delta.funcionariosInvalidated, delta.funcionarios,
+				id -> funcionarioService().findById(id));
+		return delta.received;
+	}
+
+	/**
+	 * As linhas de outras instncias numa leitura, j juntadas por id.
+	 */
+	private class Delta {
+
+		final Map<Integer, ChangeEvent.Type> funcionarios = new LinkedHashMap<>();
+		final Map<Integer, ChangeEvent.Type> clientes = new LinkedHashMap<>();
+		boolean funcionariosInvalidated;
+		boolean clientesInvalidated;
+		int received;
+
+		void add(ChangeLogEntry entry) {
+			if (origin.equals(entry.getOrigin())) {
+				return;
+			}
+			received++;
+			ChangeEvent.Type type = typeOf(entry);
+			boolean isCliente = CLIENTE.equals(entry.getEntity());
+			if (type == ChangeEvent.Type.INVALIDATED || entry.getEntityId() == null) {
+				if (isCliente) {
+					clientesInvalidated = true;
+				}
+				else {
+					funcionariosInvalidated = true;
+				}
+			}
+			else {
+				// uma incluso seguida de alteraes continua sendo uma incluso
+				(isCliente ? clientes : funcionarios).merge(entry.getEntityId(), type,
+						(old, next) -> old == ChangeEvent.Type.INSERTED && next != ChangeEvent.Type.DELETED ? old
+								: next);
+			}
+		}
+	}
+
+	private <T> void apply(ChangePublisher<T> publisher, boolean invalidated, Map<Integer, ChangeEvent.Type> ids,
+			Function<Integer, T> finder) {
+		if (invalidated) {
+			invalidationCount++;
+			publisher.publishLocal(new ChangeEvent<>(ChangeEvent.Type.INVALIDATED, null, null));
+			return;
+		}
+		for (Map.Entry<Integer, ChangeEvent.Type> change : ids.entrySet()) {
+			Integer id = change.getKey();
+			T entity = change.getValue() == ChangeEvent.Type.DELETED ? null : finder.apply(id);
+			// removida depois da alterao: o DELETED vem numa prxima linha, mas
+			// a tela j pode tirar a linha
+			ChangeEvent.Type type = entity == null ? ChangeEvent.Type.DELETED : change.getValue();
+			publisher.publishLocal(new ChangeEvent<>(type, entity, id));
+		}
+	}
+
+	private void invalidateAll() {
+		DaoFactory.getClienteCache().invalidateAll();
+		invalidationCount++;
+		ClienteService.getChanges().publishLocal(new ChangeEvent<>(ChangeEvent.Type.INVALIDATED, null, null));
+		FuncionarioService.getChanges().publishLocal(new ChangeEvent<>(ChangeEvent.Type.INVALIDATED, null, null));
+	}
+
+	private void purge(long now) {
+		// uma vez por hora, no mximo; todas as instncias apagam, e tanto faz qual
+		if (retentionMs <= 0 || now - lastPurge < Math.min(retentionMs, 3_600_000L)) {
+			return;
+		}
+		lastPurge = now;
+		dao.deleteOlderThan(new Date(now - retentionMs));
+	}
+
+	private static ChangeEvent.Type typeOf(ChangeLogEntry entry) {
+		try {
+			return ChangeEvent.Type.valueOf(entry.getType());
+		}
+		catch (IllegalArgumentException e) {
+			// gravado por uma verso mais nova da aplicao
+			return ChangeEvent.Type.INVALIDATED;
+		}
+	}
+
+	private FuncionarioService funcionarioService() {
+		if (funcionarioService == null) {
+			funcionarioService = new FuncionarioService();
+		}
+		return funcionarioService;
+	}
+
+	private ClienteService clienteService() {
+		if (clienteService == null) {
+			clienteService = new ClienteService();
+		}
+		return clienteService;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public synchronized long getLastSeq() {
+		return lastSeq;
+	}
+
+	/**
+	 * Linhas de outras instncias lidas desde o incio.
+	 */
+	public synchronized long getReceivedCount() {
+		return receivedCount;
+	}
+
+	/**
+	 * Quantas vezes as telas tiveram de recarregar tudo em vez de aplicar as
+	 * alteraes uma a uma.
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidationCount;
+	}
+
+}
@@ -0,0 +1,88 @@
+package model.services;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import db.UnitOfWork;
+
+/**
+ * Distribui os {@link ChangeEvent} de um tipo de entidade. Os listeners so
+ * guardados por referncia fraca, para que uma tela descartada no fique presa
+ * aqui: quem se inscreve precisa manter o prprio listener em um campo.
+ * <p>
+ * Um evento publicado dentro de uma {@link UnitOfWork} s  entregue depois
+ * do commit, e  descartado se houver rollback.
+ * <p>
+ * Com um journal ligado ({@link ChangeFeed}), cada evento publicado tambm 
+ * gravado na hora, na transao da gravao que ele descreve, para as outras
+ * instncias da aplicao. {@link #publishLocal} entrega sem gravar.
+ */
+public class ChangePublisher<T> {
+
+	private final CopyOnWriteArrayList<WeakReference<EntityChangeListener<T>>> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile Consumer<ChangeEvent<T>> journal;
+
+	public void subscribe(EntityChangeListener<T> listener) {
+		listeners.add(new WeakReference<>(listener));
+	}
+
+	public void unsubscribe(EntityChangeListener<T> listener) {
+		listeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+	}
+
+	public void setJournal(Consumer<ChangeEvent<T>> journal) {
+		this.journal = journal;
+	}
+
+	public void publish(ChangeEvent<T> event) {
+		Consumer<ChangeEvent<T>> journal = this.journal;
+		if (journal != null) {
+			journal.accept(event);
+		}
+		publishLocal(event);
+	}
+
+	/**
+	 * Entrega s aos listeners desta instncia: para eventos que vieram de
+	 * outra instncia ou que ainda no correspondem a uma gravao.
+	 */
+	public void publishLocal(ChangeEvent<T> event) {
+		UnitOfWork.afterCommit(() -> dispatch(event));
+	}
+
+	private void dispatch(ChangeEvent<T> event) {
+		boolean stale = false;
+		for (Iterator<WeakReference<EntityChangeListener<T>>> it = listeners.iterator(); it.hasNext();) {
+			EntityChangeListener<T> listener = it.next().get();
+			if (listener == null) {
+				stale = true;
+			}
+			else {
+				listener.onChange(event);
+			}
+		}
+		if (stale) {
+			listeners.removeIf(ref -> ref.get() == null);
+		}
+	}
+
+	public void inserted(T entity, Integer id) {
+		publish(new ChangeEvent<>(ChangeEvent.Type.INSERTED, entity, id));
+	}
+
+	public void updated(T entity, Integer id) {
+		publish(new ChangeEvent<>(ChangeEvent.Type.UPDATED, entity, id));
+	}
+
+	public void deleted(T entity, Integer id) {
+		publish(new ChangeEvent<>(ChangeEvent.Type.DELETED, entity, id));
+	}
+
+	public void invalidated() {
+		publish(new ChangeEvent<>(ChangeEvent.Type.INVALIDATED, null, null));
+	}
+
+}
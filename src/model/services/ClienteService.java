@@ -1,30 +1,190 @@
 package model.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
+import db.UnitOfWork;
+import model.dao.BatchResult;
 import model.dao.ClienteDao;
 import model.dao.DaoFactory;
+import model.dao.FuncionarioDao;
 import model.entities.Cliente;
 
 public class ClienteService {
 	
+	private static final ChangePublisher<Cliente> changes = new ChangePublisher<>();
+	
+	private static WriteBehindQueue<Cliente> writeBehind;
+	
+	private static boolean writeBehindChecked;
+	
 	private ClienteDao dao = DaoFactory.criaClienteDao();
 	
+	private FuncionarioDao funcionarioDao = DaoFactory.criaFuncionarioDao();
+	
+	private final UnitOfWork unitOfWork = new UnitOfWork();
+	
+	public ClienteService() {
+		// o feed precisa estar ligado antes da primeira gravao
+		ChangeFeed.start();
+	}
+	
+	/**
+	 * Eventos das gravaes feitas por qualquer instncia deste service.
+	 */
+	public static ChangePublisher<Cliente> getChanges() {
+		return changes;
+	}
+	
+	/**
+	 * A fila do modo write-behind, compartilhada por todas as instncias, ou
+	 * {@code null} se ele no est ligado no db.properties. Uma falha
+	 * definitiva publica {@code INVALIDATED}, para as telas descartarem a
+	 * alterao que mostraram antes da gravao.
+	 */
+	public static synchronized WriteBehindQueue<Cliente> getWriteBehind() {
+		if (!writeBehindChecked) {
+			writeBehindChecked = true;
+			ClienteService writer = new ClienteService();
+			writeBehind = WriteBehindQueue.fromProperties("cliente", writer::writeBatch, Cliente::getId);
+			if (writeBehind != null) {
+				writeBehind.addListener(changes::invalidated);
+			}
+		}
+		return writeBehind;
+	}
+	
+	/**
+	 * Grava o que ainda est na fila do write-behind, esperando at
+	 * {@code timeoutMs}, e a encerra.
+	 * 
+	 * @return quantas gravaes ficaram pendentes
+	 */
+	public static synchronized int closeWriteBehind(long timeoutMs) {
+		return writeBehind == null ? 0 : writeBehind.close(timeoutMs);
+	}
+	
 	public List<Cliente> findAll(){
 		return dao.findAll();
 	}
 	
+	public Cliente findById(Integer id) {
+		return dao.findById(id);
+	}
+	
+	public List<Cliente> findPage(Cliente after, int limit) {
+		return dao.findPage(after, limit);
+	}
+	
 	public void saveOrUpdate(Cliente obj) {
-		if(obj.getId() == null) {
-			dao.insert(obj);
+		// o evento vai para o feed de alteraes no mesmo commit
+		unitOfWork.run(() -> {
+			if(obj.getId() == null) {
+				dao.insert(obj);
+				changes.inserted(obj, obj.getId());
+			}
+			else {
+				dao.update(obj);
+				changes.updated(obj, obj.getId());
+			}
+		});
+	}
+	
+	/**
+	 * Com o write-behind ligado, s coloca {@code obj} na fila e volta na hora:
+	 * uma alterao  publicada como {@code UPDATED} imediatamente e uma
+	 * incluso  publicada como {@code INSERTED} quando for gravada, j com o
+	 * id. Sem write-behind  igual ao {@link #saveOrUpdate}.
+	 */
+	public void saveOrUpdateLater(Cliente obj) {
+		WriteBehindQueue<Cliente> queue = getWriteBehind();
+		if (queue == null) {
+			saveOrUpdate(obj);
+			return;
 		}
-		else {
-			dao.update(obj);
+		queue.enqueue(obj);
+		if (obj.getId() != null) {
+			// ainda no foi gravada: as outras instncias s ficam sabendo no writeBatch
+			changes.publishLocal(new ChangeEvent<>(ChangeEvent.Type.UPDATED, obj, obj.getId()));
 		}
 	}
 	
+	public BatchResult<Cliente> saveOrUpdateAll(Collection<Cliente> list) {
+		return unitOfWork.execute(() -> {
+			BatchResult<Cliente> result = saveAll(list);
+			if (!result.getSaved().isEmpty()) {
+				changes.invalidated();
+			}
+			return result;
+		});
+	}
+	
+	private BatchResult<Cliente> writeBatch(List<Cliente> batch) {
+		Set<Cliente> inserts = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Cliente obj : batch) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			}
+		}
+		// os ids de uma transao desfeita voltam a null no DAO
+		return unitOfWork.execute(() -> {
+			BatchResult<Cliente> saved = saveAll(batch);
+			// as alteraes j foram mostradas aqui no saveOrUpdateLater; so
+			// publicadas de novo para irem ao feed junto com o lote
+			for (Cliente obj : saved.getSaved()) {
+				if (inserts.contains(obj)) {
+					changes.inserted(obj, obj.getId());
+				}
+				else {
+					changes.updated(obj, obj.getId());
+				}
+			}
+			return saved;
+		});
+	}
+	
+	private BatchResult<Cliente> saveAll(Collection<Cliente> list) {
+		List<Cliente> inserts = new ArrayList<>();
+		List<Cliente> updates = new ArrayList<>();
+		for (Cliente obj : list) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			}
+			else {
+				updates.add(obj);
+			}
+		}
+		// incluses e alteraes num nico commit
+		return unitOfWork.execute(() -> {
+			BatchResult<Cliente> result = dao.insertAll(inserts);
+			result.addAll(dao.updateAll(updates));
+			return result;
+		});
+	}
+	
 	public void remove(Cliente obj) {
-		dao.deleteById(obj.getId());
+		unitOfWork.run(() -> {
+			dao.deleteById(obj.getId());
+			changes.deleted(obj, obj.getId());
+		});
+	}
+	
+	/**
+	 * Passa os funcionrios do cliente para {@code target} e remove o cliente,
+	 * na mesma transao: ou as duas coisas acontecem ou nenhuma.
+	 */
+	public void remove(Cliente obj, Cliente target) {
+		unitOfWork.run(() -> {
+			if (funcionarioDao.reassignCliente(obj.getId(), target.getId()) > 0) {
+				FuncionarioService.getChanges().invalidated();
+			}
+			dao.deleteById(obj.getId());
+			changes.deleted(obj, obj.getId());
+		});
 	}
 
 }
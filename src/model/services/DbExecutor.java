@@ -0,0 +1,49 @@
+package model.services;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import db.DB;
+
+/**
+ * Executor onde rodam todas as chamadas assncronas aos DAOs. Usa virtual
+ * threads quando a JVM oferece {@code Executors.newVirtualThreadPerTaskExecutor};
+ * caso contrrio, um pool fixo de threads daemon do tamanho do pool de conexes.
+ */
+public class DbExecutor {
+
+	private static ExecutorService executor = null;
+
+	public static synchronized ExecutorService get() {
+		if (executor == null) {
+			executor = create();
+		}
+		return executor;
+	}
+
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private static ExecutorService create() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			// JVM sem virtual threads, usa threads de plataforma
+		}
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(DB.getIntProperty("pool.maxSize", 10), r -> {
+			Thread t = new Thread(r, "db-worker-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+}
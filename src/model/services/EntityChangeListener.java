@@ -0,0 +1,10 @@
+package model.services;
+
+public interface EntityChangeListener<T> {
+
+	/**
+	 * Chamado na thread que fez a gravao, logo depois de ela terminar.
+	 */
+	void onChange(ChangeEvent<T> event);
+
+}
@@ -0,0 +1,286 @@
+package model.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.exceptions.ExportCancelledException;
+
+/**
+ * Exporta funcionrios, com os dados do cliente, para CSV ou JSON. As linhas
+ * vo do cursor do banco direto para o arquivo, sem montar listas, ento a
+ * memria usada no depende da quantidade de linhas.
+ * <p>
+ * Cada instncia faz uma exportao por vez; {@link #cancel()} pode ser
+ * chamado de qualquer thread e interrompe a exportao na prxima linha,
+ * apagando o arquivo incompleto. Um cancelamento feito antes de a exportao
+ * comear tambm vale: ela termina sem abrir o arquivo. S
+ * {@link #exportFuncionariosAsync} limpa o cancelamento anterior, na thread
+ * de quem pede a exportao e antes de agend-la.
+ */
+public class ExportService {
+
+	public enum Format {
+		CSV, JSON;
+
+		public static Format fromFileName(String fileName) {
+			return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+		}
+	}
+
+	/** A cada quantas linhas o progresso  informado. */
+	public static final int PROGRESS_STEP = 10_000;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final String[] COLUMNS = { "id", "nome", "email", "inicio", "salario", "clienteId", "empresa",
+			"projeto" };
+
+	private final FuncionarioService service;
+
+	private volatile boolean cancelled;
+
+	public ExportService() {
+		this(new FuncionarioService());
+	}
+
+	public ExportService(FuncionarioService service) {
+		this.service = service;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Grava em {@code target} os funcionrios que atendem  consulta e devolve
+	 * quantas linhas foram escritas. {@code onProgress} recebe o total de linhas
+	 * a cada {@link #PROGRESS_STEP} e no fim; roda na thread da exportao.
+	 *
+	 * @throws ExportCancelledException se a exportao for cancelada
+	 */
+	public long exportFuncionarios(FuncionarioQuery query, Format format, Path target, LongConsumer onProgress) {
+		if (cancelled) {
+			throw new ExportCancelledException("Exportao cancelada");
+		}
+		long[] count = { 0 };
+		boolean done = false;
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+						BUFFER_SIZE)) {
+
+			StringBuilder line = new StringBuilder(256);
+			writeHeader(out, format);
+			service.forEachFuncionario(query, true, obj -> {
+				if (cancelled) {
+					throw new ExportCancelledException("Exportao cancelada");
+				}
+				line.setLength(0);
+				if (format == Format.CSV) {
+					appendCsv(line, obj);
+				}
+				else {
+					appendJson(line, obj, count[0] == 0);
+				}
+				write(out, line);
+				if (++count[0] % PROGRESS_STEP == 0 && onProgress != null) {
+					onProgress.accept(count[0]);
+				}
+			});
+			writeFooter(out, format);
+			done = true;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		finally {
+			if (!done) {
+				deleteQuietly(target);
+			}
+		}
+		if (onProgress != null) {
+			onProgress.accept(count[0]);
+		}
+		return count[0];
+	}
+
+	public CompletableFuture<Long> exportFuncionariosAsync(FuncionarioQuery query, Format format, Path target,
+			LongConsumer onProgress) {
+		cancelled = false;
+		return CompletableFuture.supplyAsync(() -> exportFuncionarios(query, format, target, onProgress),
+				DbExecutor.get());
+	}
+
+	private static void writeHeader(Writer out, Format format) throws IOException {
+		if (format == Format.CSV) {
+			out.write(String.join(",", COLUMNS));
+			out.write("\r\n");
+		}
+		else {
+			out.write("[");
+		}
+	}
+
+	private static void writeFooter(Writer out, Format format) throws IOException {
+		if (format == Format.JSON) {
+			out.write("\n]\n");
+		}
+	}
+
+	private static void write(Writer out, StringBuilder line) {
+		try {
+			out.append(line);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void appendCsv(StringBuilder sb, Funcionario obj) {
+		Cliente cli = obj.getCliente();
+		sb.append(obj.getId()).append(',');
+		appendCsvText(sb, obj.getNome());
+		sb.append(',');
+		appendCsvText(sb, obj.getEmail());
+		sb.append(',');
+		appendDate(sb, obj.getInicio());
+		sb.append(',');
+		appendMoney(sb, obj.getSalario());
+		sb.append(',').append(cli.getId()).append(',');
+		appendCsvText(sb, cli.getEmpresa());
+		sb.append(',');
+		appendCsvText(sb, cli.getProjeto());
+		sb.append("\r\n");
+	}
+
+	private static void appendJson(StringBuilder sb, Funcionario obj, boolean first) {
+		Cliente cli = obj.getCliente();
+		sb.append(first ? "\n" : ",\n");
+		sb.append("{\"").append(COLUMNS[0]).append("\":").append(obj.getId());
+		sb.append(",\"").append(COLUMNS[1]).append("\":");
+		appendJsonText(sb, obj.getNome());
+		sb.append(",\"").append(COLUMNS[2]).append("\":");
+		appendJsonText(sb, obj.getEmail());
+		sb.append(",\"").append(COLUMNS[3]).append("\":\"");
+		appendDate(sb, obj.getInicio());
+		sb.append("\",\"").append(COLUMNS[4]).append("\":");
+		appendMoney(sb, obj.getSalario());
+		sb.append(",\"").append(COLUMNS[5]).append("\":").append(cli.getId());
+		sb.append(",\"").append(COLUMNS[6]).append("\":");
+		appendJsonText(sb, cli.getEmpresa());
+		sb.append(",\"").append(COLUMNS[7]).append("\":");
+		appendJsonText(sb, cli.getProjeto());
+		sb.append('}');
+	}
+
+	private static void appendCsvText(StringBuilder sb, String value) {
+		if (value == null) {
+			return;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			sb.append(value);
+			return;
+		}
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				sb.append('"');
+			}
+			sb.append(c);
+		}
+		sb.append('"');
+	}
+
+	private static void appendJsonText(StringBuilder sb, String value) {
+		if (value == null) {
+			sb.append("null");
+			return;
+		}
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+	/** Data no formato ISO (aaaa-mm-dd). */
+	private static void appendDate(StringBuilder sb, Date date) {
+		sb.append(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+	}
+
+	/** Valor com duas casas e ponto decimal, sem notao cientfica. */
+	private static void appendMoney(StringBuilder sb, double value) {
+		long cents = Math.round(value * 100);
+		if (cents < 0) {
+			sb.append('-');
+			cents = -cents;
+		}
+		long fraction = cents % 100;
+		sb.append(cents / 100).append('.');
+		if (fraction < 10) {
+			sb.append('0');
+		}
+		sb.append(fraction);
+	}
+
+	private static void deleteQuietly(Path target) {
+		try {
+			Files.deleteIfExists(target);
+		}
+		catch (IOException e) {
+			// o arquivo incompleto fica para trs; o erro original  mais til
+		}
+	}
+
+}
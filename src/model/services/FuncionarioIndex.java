@@ -0,0 +1,593 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import model.dao.FuncionarioDao;
+import model.dao.FuncionarioQuery;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.entities.FuncionarioSnapshot;
+
+/**
+ * ndices em memria sobre um {@link FuncionarioSnapshot}, para ordenar,
+ * filtrar e buscar os funcionrios j carregados sem voltar ao banco:
+ * <ul>
+ * <li>uma permutao ordenada das linhas por coluna ({@link Column}), em
+ * {@code int[]}; ordenar a tabela  percorrer uma delas;</li>
+ * <li>hash de id para linha e de {@code ClienteId} para as linhas do
+ * cliente;</li>
+ * <li>busca por prefixo de nome e e-mail, sem diferenciar maisculas, como
+ * faixa da permutao de {@code NOME} ou {@code EMAIL}, que ficam nessa
+ * ordem.</li>
+ * </ul>
+ * As linhas so identificadas por um nmero: as do snapshot pela posio
+ * nele, e as includas ou alteradas depois vm em seguida. {@link #apply}
+ * mantm os ndices em dia com os {@link ChangeEvent} dos services: uma
+ * incluso ou remoo  uma busca binria e um deslocamento do array em cada
+ * permutao; uma alterao troca a linha antiga pela nova e desloca s o
+ * trecho entre as duas posies.
+ * <p>
+ * No  sincronizado: depois de montado, deve ser usado por uma thread s (a
+ * tela usa a do JavaFX).
+ */
+public class FuncionarioIndex {
+
+	/**
+	 * Ordens mantidas pelo ndice. Em todas o id desempata. {@code CLIENTE} 
+	 * a ordem das pginas do {@link FuncionarioDao#PAGE_ORDER}.
+	 */
+	public enum Column {
+		ID, NOME, EMAIL, INICIO, SALARIO, CLIENTE
+	}
+
+	private static final int NO_CLIENTE = Integer.MIN_VALUE;
+
+	private interface RowOrder {
+		int compare(int a, int b);
+	}
+
+	private final FuncionarioSnapshot snapshot;
+	private final int base;
+	private final List<Funcionario> added = new ArrayList<>();
+	private int live;
+
+	private final IntHashIndex byId;
+	private final IntHashIndex byCliente;
+	private int[][] clienteRows = new int[16][];
+	private int[] clienteCounts = new int[16];
+	private int clienteBuckets;
+
+	private final SortedColumn[] columns = new SortedColumn[Column.values().length];
+
+	public FuncionarioIndex(FuncionarioSnapshot snapshot) {
+		this.snapshot = snapshot;
+		this.base = snapshot.size();
+		this.live = base;
+		this.byId = new IntHashIndex(base);
+		this.byCliente = new IntHashIndex(snapshot.getClientes().size());
+		for (int row = 0; row < base; row++) {
+			byId.put(snapshot.getId(row), row);
+			addToCliente(row);
+		}
+		int[] all = new int[base];
+		for (int row = 0; row < base; row++) {
+			all[row] = row;
+		}
+		// as strings so lidas uma vez para a montagem, e no a cada comparao
+		String[] nomes = new String[base];
+		String[] emails = new String[base];
+		for (int row = 0; row < base; row++) {
+			nomes[row] = snapshot.getNome(row);
+			emails[row] = snapshot.getEmail(row);
+		}
+		for (Column column : Column.values()) {
+			RowOrder order = orderOf(column);
+			RowOrder build = column == Column.NOME ? (a, b) -> compareText(nomes[a], nomes[b], a, b)
+					: column == Column.EMAIL ? (a, b) -> compareText(emails[a], emails[b], a, b) : order;
+			columns[column.ordinal()] = new SortedColumn(order, sort(all.clone(), base, build));
+		}
+	}
+
+	public FuncionarioSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Quantos funcionrios existem agora, com as incluses e remoes.
+	 */
+	public int size() {
+		return live;
+	}
+
+	/**
+	 * O funcionrio da linha: os do snapshot so montados a cada chamada.
+	 */
+	public Funcionario get(int row) {
+		return row < base ? snapshot.get(row) : added.get(row - base);
+	}
+
+	public Funcionario findById(int id) {
+		int row = byId.get(id, -1);
+		return row < 0 ? null : get(row);
+	}
+
+	/**
+	 * Os funcionrios do cliente, na ordem de id.
+	 */
+	public List<Funcionario> findByCliente(int clienteId) {
+		int bucket = byCliente.get(clienteId, -1);
+		if (bucket < 0) {
+			return Collections.emptyList();
+		}
+		int[] rows = Arrays.copyOf(clienteRows[bucket], clienteCounts[bucket]);
+		sort(rows, rows.length, orderOf(Column.ID));
+		List<Funcionario> list = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			list.add(get(row));
+		}
+		return list;
+	}
+
+	/**
+	 * As linhas que atendem  consulta, na ordem pedida, para usar com
+	 * {@link #get}. A busca parte do critrio mais seletivo que tenha ndice
+	 * (cliente, prefixo, faixa de salrio ou de incio) e confere os outros
+	 * linha a linha, com a mesma semntica do
+	 * {@link FuncionarioQuery#matches}; as datas so comparadas por dia.
+	 */
+	public int[] select(FuncionarioQuery query, Column order, boolean ascending) {
+		SortedColumn sorted = columns[order.ordinal()];
+		int[] rows;
+		if (query == null || query.isEmpty()) {
+			rows = Arrays.copyOf(sorted.rows, sorted.size);
+		}
+		else {
+			Candidates candidates = candidates(query);
+			int count = 0;
+			int[] matched = new int[candidates.size];
+			for (int i = 0; i < candidates.size; i++) {
+				int row = candidates.rows[candidates.from + i];
+				if (matches(row, query)) {
+					matched[count++] = row;
+				}
+			}
+			if (candidates.column == order) {
+				rows = Arrays.copyOf(matched, count);
+			}
+			else if (count > live / 8) {
+				// muitas linhas: percorrer a permutao sai mais barato que ordenar
+				BitSet keep = new BitSet(base + added.size());
+				for (int i = 0; i < count; i++) {
+					keep.set(matched[i]);
+				}
+				rows = new int[count];
+				int n = 0;
+				for (int i = 0; i < sorted.size; i++) {
+					if (keep.get(sorted.rows[i])) {
+						rows[n++] = sorted.rows[i];
+					}
+				}
+			}
+			else {
+				rows = sort(Arrays.copyOf(matched, count), count, sorted.order);
+			}
+		}
+		if (!ascending) {
+			for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+				int t = rows[i];
+				rows[i] = rows[j];
+				rows[j] = t;
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Aplica uma gravao. Devolve {@code false} para um {@code INVALIDATED}:
+	 * o ndice no sabe o que mudou e precisa ser montado de novo.
+	 */
+	public boolean apply(ChangeEvent<Funcionario> event) {
+		switch (event.getType()) {
+		case INSERTED:
+		case UPDATED:
+			put(event.getEntity());
+			return true;
+		case DELETED:
+			remove(event.getId());
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Inclui o funcionrio, ou troca a linha do mesmo id.
+	 */
+	public void put(Funcionario obj) {
+		if (obj.getId() == null) {
+			throw new IllegalArgumentException("O funcionrio ainda no foi gravado");
+		}
+		int old = byId.get(obj.getId(), -1);
+		// cpia: o objeto gravado continua nas mos de quem gravou
+		Funcionario copy = new Funcionario(obj.getId(), obj.getNome(), obj.getEmail(), obj.getInicio(),
+				obj.getSalario(), obj.getCliente());
+		copy.setVersion(obj.getVersion());
+		int row = base + added.size();
+		added.add(copy);
+		byId.put(obj.getId(), row);
+		if (old < 0) {
+			live++;
+			for (SortedColumn column : columns) {
+				column.insert(row);
+			}
+		}
+		else {
+			removeFromCliente(old);
+			for (SortedColumn column : columns) {
+				column.replace(old, row);
+			}
+		}
+		addToCliente(row);
+	}
+
+	public boolean remove(Integer id) {
+		int row = id == null ? -1 : byId.get(id, -1);
+		if (row < 0) {
+			return false;
+		}
+		// as permutaes acham a linha pelos valores dela, que continuam legveis
+		for (SortedColumn column : columns) {
+			column.remove(row);
+		}
+		removeFromCliente(row);
+		byId.remove(id);
+		live--;
+		return true;
+	}
+
+	private static class Candidates {
+		final int[] rows;
+		final int from;
+		final int size;
+		final Column column;
+
+		Candidates(int[] rows, int from, int size, Column column) {
+			this.rows = rows;
+			this.from = from;
+			this.size = size;
+			this.column = column;
+		}
+	}
+
+	private Candidates candidates(FuncionarioQuery query) {
+		Candidates best = null;
+		if (query.getClienteId() != null) {
+			int bucket = byCliente.get(query.getClienteId(), -1);
+			best = bucket < 0 ? new Candidates(new int[0], 0, 0, null)
+					: new Candidates(clienteRows[bucket], 0, clienteCounts[bucket], null);
+		}
+		if (query.getNomePrefix() != null) {
+			best = smaller(best, prefixRange(Column.NOME, query.getNomePrefix()));
+		}
+		if (query.getEmailPrefix() != null) {
+			best = smaller(best, prefixRange(Column.EMAIL, query.getEmailPrefix()));
+		}
+		if (query.getSalarioMin() != null || query.getSalarioMax() != null) {
+			SortedColumn c = columns[Column.SALARIO.ordinal()];
+			double min = query.getSalarioMin() == null ? Double.NEGATIVE_INFINITY : query.getSalarioMin();
+			double max = query.getSalarioMax() == null ? Double.POSITIVE_INFINITY : query.getSalarioMax();
+			int from = c.firstWhere(row -> Double.compare(salario(row), min) >= 0);
+			int to = c.firstWhere(row -> Double.compare(salario(row), max) > 0);
+			best = smaller(best, new Candidates(c.rows, from, Math.max(0, to - from), Column.SALARIO));
+		}
+		if (query.getInicioMin() != null || query.getInicioMax() != null) {
+			SortedColumn c = columns[Column.INICIO.ordinal()];
+			// sem data fica antes de tudo e fora da faixa
+			int min = query.getInicioMin() == null ? FuncionarioSnapshot.NO_DATE + 1
+					: FuncionarioSnapshot.toEpochDay(query.getInicioMin());
+			int max = query.getInicioMax() == null ? Integer.MAX_VALUE
+					: FuncionarioSnapshot.toEpochDay(query.getInicioMax());
+			int from = c.firstWhere(row -> inicio(row) >= min);
+			int to = c.firstWhere(row -> inicio(row) > max);
+			best = smaller(best, new Candidates(c.rows, from, Math.max(0, to - from), Column.INICIO));
+		}
+		return best;
+	}
+
+	private Candidates prefixRange(Column column, String prefix) {
+		SortedColumn c = columns[column.ordinal()];
+		boolean nome = column == Column.NOME;
+		int from = c.firstWhere(row -> comparePrefix(nome ? nome(row) : email(row), prefix) >= 0);
+		int to = c.firstWhere(row -> comparePrefix(nome ? nome(row) : email(row), prefix) > 0);
+		return new Candidates(c.rows, from, to - from, column);
+	}
+
+	private static Candidates smaller(Candidates a, Candidates b) {
+		return a == null || b.size < a.size ? b : a;
+	}
+
+	private boolean matches(int row, FuncionarioQuery query) {
+		if (query.getClienteId() != null && clienteId(row) != query.getClienteId()) {
+			return false;
+		}
+		if (query.getNomePrefix() != null && comparePrefix(nome(row), query.getNomePrefix()) != 0) {
+			return false;
+		}
+		if (query.getEmailPrefix() != null && comparePrefix(email(row), query.getEmailPrefix()) != 0) {
+			return false;
+		}
+		int day = inicio(row);
+		if (query.getInicioMin() != null
+				&& (day == FuncionarioSnapshot.NO_DATE || day < FuncionarioSnapshot.toEpochDay(query.getInicioMin()))) {
+			return false;
+		}
+		if (query.getInicioMax() != null
+				&& (day == FuncionarioSnapshot.NO_DATE || day > FuncionarioSnapshot.toEpochDay(query.getInicioMax()))) {
+			return false;
+		}
+		double salario = salario(row);
+		if (query.getSalarioMin() != null && !(salario >= query.getSalarioMin())) {
+			return false;
+		}
+		return query.getSalarioMax() == null || salario <= query.getSalarioMax();
+	}
+
+	private RowOrder orderOf(Column column) {
+		switch (column) {
+		case NOME:
+			return (a, b) -> compareText(nome(a), nome(b), a, b);
+		case EMAIL:
+			return (a, b) -> compareText(email(a), email(b), a, b);
+		case INICIO:
+			return (a, b) -> {
+				int c = Integer.compare(inicio(a), inicio(b));
+				return c != 0 ? c : Integer.compare(id(a), id(b));
+			};
+		case SALARIO:
+			return (a, b) -> {
+				int c = Double.compare(salario(a), salario(b));
+				return c != 0 ? c : Integer.compare(id(a), id(b));
+			};
+		case CLIENTE:
+			return (a, b) -> {
+				Cliente ca = cliente(a);
+				Cliente cb = cliente(b);
+				int c = String.CASE_INSENSITIVE_ORDER.compare(ca == null ? "" : ca.getEmpresa(),
+						cb == null ? "" : cb.getEmpresa());
+				if (c == 0) {
+					c = Integer.compare(clienteId(a), clienteId(b));
+				}
+				return c != 0 ? c : Integer.compare(id(a), id(b));
+			};
+		default:
+			return (a, b) -> Integer.compare(id(a), id(b));
+		}
+	}
+
+	private int compareText(String x, String y, int a, int b) {
+		int c = String.CASE_INSENSITIVE_ORDER.compare(x, y);
+		if (c == 0) {
+			c = x.compareTo(y);
+		}
+		return c != 0 ? c : Integer.compare(id(a), id(b));
+	}
+
+	/**
+	 * Compara o comeo de {@code value} com {@code prefix} na ordem do
+	 * {@code CASE_INSENSITIVE_ORDER}: 0 se {@code value} comea com ele. Os
+	 * valores que comeam com o prefixo ficam juntos nessa ordem.
+	 */
+	private static int comparePrefix(String value, String prefix) {
+		int n = Math.min(value.length(), prefix.length());
+		for (int i = 0; i < n; i++) {
+			char c1 = value.charAt(i);
+			char c2 = prefix.charAt(i);
+			if (c1 != c2) {
+				c1 = Character.toUpperCase(c1);
+				c2 = Character.toUpperCase(c2);
+				if (c1 != c2) {
+					c1 = Character.toLowerCase(c1);
+					c2 = Character.toLowerCase(c2);
+					if (c1 != c2) {
+						return c1 - c2;
+					}
+				}
+			}
+		}
+		return value.length() < prefix.length() ? -1 : 0;
+	}
+
+	private int id(int row) {
+		return row < base ? snapshot.getId(row) : added.get(row - base).getId();
+	}
+
+	private String nome(int row) {
+		if (row < base) {
+			return snapshot.getNome(row);
+		}
+		String nome = added.get(row - base).getNome();
+		return nome == null ? "" : nome;
+	}
+
+	private String email(int row) {
+		if (row < base) {
+			return snapshot.getEmail(row);
+		}
+		String email = added.get(row - base).getEmail();
+		return email == null ? "" : email;
+	}
+
+	private int inicio(int row) {
+		return row < base ? snapshot.getInicioEpochDay(row)
+				: FuncionarioSnapshot.toEpochDay(added.get(row - base).getInicio());
+	}
+
+	private double salario(int row) {
+		if (row < base) {
+			return snapshot.getSalario(row);
+		}
+		Double salario = added.get(row - base).getSalario();
+		return salario == null ? Double.NaN : salario;
+	}
+
+	private Cliente cliente(int row) {
+		return row < base ? snapshot.getCliente(row) : added.get(row - base).getCliente();
+	}
+
+	private int clienteId(int row) {
+		Cliente cliente = cliente(row);
+		return cliente == null || cliente.getId() == null ? NO_CLIENTE : cliente.getId();
+	}
+
+	private void addToCliente(int row) {
+		int clienteId = clienteId(row);
+		if (clienteId == NO_CLIENTE) {
+			return;
+		}
+		int bucket = byCliente.get(clienteId, -1);
+		if (bucket < 0) {
+			if (clienteBuckets == clienteRows.length) {
+				clienteRows = Arrays.copyOf(clienteRows, clienteBuckets * 2);
+				clienteCounts = Arrays.copyOf(clienteCounts, clienteBuckets * 2);
+			}
+			bucket = clienteBuckets++;
+			clienteRows[bucket] = new int[8];
+			byCliente.put(clienteId, bucket);
+		}
+		if (clienteCounts[bucket] == clienteRows[bucket].length) {
+			clienteRows[bucket] = Arrays.copyOf(clienteRows[bucket], clienteCounts[bucket] * 2);
+		}
+		clienteRows[bucket][clienteCounts[bucket]++] = row;
+	}
+
+	private void removeFromCliente(int row) {
+		int bucket = byCliente.get(clienteId(row), -1);
+		if (bucket < 0) {
+			return;
+		}
+		int[] rows = clienteRows[bucket];
+		int count = clienteCounts[bucket];
+		for (int i = 0; i < count; i++) {
+			if (rows[i] == row) {
+				// a ordem dentro do cliente no importa
+				rows[i] = rows[count - 1];
+				clienteCounts[bucket]--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Ordena {@code rows[0..size)} por merge sort, estvel e sem objetos.
+	 */
+	private static int[] sort(int[] rows, int size, RowOrder order) {
+		int[] buffer = new int[size];
+		int[] from = rows;
+		int[] to = buffer;
+		for (int width = 1; width < size; width *= 2) {
+			for (int lo = 0; lo < size; lo += 2 * width) {
+				int mid = Math.min(lo + width, size);
+				int hi = Math.min(lo + 2 * width, size);
+				int i = lo;
+				int j = mid;
+				int k = lo;
+				if (mid >= hi || order.compare(from[mid - 1], from[mid]) <= 0) {
+					// j esto em ordem
+					System.arraycopy(from, lo, to, lo, hi - lo);
+					continue;
+				}
+				while (i < mid && j < hi) {
+					to[k++] = order.compare(from[j], from[i]) < 0 ? from[j++] : from[i++];
+				}
+				System.arraycopy(from, i, to, k, mid - i);
+				System.arraycopy(from, j, to, k + mid - i, hi - j);
+			}
+			int[] t = from;
+			from = to;
+			to = t;
+		}
+		if (from != rows) {
+			System.arraycopy(from, 0, rows, 0, size);
+		}
+		return rows;
+	}
+
+	private interface RowTest {
+		boolean test(int row);
+	}
+
+	/**
+	 * Uma permutao das linhas vivas na ordem de uma coluna.
+	 */
+	private static final class SortedColumn {
+
+		final RowOrder order;
+		int[] rows;
+		int size;
+
+		SortedColumn(RowOrder order, int[] rows) {
+			this.order = order;
+			this.rows = rows;
+			this.size = rows.length;
+		}
+
+		void insert(int row) {
+			int pos = firstWhere(other -> order.compare(other, row) >= 0);
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, Math.max(16, size + (size >> 3)));
+			}
+			System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+			rows[pos] = row;
+			size++;
+		}
+
+		/**
+		 * Troca a linha {@code old} por {@code row} deslocando s o trecho
+		 * entre as duas posies, que numa alterao costuma ser pequeno.
+		 */
+		void replace(int old, int row) {
+			int from = firstWhere(other -> order.compare(other, old) >= 0);
+			int to = firstWhere(other -> order.compare(other, row) >= 0);
+			if (to > from) {
+				System.arraycopy(rows, from + 1, rows, from, to - from - 1);
+				rows[to - 1] = row;
+			}
+			else {
+				System.arraycopy(rows, to, rows, to + 1, from - to);
+				rows[to] = row;
+			}
+		}
+
+		void remove(int row) {
+			int pos = firstWhere(other -> order.compare(other, row) >= 0);
+			if (pos < size && rows[pos] == row) {
+				System.arraycopy(rows, pos + 1, rows, pos, size - pos - 1);
+				size--;
+			}
+		}
+
+		/**
+		 * A primeira posio em que {@code test}  verdadeiro; ele tem de ser
+		 * falso antes e verdadeiro depois dela.
+		 */
+		int firstWhere(RowTest test) {
+			int lo = 0;
+			int hi = size;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (test.test(rows[mid])) {
+					hi = mid;
+				}
+				else {
+					lo = mid + 1;
+				}
+			}
+			return lo;
+		}
+	}
+
+}
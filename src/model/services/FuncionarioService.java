@@ -1,30 +1,199 @@
 package model.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import db.UnitOfWork;
+import model.dao.BatchResult;
 import model.dao.DaoFactory;
 import model.dao.FuncionarioDao;
+import model.dao.FuncionarioQuery;
 import model.entities.Funcionario;
+import model.entities.FuncionarioSnapshot;
 
 public class FuncionarioService {
 	
+	private static final ChangePublisher<Funcionario> changes = new ChangePublisher<>();
+	
+	private static WriteBehindQueue<Funcionario> writeBehind;
+	
+	private static boolean writeBehindChecked;
+	
 	private FuncionarioDao dao = DaoFactory.criaFuncionarioDao();
 	
+	private final UnitOfWork unitOfWork = new UnitOfWork();
+	
+	public FuncionarioService() {
+		// o feed precisa estar ligado antes da primeira gravao
+		ChangeFeed.start();
+	}
+	
+	/**
+	 * Eventos das gravaes feitas por qualquer instncia deste service.
+	 */
+	public static ChangePublisher<Funcionario> getChanges() {
+		return changes;
+	}
+	
+	/**
+	 * A fila do modo write-behind, compartilhada por todas as instncias, ou
+	 * {@code null} se ele no est ligado no db.properties. Uma falha
+	 * definitiva publica {@code INVALIDATED}, para as telas descartarem a
+	 * alterao que mostraram antes da gravao.
+	 */
+	public static synchronized WriteBehindQueue<Funcionario> getWriteBehind() {
+		if (!writeBehindChecked) {
+			writeBehindChecked = true;
+			FuncionarioService writer = new FuncionarioService();
+			writeBehind = WriteBehindQueue.fromProperties("funcionario", writer::writeBatch, Funcionario::getId);
+			if (writeBehind != null) {
+				writeBehind.addListener(changes::invalidated);
+			}
+		}
+		return writeBehind;
+	}
+	
+	/**
+	 * Grava o que ainda est na fila do write-behind, esperando at
+	 * {@code timeoutMs}, e a encerra.
+	 * 
+	 * @return quantas gravaes ficaram pendentes
+	 */
+	public static synchronized int closeWriteBehind(long timeoutMs) {
+		return writeBehind == null ? 0 : writeBehind.close(timeoutMs);
+	}
+	
 	public List<Funcionario> findAll(){
 		return dao.findAll();
 	}
 	
+	public Funcionario findById(Integer id) {
+		return dao.findById(id);
+	}
+	
+	public List<Funcionario> findPage(Funcionario after, int limit) {
+		return dao.findPage(after, limit);
+	}
+	
+	public List<Funcionario> findPage(FuncionarioQuery query, Funcionario after, int limit) {
+		return dao.findPage(query, after, limit);
+	}
+	
+	public void forEachFuncionario(FuncionarioQuery query, boolean reuseRow, Consumer<? super Funcionario> action) {
+		dao.forEachFuncionario(query, reuseRow, action);
+	}
+	
+	public Stream<Funcionario> streamFuncionarios(FuncionarioQuery query) {
+		return dao.streamFuncionarios(query);
+	}
+	
+	/**
+	 * L os funcionrios da consulta para um {@link FuncionarioSnapshot}, sem
+	 * manter um objeto por linha nem durante a leitura.
+	 */
+	public FuncionarioSnapshot snapshot(FuncionarioQuery query) {
+		FuncionarioSnapshot.Builder builder = FuncionarioSnapshot.builder();
+		dao.forEachFuncionario(query, true, builder::add);
+		return builder.build();
+	}
+	
 	public void saveOrUpdate(Funcionario obj) {
-		if(obj.getId() == null) {
-			dao.insert(obj);
+		// o evento vai para o feed de alteraes no mesmo commit
+		unitOfWork.run(() -> {
+			if(obj.getId() == null) {
+				dao.insert(obj);
+				changes.inserted(obj, obj.getId());
+			}
+			else {
+				dao.update(obj);
+				changes.updated(obj, obj.getId());
+			}
+		});
+	}
+	
+	/**
+	 * Com o write-behind ligado, s coloca {@code obj} na fila e volta na hora:
+	 * uma alterao  publicada como {@code UPDATED} imediatamente e uma
+	 * incluso  publicada como {@code INSERTED} quando for gravada, j com o
+	 * id. Sem write-behind  igual ao {@link #saveOrUpdate}.
+	 */
+	public void saveOrUpdateLater(Funcionario obj) {
+		WriteBehindQueue<Funcionario> queue = getWriteBehind();
+		if (queue == null) {
+			saveOrUpdate(obj);
+			return;
 		}
-		else {
-			dao.update(obj);
+		queue.enqueue(obj);
+		if (obj.getId() != null) {
+			// ainda no foi gravada: as outras instncias s ficam sabendo no writeBatch
+			changes.publishLocal(new ChangeEvent<>(ChangeEvent.Type.UPDATED, obj, obj.getId()));
+		}
+	}
+	
+	public BatchResult<Funcionario> saveOrUpdateAll(Collection<Funcionario> list) {
+		return unitOfWork.execute(() -> {
+			BatchResult<Funcionario> result = saveAll(list);
+			if (!result.getSaved().isEmpty()) {
+				changes.invalidated();
+			}
+			return result;
+		});
+	}
+	
+	private BatchResult<Funcionario> writeBatch(List<Funcionario> batch) {
+		Set<Funcionario> inserts = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Funcionario obj : batch) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			}
+		}
+		// os ids de uma transao desfeita voltam a null no DAO
+		return unitOfWork.execute(() -> {
+			BatchResult<Funcionario> saved = saveAll(batch);
+			// as alteraes j foram mostradas aqui no saveOrUpdateLater; so
+			// publicadas de novo para irem ao feed junto com o lote
+			for (Funcionario obj : saved.getSaved()) {
+				if (inserts.contains(obj)) {
+					changes.inserted(obj, obj.getId());
+				}
+				else {
+					changes.updated(obj, obj.getId());
+				}
+			}
+			return saved;
+		});
+	}
+	
+	private BatchResult<Funcionario> saveAll(Collection<Funcionario> list) {
+		List<Funcionario> inserts = new ArrayList<>();
+		List<Funcionario> updates = new ArrayList<>();
+		for (Funcionario obj : list) {
+			if (obj.getId() == null) {
+				inserts.add(obj);
+			}
+			else {
+				updates.add(obj);
+			}
 		}
+		// incluses e alteraes num nico commit
+		return unitOfWork.execute(() -> {
+			BatchResult<Funcionario> result = dao.insertAll(inserts);
+			result.addAll(dao.updateAll(updates));
+			return result;
+		});
 	}
 	
 	public void remove(Funcionario obj) {
-		dao.deleteById(obj.getId());
+		unitOfWork.run(() -> {
+			dao.deleteById(obj.getId());
+			changes.deleted(obj, obj.getId());
+		});
 	}
 
 }
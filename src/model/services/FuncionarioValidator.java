@@ -0,0 +1,58 @@
+package model.services;
+
+import model.entities.Funcionario;
+import model.exceptions.ValidationException;
+
+/**
+ * Regras de validao de um {@link Funcionario}, usadas pelo formulrio e pela
+ * importao. Os erros so acumulados por campo ("nome", "email", "inicio",
+ * "salario" e "cliente") em uma nica {@link ValidationException}. No guarda
+ * estado, ento a mesma instncia pode ser usada por vrias threads.
+ */
+public class FuncionarioValidator {
+
+	public static final int NOME_MAX_LENGTH = 70;
+
+	public static final int EMAIL_MAX_LENGTH = 60;
+
+	public void validate(Funcionario obj) {
+		ValidationException exception = new ValidationException("Erro de validao");
+
+		if (isBlank(obj.getNome())) {
+			exception.addError("nome", "O campo no pode ser vazio!");
+		}
+		else if (obj.getNome().length() > NOME_MAX_LENGTH) {
+			exception.addError("nome", "Mximo de " + NOME_MAX_LENGTH + " caracteres!");
+		}
+		if (isBlank(obj.getEmail())) {
+			exception.addError("email", "O campo no pode ser vazio!");
+		}
+		else if (obj.getEmail().length() > EMAIL_MAX_LENGTH) {
+			exception.addError("email", "Mximo de " + EMAIL_MAX_LENGTH + " caracteres!");
+		}
+		else if (obj.getEmail().indexOf('@') <= 0) {
+			exception.addError("email", "E-mail invlido!");
+		}
+		if (obj.getInicio() == null) {
+			exception.addError("inicio", "O campo no pode ser vazio!");
+		}
+		if (obj.getSalario() == null) {
+			exception.addError("salario", "O campo no pode ser vazio!");
+		}
+		else if (obj.getSalario() < 0) {
+			exception.addError("salario", "O salrio no pode ser negativo!");
+		}
+		if (obj.getCliente() == null || obj.getCliente().getId() == null) {
+			exception.addError("cliente", "Selecione um cliente!");
+		}
+
+		if (exception.getErrors().size() > 0) {
+			throw exception;
+		}
+	}
+
+	private static boolean isBlank(String str) {
+		return str == null || str.trim().isEmpty();
+	}
+
+}
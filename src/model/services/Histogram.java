@@ -0,0 +1,94 @@
+package model.services;
+
+import java.util.Arrays;
+
+/**
+ * Contagem de valores em faixas de mesma largura entre {@code lower} e
+ * {@code upper}; o limite superior entra na ltima faixa. Valores fora dos
+ * limites so contados  parte. Histogramas com as mesmas faixas se juntam
+ * somando as contagens. No  sincronizado.
+ */
+public final class Histogram {
+
+	private final double lower;
+	private final double upper;
+	private final double width;
+	private final long[] counts;
+	private long below;
+	private long above;
+
+	public Histogram(double lower, double upper, int bins) {
+		if (bins < 1 || !(upper >= lower)) {
+			throw new IllegalArgumentException("Faixas invlidas: " + lower + ".." + upper + " em " + bins);
+		}
+		this.lower = lower;
+		this.upper = upper;
+		// com todos os valores iguais ainda h uma faixa
+		this.width = upper > lower ? (upper - lower) / bins : 1;
+		this.counts = new long[bins];
+	}
+
+	/**
+	 * Conta um valor. {@code NaN}  ignorado.
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		if (value < lower) {
+			below++;
+		}
+		else if (value > upper) {
+			above++;
+		}
+		else {
+			counts[Math.min(counts.length - 1, (int) ((value - lower) / width))]++;
+		}
+	}
+
+	public void merge(Histogram other) {
+		if (other.lower != lower || other.upper != upper || other.counts.length != counts.length) {
+			throw new IllegalArgumentException("Histogramas com faixas diferentes");
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		below += other.below;
+		above += other.above;
+	}
+
+	public int getBins() {
+		return counts.length;
+	}
+
+	public long getCount(int bin) {
+		return counts[bin];
+	}
+
+	public double getLower(int bin) {
+		return lower + bin * width;
+	}
+
+	public double getUpper(int bin) {
+		return bin == counts.length - 1 ? upper : lower + (bin + 1) * width;
+	}
+
+	public long getBelow() {
+		return below;
+	}
+
+	public long getAbove() {
+		return above;
+	}
+
+	public long getTotal() {
+		return Arrays.stream(counts).sum() + below + above;
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram [" + lower + ".." + upper + ", counts=" + Arrays.toString(counts) + ", below=" + below
+				+ ", above=" + above + "]";
+	}
+
+}
@@ -0,0 +1,109 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma importao: quantas linhas foram lidas e gravadas, quanto
+ * tempo levou e as linhas rejeitadas com o motivo. S as primeiras
+ * {@link #MAX_REJECTIONS} rejeies so guardadas; as demais s contam.
+ */
+public class ImportReport {
+
+	public static final int MAX_REJECTIONS = 1000;
+
+	private long read;
+	private long imported;
+	private long rejected;
+	private long elapsedNanos;
+	private volatile boolean cancelled;
+	private final List<Rejection> rejections = new ArrayList<>();
+
+	synchronized void addRead(long count) {
+		read += count;
+	}
+
+	synchronized void addImported(long count) {
+		imported += count;
+	}
+
+	synchronized void addRejection(long line, String message) {
+		rejected++;
+		if (rejections.size() < MAX_REJECTIONS) {
+			rejections.add(new Rejection(line, message));
+		}
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	void setCancelled(boolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	/** Indica que a importao foi interrompida; o que j foi gravado permanece. */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public synchronized long getRead() {
+		return read;
+	}
+
+	public synchronized long getImported() {
+		return imported;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedNanos / 1e9;
+	}
+
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0.0 : getRead() / getElapsedSeconds();
+	}
+
+	/** Rejeies ordenadas pela linha do arquivo. */
+	public synchronized List<Rejection> getRejections() {
+		List<Rejection> list = new ArrayList<>(rejections);
+		list.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+		return Collections.unmodifiableList(list);
+	}
+
+	@Override
+	public String toString() {
+		return "ImportReport [cancelled=" + cancelled + ", read=" + getRead() + ", imported=" + getImported() + ", rejected=" + getRejected()
+				+ ", seconds=" + String.format("%.2f", getElapsedSeconds()) + ", rowsPerSecond="
+				+ String.format("%.0f", getRowsPerSecond()) + "]";
+	}
+
+	public static class Rejection {
+
+		private final long line;
+		private final String message;
+
+		public Rejection(long line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		public long getLine() {
+			return line;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "linha " + line + ": " + message;
+		}
+	}
+
+}
@@ -0,0 +1,563 @@
+package model.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import db.DbException;
+import db.UnitOfWork;
+import model.dao.BatchResult;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.exceptions.ValidationException;
+
+/**
+ * Importa funcionrios de um arquivo CSV em trs etapas:
+ * <ol>
+ * <li>a thread que chama l o arquivo com buffer e o divide em blocos de
+ * registros;</li>
+ * <li>os blocos so convertidos e validados em paralelo, com o
+ * {@link FuncionarioValidator}; o cliente de cada linha vem de um mapa
+ * carregado uma vez, e um cliente que no existe vira uma nica instncia por
+ * empresa/projeto, ainda sem id;</li>
+ * <li>uma nica thread grava os blocos vlidos com
+ * {@link FuncionarioService#saveOrUpdateAll}, um lote por transao. Os
+ * clientes novos citados no lote so includos na mesma transao, ento um
+ * lote desfeito no deixa clientes para trs.</li>
+ * </ol>
+ * O nmero de blocos em andamento  limitado, ento a memria usada no
+ * depende do tamanho do arquivo.
+ * <p>
+ * A primeira linha  o cabealho; as colunas so achadas pelo nome (nome,
+ * email, inicio, salario e clienteId ou empresa, com projeto opcional), de modo
+ * que o CSV gerado pelo {@link ExportService} tambm serve. A coluna id 
+ * ignorada: todas as linhas viram funcionrios novos. O separador pode ser
+ * vrgula ou ponto e vrgula.
+ */
+public class ImportService {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private static final DateTimeFormatter[] DATE_FORMATS = { DateTimeFormatter.ISO_LOCAL_DATE,
+			DateTimeFormatter.ofPattern("dd/MM/yyyy") };
+
+	private final FuncionarioService funcionarioService;
+	private final ClienteService clienteService;
+	private final FuncionarioValidator validator = new FuncionarioValidator();
+	private final UnitOfWork unitOfWork = new UnitOfWork();
+	private final int parallelism;
+
+	private volatile boolean cancelled;
+
+	public ImportService() {
+		this(new FuncionarioService(), new ClienteService(), Runtime.getRuntime().availableProcessors());
+	}
+
+	public ImportService(FuncionarioService funcionarioService, ClienteService clienteService, int parallelism) {
+		this.funcionarioService = funcionarioService;
+		this.clienteService = clienteService;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Importa o arquivo e devolve o relatrio. {@code onProgress} recebe o total
+	 * de linhas j processadas (gravadas ou rejeitadas) a cada bloco gravado;
+	 * roda na thread de gravao.
+	 *
+	 * @throws ValidationException se o cabealho no tiver as colunas necessrias
+	 */
+	public ImportReport importFuncionarios(Path source, LongConsumer onProgress) {
+		cancelled = false;
+		long start = System.nanoTime();
+		ImportReport report = new ImportReport();
+
+		ExecutorService parsers = Executors.newFixedThreadPool(parallelism, daemonThreads("import-parser"));
+		ExecutorService writer = Executors.newSingleThreadExecutor(daemonThreads("import-writer"));
+		Semaphore pending = new Semaphore(parallelism * 2 + 2);
+		List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8), 1 << 16)) {
+
+			RecordReader records = new RecordReader(reader);
+			String header = records.next();
+			if (header == null) {
+				throw new ValidationException("O arquivo est vazio");
+			}
+			if (header.startsWith("\uFEFF")) {
+				header = header.substring(1);
+			}
+			char separator = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+			Columns columns = new Columns(splitCsv(header, separator));
+			ClienteResolver clientes = new ClienteResolver(clienteService.findAll());
+
+			Chunk chunk = new Chunk();
+			String record;
+			while (!cancelled && (record = records.next()) != null) {
+				if (record.trim().isEmpty()) {
+					continue;
+				}
+				chunk.add(records.getRecordLine(), record);
+				if (chunk.size() == CHUNK_SIZE) {
+					chunks.add(submit(chunk, separator, columns, clientes, parsers, writer, pending, report, onProgress));
+					chunk = new Chunk();
+				}
+			}
+			if (chunk.size() > 0 && !cancelled) {
+				chunks.add(submit(chunk, separator, columns, clientes, parsers, writer, pending, report, onProgress));
+			}
+			CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelled = true;
+		}
+		finally {
+			parsers.shutdownNow();
+			writer.shutdown();
+		}
+		report.setCancelled(cancelled);
+		report.setElapsedNanos(System.nanoTime() - start);
+		return report;
+	}
+
+	public CompletableFuture<ImportReport> importFuncionariosAsync(Path source, LongConsumer onProgress) {
+		return CompletableFuture.supplyAsync(() -> importFuncionarios(source, onProgress), DbExecutor.get());
+	}
+
+	private CompletableFuture<Void> submit(Chunk chunk, char separator, Columns columns, ClienteResolver clientes,
+			ExecutorService parsers, ExecutorService writer, Semaphore pending, ImportReport report,
+			LongConsumer onProgress) throws InterruptedException {
+		pending.acquire();
+		report.addRead(chunk.size());
+		return CompletableFuture.supplyAsync(() -> parse(chunk, separator, columns, clientes, report), parsers)
+				.thenAcceptAsync(parsed -> write(parsed, report), writer)
+				.whenComplete((x, e) -> {
+					pending.release();
+					if (e != null) {
+						// erro inesperado em uma das etapas: o que ainda no estava no
+						// relatrio fica de fora
+						String message = messageOf(e.getCause() != null ? e.getCause() : e);
+						for (int i = chunk.done.nextClearBit(0); i < chunk.size(); i = chunk.done.nextClearBit(i + 1)) {
+							chunk.reject(report, i, message);
+						}
+					}
+					if (onProgress != null) {
+						onProgress.accept(report.getImported() + report.getRejected());
+					}
+				});
+	}
+
+	private Parsed parse(Chunk chunk, char separator, Columns columns, ClienteResolver clientes, ImportReport report) {
+		Parsed parsed = new Parsed(chunk);
+		for (int i = 0; i < chunk.size(); i++) {
+			try {
+				ValidationException errors = new ValidationException("Erro de validao");
+				Funcionario obj = toFuncionario(splitCsv(chunk.records.get(i), separator), columns, clientes, errors);
+				try {
+					validator.validate(obj);
+				}
+				catch (ValidationException e) {
+					// os erros de converso so mais precisos que os do validador
+					e.getErrors().forEach(errors.getErrors()::putIfAbsent);
+					if (obj.getCliente() != null) {
+						// cliente novo: ainda sem id,  includo junto com o lote
+						errors.getErrors().remove("cliente");
+					}
+				}
+				if (errors.getErrors().size() > 0) {
+					throw errors;
+				}
+				parsed.rows.add(obj);
+				parsed.indexes.put(obj, i);
+			}
+			catch (ValidationException e) {
+				chunk.reject(report, i, describe(e));
+			}
+		}
+		return parsed;
+	}
+
+	private void write(Parsed parsed, ImportReport report) {
+		if (parsed.rows.isEmpty()) {
+			return;
+		}
+		Set<Cliente> novos = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Funcionario obj : parsed.rows) {
+			if (obj.getCliente().getId() == null) {
+				novos.add(obj.getCliente());
+			}
+		}
+		Set<Cliente> removidos = Collections.newSetFromMap(new IdentityHashMap<>());
+		try {
+			BatchResult<Funcionario> result = unitOfWork.execute(() -> {
+				// os ids de uma tentativa desfeita j voltaram a null no DAO
+				removidos.clear();
+				for (Cliente cli : novos) {
+					clienteService.saveOrUpdate(cli);
+				}
+				BatchResult<Funcionario> saved = funcionarioService.saveOrUpdateAll(parsed.rows);
+				// um cliente novo citado s pelas linhas recusadas sai na mesma transao
+				removidos.addAll(novos);
+				saved.getSaved().forEach(obj -> removidos.remove(obj.getCliente()));
+				for (Cliente cli : removidos) {
+					clienteService.remove(cli);
+				}
+				return saved;
+			});
+			removidos.forEach(cli -> cli.setId(null));
+			report.addImported(result.getSaved().size());
+			for (Funcionario obj : result.getSaved()) {
+				parsed.chunk.done.set(parsed.indexes.get(obj));
+			}
+			for (BatchResult.Failure<Funcionario> failure : result.getFailures()) {
+				parsed.chunk.reject(report, parsed.indexes.get(failure.getEntity()), failure.getMessage());
+			}
+		}
+		catch (DbException e) {
+			// a transao foi desfeita, inclusive os clientes novos, que voltaram a
+			// ficar sem id: outro lote que cite os mesmos clientes os inclui de novo
+			for (int index : parsed.indexes.values()) {
+				parsed.chunk.reject(report, index, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Converte os campos da linha; valores que no puderem ser convertidos ficam
+	 * nulos e o erro vai para {@code exception}.
+	 */
+	private Funcionario toFuncionario(List<String> fields, Columns columns, ClienteResolver clientes,
+			ValidationException exception) {
+		Funcionario obj = new Funcionario();
+		obj.setNome(columns.get(fields, columns.nome));
+		obj.setEmail(columns.get(fields, columns.email));
+
+		String inicio = columns.get(fields, columns.inicio);
+		if (inicio != null) {
+			obj.setInicio(parseDate(inicio));
+			if (obj.getInicio() == null) {
+				exception.addError("inicio", "Data invlida: " + inicio);
+			}
+		}
+		String salario = columns.get(fields, columns.salario);
+		if (salario != null) {
+			obj.setSalario(parseDecimal(salario));
+			if (obj.getSalario() == null) {
+				exception.addError("salario", "Valor invlido: " + salario);
+			}
+		}
+
+		String clienteId = columns.get(fields, columns.clienteId);
+		String empresa = columns.get(fields, columns.empresa);
+		String projeto = columns.get(fields, columns.projeto);
+		Cliente cli = clienteId != null ? clientes.byId(clienteId) : clientes.byEmpresa(empresa, projeto);
+		if (cli == null) {
+			exception.addError("cliente", "Cliente no encontrado: "
+					+ (clienteId != null ? clienteId : empresa + (projeto != null ? " / " + projeto : "")));
+		}
+		obj.setCliente(cli);
+		return obj;
+	}
+
+	private static Date parseDate(String text) {
+		for (DateTimeFormatter format : DATE_FORMATS) {
+			try {
+				return Date.from(LocalDate.parse(text, format).atStartOfDay(ZoneId.systemDefault()).toInstant());
+			}
+			catch (DateTimeParseException e) {
+				// tenta o prximo formato
+			}
+		}
+		return null;
+	}
+
+	/** Aceita ponto ou vrgula decimal, com ou sem separador de milhar. */
+	private static Double parseDecimal(String text) {
+		String str = text;
+		if (str.indexOf(',') >= 0) {
+			str = str.replace(".", "").replace(',', '.');
+		}
+		try {
+			return Double.parseDouble(str);
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	static List<String> splitCsv(String record, char separator) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+						field.append('"');
+						i++;
+					}
+					else {
+						quoted = false;
+					}
+				}
+				else {
+					field.append(c);
+				}
+			}
+			else if (c == '"') {
+				quoted = true;
+			}
+			else if (c == separator) {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static String describe(ValidationException e) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> error : e.getErrors().entrySet()) {
+			if (sb.length() > 0) {
+				sb.append("; ");
+			}
+			sb.append(error.getKey()).append(": ").append(error.getValue());
+		}
+		return sb.length() > 0 ? sb.toString() : e.getMessage();
+	}
+
+	private static String messageOf(Throwable e) {
+		return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+	}
+
+	private static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	/**
+	 * L um registro CSV por vez, juntando as linhas de campos entre aspas que
+	 * contm quebras de linha.
+	 */
+	private static class RecordReader {
+
+		private final BufferedReader reader;
+		private long line;
+		private long recordLine;
+
+		RecordReader(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		String next() throws IOException {
+			String text = reader.readLine();
+			if (text == null) {
+				return null;
+			}
+			recordLine = ++line;
+			if (!hasOpenQuote(text)) {
+				return text;
+			}
+			StringBuilder sb = new StringBuilder(text);
+			String more;
+			while (hasOpenQuote(sb) && (more = reader.readLine()) != null) {
+				line++;
+				sb.append('\n').append(more);
+			}
+			return sb.toString();
+		}
+
+		long getRecordLine() {
+			return recordLine;
+		}
+
+		private static boolean hasOpenQuote(CharSequence text) {
+			int quotes = 0;
+			for (int i = 0; i < text.length(); i++) {
+				if (text.charAt(i) == '"') {
+					quotes++;
+				}
+			}
+			return quotes % 2 != 0;
+		}
+	}
+
+	private static class Chunk {
+
+		final List<Long> lines = new ArrayList<>(CHUNK_SIZE);
+		final List<String> records = new ArrayList<>(CHUNK_SIZE);
+
+		// registros j no relatrio, gravados ou rejeitados; as etapas do bloco
+		// rodam uma depois da outra, ento no precisa de sincronizao
+		final BitSet done = new BitSet(CHUNK_SIZE);
+
+		void add(long line, String record) {
+			lines.add(line);
+			records.add(record);
+		}
+
+		void reject(ImportReport report, int index, String message) {
+			done.set(index);
+			report.addRejection(lines.get(index), message);
+		}
+
+		int size() {
+			return records.size();
+		}
+	}
+
+	private static class Parsed {
+
+		final Chunk chunk;
+		final List<Funcionario> rows = new ArrayList<>();
+		// posio de cada funcionrio no bloco
+		final Map<Funcionario, Integer> indexes = new IdentityHashMap<>();
+
+		Parsed(Chunk chunk) {
+			this.chunk = chunk;
+		}
+	}
+
+	private static class Columns {
+
+		final int nome;
+		final int email;
+		final int inicio;
+		final int salario;
+		final int clienteId;
+		final int empresa;
+		final int projeto;
+
+		Columns(List<String> header) {
+			List<String> names = new ArrayList<>();
+			for (String name : header) {
+				names.add(name.trim().toLowerCase(Locale.ROOT));
+			}
+			nome = names.indexOf("nome");
+			email = names.indexOf("email");
+			inicio = names.indexOf("inicio");
+			salario = names.indexOf("salario");
+			clienteId = names.indexOf("clienteid");
+			empresa = names.indexOf("empresa");
+			projeto = names.indexOf("projeto");
+
+			ValidationException exception = new ValidationException("Cabealho do arquivo invlido");
+			String[] required = { "nome", "email", "inicio", "salario" };
+			for (String column : required) {
+				if (!names.contains(column)) {
+					exception.addError(column, "Coluna ausente no cabealho");
+				}
+			}
+			if (clienteId < 0 && empresa < 0) {
+				exception.addError("cliente", "O cabealho precisa da coluna clienteId ou empresa");
+			}
+			if (exception.getErrors().size() > 0) {
+				throw exception;
+			}
+		}
+
+		String get(List<String> fields, int index) {
+			if (index < 0 || index >= fields.size()) {
+				return null;
+			}
+			String value = fields.get(index).trim();
+			return value.isEmpty() ? null : value;
+		}
+	}
+
+	/**
+	 * Clientes indexados por id e por empresa/projeto, carregados uma vez no
+	 * incio. Um cliente que no existe vira uma instncia sem id na primeira
+	 * linha que o cita, reaproveitada pelas demais, mesmo vindo de threads
+	 * diferentes; quem o inclui no banco  a gravao do primeiro lote que o
+	 * usa.
+	 */
+	private class ClienteResolver {
+
+		private final Map<Integer, Cliente> byId = new ConcurrentHashMap<>();
+		private final Map<String, Cliente> byKey = new ConcurrentHashMap<>();
+
+		ClienteResolver(List<Cliente> all) {
+			for (Cliente cli : all) {
+				byId.put(cli.getId(), cli);
+				byKey.putIfAbsent(key(cli.getEmpresa(), cli.getProjeto()), cli);
+				byKey.putIfAbsent(key(cli.getEmpresa(), null), cli);
+			}
+		}
+
+		Cliente byId(String id) {
+			try {
+				return byId.get(Integer.valueOf(id));
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		Cliente byEmpresa(String empresa, String projeto) {
+			if (empresa == null) {
+				return null;
+			}
+			Cliente cli = byKey.get(key(empresa, projeto));
+			if (cli != null || projeto == null) {
+				return cli;
+			}
+			synchronized (this) {
+				cli = byKey.get(key(empresa, projeto));
+				if (cli == null) {
+					cli = new Cliente(null, empresa, projeto);
+					byKey.put(key(empresa, projeto), cli);
+					byKey.putIfAbsent(key(empresa, null), cli);
+				}
+				return cli;
+			}
+		}
+
+		private String key(String empresa, String projeto) {
+			return projeto == null ? empresa : empresa + '\n' + projeto;
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package model.services;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de {@code int} para {@code int} com endereamento aberto, sem objetos
+ * por entrada. {@link Integer#MIN_VALUE} no pode ser usado como chave.
+ */
+final class IntHashIndex {
+
+	private static final int EMPTY = Integer.MIN_VALUE;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	IntHashIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	int get(int key, int missing) {
+		for (int i = slot(key);; i = (i + 1) & mask) {
+			int k = keys[i];
+			if (k == key) {
+				return values[i];
+			}
+			if (k == EMPTY) {
+				return missing;
+			}
+		}
+	}
+
+	void put(int key, int value) {
+		if (key == EMPTY) {
+			throw new IllegalArgumentException("Chave invlida: " + key);
+		}
+		if ((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		for (int i = slot(key);; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			if (keys[i] == EMPTY) {
+				keys[i] = key;
+				values[i] = value;
+				size++;
+				return;
+			}
+		}
+	}
+
+	boolean remove(int key) {
+		int i = slot(key);
+		while (keys[i] != key) {
+			if (keys[i] == EMPTY) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		// puxa para trs as chaves seguintes que colidiram, sem deixar lpides
+		for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+			int home = slot(keys[j]);
+			boolean between = i <= j ? i < home && home <= j : i < home || home <= j;
+			if (!between) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+		keys[i] = EMPTY;
+		size--;
+		return true;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int slot(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ h >>> 16) & mask;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+	}
+
+	private static int capacityFor(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+}
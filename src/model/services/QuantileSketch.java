@@ -0,0 +1,167 @@
+package model.services;
+
+/**
+ * Resumo de uma distribuio para estimar percentis sem guardar os valores:
+ * cada valor positivo conta num balde logartmico ({@code ceil(log_g x)}, com
+ * {@code g = (1 + a) / (1 - a)}), e o percentil devolvido fica a no mximo
+ * {@code a} (a preciso relativa) do valor exato. Dois resumos com a mesma
+ * preciso se juntam somando os baldes, sem perder nada, ento cada thread
+ * pode resumir uma parte das linhas e os resultados so juntados no fim.
+ * <p>
+ * Valores zero ou negativos contam num balde prprio, como zero; menor e
+ * maior valor so guardados exatos. No  sincronizado.
+ */
+public final class QuantileSketch {
+
+	private static final double MIN_POSITIVE = 1e-9;
+
+	private static final int ZERO_BUCKET = Integer.MIN_VALUE;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+
+	// counts[i]  o balde offset + i
+	private long[] counts = new long[0];
+	private int offset;
+	private long zeroCount;
+	private long count;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public QuantileSketch(double relativeAccuracy) {
+		if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+			throw new IllegalArgumentException("Preciso relativa invlida: " + relativeAccuracy);
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	/**
+	 * Conta um valor. {@code NaN}  ignorado.
+	 */
+	public void add(double value) {
+		if (!Double.isNaN(value)) {
+			add(value, bucketOf(value));
+		}
+	}
+
+	/**
+	 * O balde de {@code value}, para contar o mesmo valor em vrios resumos
+	 * com a mesma preciso calculando o logaritmo uma vez s.
+	 */
+	int bucketOf(double value) {
+		return value < MIN_POSITIVE ? ZERO_BUCKET : (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	void add(double value, int bucket) {
+		if (bucket == ZERO_BUCKET) {
+			zeroCount++;
+		}
+		else {
+			ensureRange(bucket, bucket);
+			counts[bucket - offset]++;
+		}
+		count++;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Soma os valores de {@code other} a este resumo.
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Resumos com precises diferentes: " + relativeAccuracy + " e "
+					+ other.relativeAccuracy);
+		}
+		if (other.count == 0) {
+			return;
+		}
+		if (other.counts.length > 0) {
+			ensureRange(other.offset, other.offset + other.counts.length - 1);
+			for (int i = 0; i < other.counts.length; i++) {
+				counts[other.offset + i - offset] += other.counts[i];
+			}
+		}
+		zeroCount += other.zeroCount;
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * O valor no percentil {@code q} (de 0 a 1), ou {@code NaN} sem valores.
+	 */
+	public double quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("Percentil fora de 0..1: " + q);
+		}
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) (q * (count - 1));
+		if (rank < zeroCount) {
+			return Math.max(min, Math.min(max, 0));
+		}
+		long seen = zeroCount;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen > rank) {
+				// o meio do balde, em escala relativa
+				double value = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+				return Math.max(min, Math.min(max, value));
+			}
+		}
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	private void ensureRange(int low, int high) {
+		if (counts.length == 0) {
+			counts = new long[high - low + 1];
+			offset = low;
+			return;
+		}
+		int newLow = Math.min(low, offset);
+		int newHigh = Math.max(high, offset + counts.length - 1);
+		if (newLow == offset && newHigh == offset + counts.length - 1) {
+			return;
+		}
+		// cresce com folga dos dois lados, para no copiar a cada balde novo
+		int extra = Math.max(8, counts.length / 2);
+		if (newLow < offset) {
+			newLow -= extra;
+		}
+		if (newHigh > offset + counts.length - 1) {
+			newHigh += extra;
+		}
+		long[] grown = new long[newHigh - newLow + 1];
+		System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+		counts = grown;
+		offset = newLow;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch [count=" + count + ", baldes=" + counts.length + ", precisao=" + relativeAccuracy
+				+ ", p50=" + quantile(0.5) + "]";
+	}
+
+}
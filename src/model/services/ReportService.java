@@ -0,0 +1,106 @@
+package model.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.ReportDao;
+import model.entities.Cliente;
+import model.entities.Funcionario;
+import model.entities.PayrollTotals;
+
+/**
+ * Relatrios da folha. Os resultados ficam em cache, compartilhado por todas
+ * as instncias, at a prxima gravao de funcionrio ou cliente; a o cache
+ *  descartado e {@link #getChanges()} publica {@code INVALIDATED} para as
+ * telas recarregarem.
+ * <p>
+ * O cache tambm expira depois de {@code report.cacheTtlMs}: o write-behind
+ * publica a alterao antes de grav-la, e um relatrio lido nesse intervalo
+ * ainda no a inclui.
+ */
+public class ReportService {
+
+	private static final ChangePublisher<PayrollTotals> changes = new ChangePublisher<>();
+
+	private static final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+	private static final AtomicLong generation = new AtomicLong();
+
+	// os publishers guardam s referncias fracas; estes campos mantm os listeners vivos
+	private static final EntityChangeListener<Funcionario> funcionarioListener = event -> invalidate();
+
+	private static final EntityChangeListener<Cliente> clienteListener = event -> invalidate();
+
+	static {
+		FuncionarioService.getChanges().subscribe(funcionarioListener);
+		ClienteService.getChanges().subscribe(clienteListener);
+	}
+
+	private static class Cached {
+		final Object value;
+		final long generation;
+		final long loadedAt;
+
+		Cached(Object value, long generation, long loadedAt) {
+			this.value = value;
+			this.generation = generation;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	private ReportDao dao = DaoFactory.criaReportDao();
+
+	private final long ttlMillis = DB.getIntProperty("report.cacheTtlMs", 60000);
+
+	/**
+	 * Avisa quando os relatrios em cache deixaram de valer.
+	 */
+	public static ChangePublisher<PayrollTotals> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Descarta os relatrios em cache e avisa quem os mostra.
+	 */
+	public static void invalidate() {
+		generation.incrementAndGet();
+		cache.clear();
+		changes.invalidated();
+	}
+
+	public List<PayrollTotals> payrollByCliente() {
+		return cached("cliente", () -> Collections.unmodifiableList(dao.payrollByCliente()));
+	}
+
+	public List<PayrollTotals> payrollByInicioMes() {
+		return cached("inicioMes", () -> Collections.unmodifiableList(dao.payrollByInicioMes()));
+	}
+
+	public PayrollTotals payrollTotal() {
+		return cached("total", dao::payrollTotal);
+	}
+
+	/**
+	 * Um resultado carregado antes de uma invalidao no  aproveitado, mesmo
+	 * que a carga termine depois dela.
+	 */
+	@SuppressWarnings("unchecked")
+	private <R> R cached(String key, Supplier<R> loader) {
+		long current = generation.get();
+		long now = System.currentTimeMillis();
+		Cached entry = cache.get(key);
+		if (entry != null && entry.generation == current && now - entry.loadedAt < ttlMillis) {
+			return (R) entry.value;
+		}
+		R value = loader.get();
+		cache.put(key, new Cached(value, current, now));
+		return value;
+	}
+
+}
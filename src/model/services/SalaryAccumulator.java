@@ -0,0 +1,116 @@
+package model.services;
+
+import model.entities.SalaryStats;
+
+/**
+ * Acumula os salrios de um grupo numa passada: contagem, soma, mdia e
+ * varincia (Welford, que no perde preciso somando quadrados grandes),
+ * extremos e um {@link QuantileSketch}. Acumuladores de partes diferentes das
+ * linhas se juntam com {@link #merge}, como no algoritmo paralelo de Chan.
+ */
+final class SalaryAccumulator {
+
+	private final QuantileSketch sketch;
+	private int funcionarios;
+	private long salarios;
+	private double sum;
+	private double mean;
+	private double m2;
+
+	SalaryAccumulator(double relativeAccuracy) {
+		this.sketch = new QuantileSketch(relativeAccuracy);
+	}
+
+	/**
+	 * Conta um funcionrio; {@code NaN}  quem no tem salrio, que entra s na
+	 * contagem de funcionrios.
+	 */
+	void add(double salario) {
+		add(salario, Double.isNaN(salario) ? 0 : sketch.bucketOf(salario));
+	}
+
+	/**
+	 * Como {@link #add(double)}, com o balde do resumo j calculado por
+	 * {@link #bucketOf}: uma linha costuma entrar em vrios grupos.
+	 */
+	void add(double salario, int bucket) {
+		funcionarios++;
+		if (Double.isNaN(salario)) {
+			return;
+		}
+		sketch.add(salario, bucket);
+		salarios++;
+		sum += salario;
+		double delta = salario - mean;
+		mean += delta / salarios;
+		m2 += delta * (salario - mean);
+	}
+
+	void merge(SalaryAccumulator other) {
+		funcionarios += other.funcionarios;
+		if (other.salarios == 0) {
+			return;
+		}
+		long n = salarios + other.salarios;
+		double delta = other.mean - mean;
+		mean += delta * other.salarios / n;
+		m2 += other.m2 + delta * delta * salarios * other.salarios / n;
+		sum += other.sum;
+		salarios = n;
+		sketch.merge(other.sketch);
+	}
+
+	int bucketOf(double salario) {
+		return sketch.bucketOf(salario);
+	}
+
+	int getFuncionarios() {
+		return funcionarios;
+	}
+
+	/** O menor salrio, ou {@code NaN} sem salrios. */
+	double getMin() {
+		return sketch.getMin();
+	}
+
+	double getMax() {
+		return sketch.getMax();
+	}
+
+	/**
+	 * A cerca inferior de Tukey, {@code p25 - 1,5 * IQR}, ou {@code NaN} sem
+	 * salrios.
+	 */
+	double lowerFence() {
+		double q1 = sketch.quantile(0.25);
+		return q1 - 1.5 * (sketch.quantile(0.75) - q1);
+	}
+
+	double upperFence() {
+		double q3 = sketch.quantile(0.75);
+		return q3 + 1.5 * (q3 - sketch.quantile(0.25));
+	}
+
+	/**
+	 * O resumo do grupo. Sem salrios, os valores ficam {@code NaN}.
+	 */
+	SalaryStats toStats(String grupo, int outliers) {
+		SalaryStats stats = new SalaryStats();
+		stats.setGrupo(grupo);
+		stats.setFuncionarios(funcionarios);
+		stats.setTotalSalario(sum);
+		stats.setMediaSalario(salarios == 0 ? Double.NaN : mean);
+		// desvio padro da populao: o grupo inteiro est nas linhas
+		stats.setDesvioPadrao(salarios == 0 ? Double.NaN : Math.sqrt(m2 / salarios));
+		stats.setMenorSalario(sketch.getMin());
+		stats.setP25(sketch.quantile(0.25));
+		stats.setMediana(sketch.quantile(0.5));
+		stats.setP75(sketch.quantile(0.75));
+		stats.setP90(sketch.quantile(0.9));
+		stats.setP99(sketch.quantile(0.99));
+		stats.setMaiorSalario(sketch.getMax());
+		stats.setOutliers(outliers);
+		return stats;
+	}
+
+}
@@ -0,0 +1,319 @@
+package model.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import db.DB;
+import model.dao.BatchResult;
+import model.dao.BatchResult.Failure;
+
+/**
+ * Fila de gravao em segundo plano (write-behind). {@link #enqueue} s guarda
+ * a entidade e volta na hora; uma thread daemon grava as pendentes em lotes
+ * de at {@code batchSize}, esperando {@code flushDelayMs} depois da primeira
+ * para juntar as que chegarem em seguida.
+ * <p>
+ * Alteraes de um mesmo id que ainda no foram gravadas se fundem: s a
+ * ltima  enviada. Entidades novas (id nulo) no se fundem. Uma gravao que
+ * falha volta para a fila com espera crescente; depois de
+ * {@code maxAttempts} tentativas ela vai para as {@link #getDeadLetters()
+ * falhas definitivas}, que ficam at serem reenviadas ou descartadas.
+ * <p>
+ * Configurao lida do db.properties por {@link #fromProperties}:
+ * <ul>
+ * <li>writebehind.enabled - liga o modo (false)</li>
+ * <li>writebehind.flushMs - espera para juntar gravaes (200)</li>
+ * <li>writebehind.batchSize - mximo de entidades por lote (500)</li>
+ * <li>writebehind.maxAttempts - tentativas antes da falha definitiva (5)</li>
+ * <li>writebehind.retryMs - espera antes da segunda tentativa, dobrando a cada uma (1000)</li>
+ * </ul>
+ */
+public class WriteBehindQueue<T> {
+
+	public interface Writer<T> {
+		BatchResult<T> write(List<T> batch);
+	}
+
+	public static class DeadLetter<T> {
+
+		private final T entity;
+		private final String message;
+		private final int attempts;
+
+		DeadLetter(T entity, String message, int attempts) {
+			this.entity = entity;
+			this.message = message;
+			this.attempts = attempts;
+		}
+
+		public T getEntity() {
+			return entity;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+
+		@Override
+		public String toString() {
+			return entity + ": " + message + " (" + attempts + " tentativas)";
+		}
+	}
+
+	private static class Entry<T> {
+		final Object key;
+		final T value;
+		final int attempts;
+		final long notBefore;
+
+		Entry(Object key, T value, int attempts, long notBefore) {
+			this.key = key;
+			this.value = value;
+			this.attempts = attempts;
+			this.notBefore = notBefore;
+		}
+	}
+
+	private final String name;
+	private final Writer<T> writer;
+	private final Function<T, Integer> idOf;
+	private final int batchSize;
+	private final long flushDelayMs;
+	private final int maxAttempts;
+	private final long retryDelayMs;
+
+	private final Map<Object, Entry<T>> pending = new LinkedHashMap<>();
+	private final List<DeadLetter<T>> deadLetters = new ArrayList<>();
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	private int writing;
+	private Thread thread;
+	private boolean closed;
+
+	public WriteBehindQueue(String name, Writer<T> writer, Function<T, Integer> idOf, int batchSize, long flushDelayMs,
+			int maxAttempts, long retryDelayMs) {
+		this.name = name;
+		this.writer = writer;
+		this.idOf = idOf;
+		this.batchSize = Math.max(1, batchSize);
+		this.flushDelayMs = Math.max(0, flushDelayMs);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryDelayMs = Math.max(0, retryDelayMs);
+	}
+
+	/**
+	 * A fila configurada no db.properties, ou {@code null} se o modo
+	 * write-behind no est ligado.
+	 */
+	public static <T> WriteBehindQueue<T> fromProperties(String name, Writer<T> writer, Function<T, Integer> idOf) {
+		if (!Boolean.parseBoolean(DB.getProperties().getProperty("writebehind.enabled", "false").trim())) {
+			return null;
+		}
+		return new WriteBehindQueue<>(name, writer, idOf, DB.getIntProperty("writebehind.batchSize", 500),
+				DB.getIntProperty("writebehind.flushMs", 200), DB.getIntProperty("writebehind.maxAttempts", 5),
+				DB.getIntProperty("writebehind.retryMs", 1000));
+	}
+
+	public synchronized void enqueue(T entity) {
+		if (closed) {
+			throw new IllegalStateException("A fila " + name + " foi encerrada");
+		}
+		Integer id = idOf.apply(entity);
+		Object key = id != null ? id : new Object();
+		// remove antes de incluir para a entidade ir para o fim da ordem de chegada
+		pending.remove(key);
+		pending.put(key, new Entry<>(key, entity, 0, System.currentTimeMillis() + flushDelayMs));
+		if (thread == null) {
+			thread = new Thread(this::writeLoop, "write-behind-" + name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Quantas entidades ainda no foram gravadas, contando as do lote em
+	 * andamento.
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size() + writing;
+	}
+
+	public synchronized List<DeadLetter<T>> getDeadLetters() {
+		return Collections.unmodifiableList(new ArrayList<>(deadLetters));
+	}
+
+	/**
+	 * Devolve a falha para a fila, com as tentativas zeradas.
+	 */
+	public void retry(DeadLetter<T> letter) {
+		synchronized (this) {
+			if (!deadLetters.remove(letter)) {
+				return;
+			}
+		}
+		enqueue(letter.getEntity());
+		fireChanged();
+	}
+
+	public void discard(DeadLetter<T> letter) {
+		boolean removed;
+		synchronized (this) {
+			removed = deadLetters.remove(letter);
+		}
+		if (removed) {
+			fireChanged();
+		}
+	}
+
+	/**
+	 * Avisado, na thread da fila, quando a lista de falhas definitivas muda.
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Runnable listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Espera at {@code timeoutMs} as pendentes serem gravadas, ignorando a
+	 * espera entre tentativas, e encerra a fila.
+	 * 
+	 * @return quantas ficaram sem gravar
+	 */
+	public int close(long timeoutMs) {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+			try {
+				while (thread != null && thread.isAlive() && getPendingCount() > 0) {
+					long wait = deadline - System.currentTimeMillis();
+					if (wait <= 0) {
+						break;
+					}
+					wait(wait);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return getPendingCount();
+		}
+	}
+
+	private void writeLoop() {
+		try {
+			while (true) {
+				List<Entry<T>> batch = nextBatch();
+				if (batch == null) {
+					return;
+				}
+				write(batch);
+			}
+		}
+		catch (InterruptedException e) {
+			// encerrada
+		}
+	}
+
+	/**
+	 * Espera at haver entidades prontas: as novas ficam {@code flushDelayMs}
+	 * na fila para juntar as que chegarem depois, a no ser que j d um lote
+	 * cheio; as que falharam esperam a vez da nova tentativa.
+	 */
+	private synchronized List<Entry<T>> nextBatch() throws InterruptedException {
+		while (true) {
+			if (pending.isEmpty()) {
+				if (closed) {
+					return null;
+				}
+				wait();
+				continue;
+			}
+			long now = System.currentTimeMillis();
+			boolean full = pending.size() >= batchSize;
+			long next = Long.MAX_VALUE;
+			List<Entry<T>> batch = new ArrayList<>();
+			for (Iterator<Entry<T>> it = pending.values().iterator(); it.hasNext() && batch.size() < batchSize;) {
+				Entry<T> entry = it.next();
+				if (closed || entry.notBefore <= now || (full && entry.attempts == 0)) {
+					batch.add(entry);
+					it.remove();
+				}
+				else {
+					next = Math.min(next, entry.notBefore);
+				}
+			}
+			if (!batch.isEmpty()) {
+				writing = batch.size();
+				return batch;
+			}
+			wait(next - now);
+		}
+	}
+
+	private void write(List<Entry<T>> batch) {
+		List<T> values = new ArrayList<>(batch.size());
+		for (Entry<T> entry : batch) {
+			values.add(entry.value);
+		}
+		Map<T, String> failures = new IdentityHashMap<>();
+		try {
+			BatchResult<T> result = writer.write(values);
+			for (Failure<T> failure : result.getFailures()) {
+				failures.put(failure.getEntity(), failure.getMessage());
+			}
+		}
+		catch (RuntimeException e) {
+			String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+			for (T value : values) {
+				failures.put(value, message);
+			}
+		}
+		boolean deadLettersChanged = false;
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			for (Entry<T> entry : batch) {
+				String message = failures.get(entry.value);
+				if (message == null || pending.containsKey(entry.key)) {
+					// gravada, ou j substituda por uma alterao mais nova
+					continue;
+				}
+				int attempts = entry.attempts + 1;
+				if (attempts >= maxAttempts) {
+					deadLetters.add(new DeadLetter<>(entry.value, message, attempts));
+					deadLettersChanged = true;
+				}
+				else {
+					long delay = retryDelayMs << Math.min(attempts - 1, 10);
+					pending.put(entry.key, new Entry<>(entry.key, entry.value, attempts, now + delay));
+				}
+			}
+			writing = 0;
+			notifyAll();
+		}
+		if (deadLettersChanged) {
+			fireChanged();
+		}
+	}
+
+	private void fireChanged() {
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+
+}